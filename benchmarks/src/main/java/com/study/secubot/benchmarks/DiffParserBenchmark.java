@@ -0,0 +1,62 @@
+package com.study.secubot.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.study.secubot.core.DiffFile;
+import com.study.secubot.core.DiffParser;
+
+import okio.Okio;
+
+/**
+ * Parsing a unified diff, both from a string and streamed the way the GitHub
+ * client feeds it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector", "-Xmx4g" })
+@State(Scope.Benchmark)
+public class DiffParserBenchmark {
+
+    // 1 KB, 64 KB, 1 MB, 50 MB
+    @Param({ "1024", "65536", "1048576", "52428800" })
+    public int diffBytes;
+
+    private final DiffParser parser = new DiffParser();
+    private String diff;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        diff = Synthetic.diff(diffBytes, Synthetic.SEED);
+        encoded = diff.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<DiffFile> parseString() {
+        return parser.parse(diff);
+    }
+
+    @Benchmark
+    public void parseStream(Blackhole blackhole) throws IOException {
+        parser.parse(Okio.buffer(Okio.source(new ByteArrayInputStream(encoded))), blackhole::consume);
+    }
+}
@@ -0,0 +1,64 @@
+package com.study.secubot.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.study.secubot.rag.Bm25Index;
+import com.study.secubot.rag.ScoredDocument;
+import com.study.secubot.rag.SimpleKeywordRetriever;
+
+import dev.langchain4j.data.segment.TextSegment;
+
+/**
+ * Keyword matching and BM25 ranking for one review batch, and building the
+ * BM25 index.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector", "-Xmx4g" })
+@State(Scope.Benchmark)
+public class KeywordRetrieverBenchmark {
+
+    @Param({ "10", "1000", "10000", "100000" })
+    public int segments;
+
+    // Hunks in the batch, one query each
+    @Param({ "8" })
+    public int queries;
+
+    private final SimpleKeywordRetriever retriever = new SimpleKeywordRetriever();
+    private List<TextSegment> knowledgeBase;
+    private Bm25Index keywords;
+    private List<String> texts;
+
+    @Setup
+    public void setUp() {
+        knowledgeBase = Synthetic.segments(segments, Synthetic.SEED);
+        keywords = new Bm25Index(knowledgeBase);
+        texts = Synthetic.queries(queries, Synthetic.SEED);
+    }
+
+    @Benchmark
+    public List<ScoredDocument> retrieve() {
+        return retriever.retrieve(texts, 3, keywords);
+    }
+
+    @Benchmark
+    public Bm25Index index() {
+        return new Bm25Index(knowledgeBase);
+    }
+}
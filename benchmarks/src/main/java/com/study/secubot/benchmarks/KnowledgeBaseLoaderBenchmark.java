@@ -0,0 +1,114 @@
+package com.study.secubot.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.study.secubot.rag.KnowledgeBaseLoader;
+import com.study.secubot.rag.QuantizedEmbeddingStore;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
+
+/**
+ * Loading the knowledge base from disk without an index: reading, hashing and
+ * splitting the markdown, the ingestion pipeline, the vector store and the BM25
+ * index. The hash embedding model keeps the ONNX model out of the score; see
+ * {@link #embed} for the model itself.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector", "-Xmx4g" })
+public class KnowledgeBaseLoaderBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class KnowledgeBase {
+
+        @Param({ "10", "1000", "10000", "100000" })
+        public int segments;
+
+        private Path dir;
+        private PrintStream stdout;
+        KnowledgeBaseLoader loader;
+
+        @Setup(Level.Trial)
+        public void write() throws IOException {
+            dir = Files.createTempDirectory("secubot-kb-bench");
+            Synthetic.writeKnowledgeBase(dir, segments, Synthetic.SEED);
+            // The loader prints a line per embedded file
+            stdout = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @Setup(Level.Invocation)
+        public void freshLoader() {
+            loader = new KnowledgeBaseLoader(dir.toString(), "", 64, 0, QuantizedEmbeddingStore::new,
+                    new Synthetic.HashEmbeddingModel(), new com.study.secubot.rag.KnowledgeBase());
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            System.setOut(stdout);
+            try (Stream<Path> paths = Files.walk(dir)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Model {
+
+        // secubot.knowledge-base.embed-batch-size
+        @Param({ "1", "16", "64" })
+        public int batchSize;
+
+        EmbeddingModel model;
+        List<TextSegment> batch;
+
+        @Setup(Level.Trial)
+        public void load() {
+            model = new AllMiniLmL6V2EmbeddingModel();
+            batch = Synthetic.segments(batchSize, Synthetic.SEED);
+        }
+    }
+
+    @Benchmark
+    public KnowledgeBaseLoader load(KnowledgeBase kb) throws IOException {
+        kb.loader.load();
+        return kb.loader;
+    }
+
+    /**
+     * One embedding batch of the ingestion pipeline with the real model.
+     */
+    @Benchmark
+    public List<Embedding> embed(Model model) {
+        return model.model.embedAll(model.batch).content();
+    }
+}
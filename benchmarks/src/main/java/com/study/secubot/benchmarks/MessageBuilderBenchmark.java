@@ -0,0 +1,57 @@
+package com.study.secubot.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.study.secubot.core.MessageBuilder;
+
+import dev.langchain4j.model.chat.request.ChatRequest;
+
+/**
+ * Building the review request, which escapes the diff and context into the
+ * INPUT_JSON user message.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector", "-Xmx4g" })
+@State(Scope.Benchmark)
+public class MessageBuilderBenchmark {
+
+    // Batches are budget-sized, so 1 MB is already far beyond a real prompt
+    @Param({ "1024", "65536", "1048576", "10485760" })
+    public int diffBytes;
+
+    private final MessageBuilder builder = new MessageBuilder(5);
+    private String diff;
+    private String context;
+
+    @Setup
+    public void setUp() {
+        diff = Synthetic.diff(diffBytes, Synthetic.SEED);
+        SplittableRandom random = new SplittableRandom(Synthetic.SEED);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            sb.append(Synthetic.paragraph(random)).append("\n\n");
+        }
+        context = sb.toString();
+    }
+
+    @Benchmark
+    public ChatRequest buildSecurityReviewRequest() {
+        return builder.buildSecurityReviewRequest(diff, context);
+    }
+}
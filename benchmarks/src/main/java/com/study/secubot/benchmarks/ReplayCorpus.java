@@ -0,0 +1,88 @@
+package com.study.secubot.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Recorded pull requests to replay. The corpus is JSON Lines, one pull request
+ * per line:
+ *
+ * <pre>
+ * { "diff": "diff --git ...", "event": { ...pull_request webhook payload... } }
+ * { "diff_file": "diffs/42.diff", "number": 42 }
+ * </pre>
+ *
+ * {@code diff_file} is relative to the corpus file. The number and head SHA
+ * come from {@code event.pull_request} when present, otherwise from
+ * {@code number}/{@code head_sha}, otherwise from the line number and the diff.
+ */
+final class ReplayCorpus {
+
+    record Entry(int number, String headSha, String diff) {
+    }
+
+    private ReplayCorpus() {
+    }
+
+    static List<Entry> read(Path file) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Path dir = file.toAbsolutePath().getParent();
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode node = mapper.readTree(line);
+                JsonNode pr = node.path("event").path("pull_request");
+                String diff = node.hasNonNull("diff_file")
+                        ? Files.readString(dir.resolve(node.get("diff_file").asText()), StandardCharsets.UTF_8)
+                        : node.path("diff").asText("");
+                int number = pr.path("number").asInt(node.path("number").asInt(entries.size() + 1));
+                String sha = pr.path("head").path("sha").asText(node.path("head_sha").asText(""));
+                entries.add(new Entry(number, sha.isEmpty() ? fakeSha(diff) : sha, diff));
+            }
+        }
+        if (entries.isEmpty()) {
+            throw new IOException("Corpus is empty: " + file);
+        }
+        return entries;
+    }
+
+    /**
+     * {@code count} generated pull requests with diffs between 1 KB and 64 KB,
+     * log-uniformly distributed.
+     */
+    static List<Entry> synthetic(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int bytes = (int) Math.pow(2, 10 + random.nextDouble() * 6);
+            String diff = Synthetic.diff(bytes, seed + i);
+            entries.add(new Entry(i + 1, fakeSha(diff), diff));
+        }
+        return entries;
+    }
+
+    private static String fakeSha(String diff) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(diff.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.study.secubot.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.study.secubot.PullRequestReviewer;
+import com.study.secubot.SecuBotApplication;
+import com.study.secubot.core.ReviewEngine;
+import com.study.secubot.metrics.RunReport;
+import com.study.secubot.rag.KnowledgeBaseLoader;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Offline end-to-end load test: the real application context with GitHub and
+ * the LLM replaced by local stand-ins ({@link StubGitHub}, {@link StubLlm}).
+ *
+ * <p>
+ * Each request is what {@code CheckRunner} does for one pull request after the
+ * knowledge base is loaded: {@link PullRequestReviewer#review} fetches the diff,
+ * runs the engine and publishes the comment. Requests are driven either closed
+ * loop ({@code --concurrency} reviewers back to back) or open loop
+ * ({@code --rate} arrivals per second, Poisson by default); open-loop latency
+ * counts from the scheduled arrival, so queueing shows up in the percentiles.
+ *
+ * <p>
+ * Application settings can be changed with system properties, e.g.
+ * {@code -Dsecubot.review.mode=fanout}.
+ */
+@Command(name = "replay", mixinStandardHelpOptions = true, description = "Replay recorded pull requests against local GitHub and LLM stand-ins and report latency and throughput")
+public class ReplayHarness implements Callable<Integer> {
+
+    @Option(names = "--corpus", description = "JSON Lines file of recorded pull requests (default: generated)")
+    private Path corpus;
+
+    @Option(names = "--synthetic", description = "Generated pull requests when no corpus is given (default: ${DEFAULT-VALUE})")
+    private int synthetic = 20;
+
+    @Option(names = "--requests", description = "Measured reviews; the corpus is cycled (default: ${DEFAULT-VALUE})")
+    private int requests = 100;
+
+    @Option(names = "--warmup", description = "Reviews before measuring (default: ${DEFAULT-VALUE})")
+    private int warmup = 10;
+
+    @Option(names = "--concurrency", description = "Closed loop: reviews in flight (default: ${DEFAULT-VALUE})")
+    private int concurrency = 4;
+
+    @Option(names = "--rate", description = "Open loop: arrivals per second; overrides --concurrency")
+    private Double rate;
+
+    @Option(names = "--arrivals", description = "Open loop arrival process: poisson or fixed (default: ${DEFAULT-VALUE})")
+    private String arrivals = "poisson";
+
+    @Option(names = "--llm-latency-ms", description = "Median LLM latency (default: ${DEFAULT-VALUE})")
+    private double llmLatencyMs = 800;
+
+    @Option(names = "--llm-latency-sigma", description = "Log-normal shape of LLM latency; 0 is constant (default: ${DEFAULT-VALUE})")
+    private double llmLatencySigma = 0.5;
+
+    @Option(names = "--llm-error-rate", description = "Fraction of LLM calls that fail (default: ${DEFAULT-VALUE})")
+    private double llmErrorRate = 0;
+
+    @Option(names = "--risk-mix", description = "Verdict weights (default: ${DEFAULT-VALUE})")
+    private String riskMix = "LOW=70,MEDIUM=20,HIGH=8,CRITICAL=2";
+
+    @Option(names = "--github-latency-ms", description = "Delay of every GitHub response (default: ${DEFAULT-VALUE})")
+    private long githubLatencyMs = 20;
+
+    @Option(names = "--streaming", negatable = true, description = "Stream LLM responses (default: ${DEFAULT-VALUE})")
+    private boolean streaming = true;
+
+    @Option(names = "--knowledge-base", description = "Knowledge base directory (default: ${DEFAULT-VALUE})")
+    private String knowledgeBase = "knowledge-base";
+
+    @Option(names = "--seed", description = "Seed for generated pull requests and verdicts (default: ${DEFAULT-VALUE})")
+    private long seed = Synthetic.SEED;
+
+    @Option(names = "--report", description = "Where to write the JSON report (default: ${DEFAULT-VALUE})")
+    private Path report = Path.of("replay-report.json");
+
+    private record Outcome(long latencyNanos, String riskLevel, String error) {
+    }
+
+    public static void main(String[] args) {
+        System.exit(new CommandLine(new ReplayHarness()).execute(args));
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        List<ReplayCorpus.Entry> prs = corpus != null ? ReplayCorpus.read(corpus)
+                : ReplayCorpus.synthetic(synthetic, seed);
+        StubLlm llm = new StubLlm(llmLatencyMs, llmLatencySigma, llmErrorRate, StubLlm.parseMix(riskMix), seed);
+
+        try (StubGitHub gitHub = new StubGitHub(prs, githubLatencyMs);
+                ConfigurableApplicationContext context = startApplication(gitHub, llm)) {
+            context.getBean(KnowledgeBaseLoader.class).load();
+            PullRequestReviewer reviewer = context.getBean(PullRequestReviewer.class);
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+
+            System.out.printf("Replaying %d pull request(s): %d warm-up, %d measured, %s%n", prs.size(), warmup,
+                    requests, rate != null ? rate + " arrivals/s (" + arrivals + ")" : concurrency + " in flight");
+            drive(reviewer, gitHub, prs, warmup, 0);
+
+            JsonNode stagesBefore = new RunReport(registry).toJson(null, null, 0).path("stages");
+            long githubBefore = gitHub.requests();
+            long llmBefore = llm.calls();
+            long errorsBefore = llm.errors();
+            List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+            Instant started = Instant.now();
+            long start = System.nanoTime();
+            Outcome[] outcomes = drive(reviewer, gitHub, prs, requests, warmup);
+            long elapsed = System.nanoTime() - start;
+            long heapPeak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+            ObjectNode json = summarize(outcomes, started, elapsed, heapPeak);
+            json.put("github_requests", gitHub.requests() - githubBefore);
+            json.put("llm_calls", llm.calls() - llmBefore);
+            json.put("llm_errors", llm.errors() - errorsBefore);
+            json.set("stages", stageDelta(stagesBefore,
+                    new RunReport(registry).toJson(null, null, 0).path("stages")));
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), json);
+            System.out.printf("%d review(s), %d failed in %.1f s: %.2f reviews/s; latency p50 %.0f ms, "
+                    + "p95 %.0f ms, p99 %.0f ms; heap high-water %d MB%nReport written to %s%n",
+                    json.get("completed").asInt() + json.get("failed").asInt(), json.get("failed").asInt(),
+                    elapsed / 1e9, json.get("throughput_per_sec").asDouble(),
+                    json.path("latency_ms").path("p50").asDouble(), json.path("latency_ms").path("p95").asDouble(),
+                    json.path("latency_ms").path("p99").asDouble(), heapPeak >> 20, report);
+            return 0;
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication(StubGitHub gitHub, StubLlm llm) {
+        // System properties, so that application.yml does not win and -D on the command line still does
+        setDefault("secubot.github.token", "replay");
+        setDefault("secubot.github.api-url", gitHub.apiUrl());
+        setDefault("secubot.github.cache-dir", "");
+        setDefault("secubot.knowledge-base.path", knowledgeBase);
+        setDefault("secubot.knowledge-base.index-path", "");
+        setDefault("secubot.review.cache.path", "");
+        setDefault("secubot.review.incremental", "false");
+        setDefault("secubot.llm.streaming", String.valueOf(streaming));
+
+        SpringApplication app = new SpringApplication(SecuBotApplication.class);
+        app.setWebApplicationType(WebApplicationType.NONE);
+        app.setBannerMode(Banner.Mode.OFF);
+        app.addInitializers(context -> {
+            GenericApplicationContext generic = (GenericApplicationContext) context;
+            generic.registerBean("replayChatModel", ChatModel.class, llm::chatModel, bd -> bd.setPrimary(true));
+            generic.registerBean("replayStreamingChatModel", StreamingChatModel.class, llm::streamingChatModel,
+                    bd -> bd.setPrimary(true));
+            // The CLI runner would try to review a pull request from the environment on startup
+            generic.addBeanFactoryPostProcessor(
+                    beanFactory -> ((BeanDefinitionRegistry) beanFactory).removeBeanDefinition("checkRunner"));
+        });
+        return app.run();
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    /**
+     * Runs {@code count} reviews starting at corpus position {@code offset}.
+     */
+    private Outcome[] drive(PullRequestReviewer reviewer, StubGitHub gitHub, List<ReplayCorpus.Entry> prs,
+            int count, int offset) throws InterruptedException {
+        Outcome[] outcomes = new Outcome[count];
+        if (count == 0) {
+            return outcomes;
+        }
+        if (rate == null) {
+            AtomicInteger next = new AtomicInteger();
+            try (ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, concurrency))) {
+                for (int t = 0; t < Math.max(1, concurrency); t++) {
+                    pool.execute(() -> {
+                        for (int i; (i = next.getAndIncrement()) < count;) {
+                            String url = gitHub.prUrl(prs.get((offset + i) % prs.size()).number());
+                            outcomes[i] = review(reviewer, url, System.nanoTime());
+                        }
+                    });
+                }
+            }
+        } else {
+            double meanGapNanos = 1e9 / rate;
+            long arrival = System.nanoTime();
+            try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < count; i++) {
+                    long scheduled = arrival;
+                    long wait = scheduled - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    int index = i;
+                    String url = gitHub.prUrl(prs.get((offset + i) % prs.size()).number());
+                    pool.execute(() -> outcomes[index] = review(reviewer, url, scheduled));
+                    arrival += "fixed".equalsIgnoreCase(arrivals) ? (long) meanGapNanos
+                            : (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanGapNanos);
+                }
+            }
+        }
+        return outcomes;
+    }
+
+    private static Outcome review(PullRequestReviewer reviewer, String url, long arrivalNanos) {
+        try {
+            ReviewEngine.ReviewResult result = reviewer.review(url);
+            return new Outcome(System.nanoTime() - arrivalNanos, result.riskLevel, null);
+        } catch (Exception e) {
+            return new Outcome(System.nanoTime() - arrivalNanos, null, e.getClass().getSimpleName() + ": "
+                    + e.getMessage());
+        }
+    }
+
+    private ObjectNode summarize(Outcome[] outcomes, Instant started, long elapsedNanos, long heapPeak) {
+        ObjectNode root = new ObjectMapper().createObjectNode();
+        root.put("started", started.toString());
+        root.put("mode", rate == null ? "closed" : "open");
+        if (rate == null) {
+            root.put("concurrency", concurrency);
+        } else {
+            root.put("rate_per_sec", rate);
+            root.put("arrivals", arrivals);
+        }
+        root.put("streaming", streaming);
+        root.put("llm_latency_ms", llmLatencyMs);
+        root.put("llm_latency_sigma", llmLatencySigma);
+        root.put("github_latency_ms", githubLatencyMs);
+
+        long[] latencies = Arrays.stream(outcomes).mapToLong(Outcome::latencyNanos).sorted().toArray();
+        long failed = Arrays.stream(outcomes).filter(o -> o.error() != null).count();
+        Map<String, Integer> risks = new TreeMap<>();
+        for (Outcome outcome : outcomes) {
+            if (outcome.error() == null) {
+                risks.merge(outcome.riskLevel(), 1, Integer::sum);
+            }
+        }
+        root.put("completed", outcomes.length - failed);
+        root.put("failed", failed);
+        root.put("elapsed_ms", elapsedNanos / 1_000_000);
+        root.put("throughput_per_sec", round(outcomes.length / (elapsedNanos / 1e9)));
+        ObjectNode latency = root.putObject("latency_ms");
+        latency.put("p50", millis(percentile(latencies, 0.50)));
+        latency.put("p95", millis(percentile(latencies, 0.95)));
+        latency.put("p99", millis(percentile(latencies, 0.99)));
+        latency.put("max", millis(latencies[latencies.length - 1]));
+        latency.put("mean", millis((long) Arrays.stream(latencies).average().orElse(0)));
+        root.put("heap_high_water_mb", heapPeak >> 20);
+        ObjectNode counts = root.putObject("risk_counts");
+        risks.forEach(counts::put);
+        Arrays.stream(outcomes).map(Outcome::error).filter(e -> e != null).distinct().limit(5)
+                .forEach(root.withArray("errors")::add);
+        return root;
+    }
+
+    /**
+     * Stage timings of the measured reviews only: the warm-up is subtracted.
+     */
+    private static ObjectNode stageDelta(JsonNode before, JsonNode after) {
+        ObjectNode delta = new ObjectMapper().createObjectNode();
+        for (Iterator<String> names = after.fieldNames(); names.hasNext();) {
+            String stage = names.next();
+            long count = after.path(stage).path("count").asLong() - before.path(stage).path("count").asLong();
+            double total = after.path(stage).path("total_ms").asDouble() - before.path(stage).path("total_ms").asDouble();
+            if (count > 0) {
+                ObjectNode node = delta.putObject(stage);
+                node.put("count", count);
+                node.put("total_ms", round(total));
+                node.put("mean_ms", round(total / count));
+            }
+        }
+        return delta;
+    }
+
+    // Nearest rank
+    static long percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
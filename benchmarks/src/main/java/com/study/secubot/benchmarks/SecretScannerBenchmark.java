@@ -0,0 +1,57 @@
+package com.study.secubot.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.study.secubot.core.DiffFile;
+import com.study.secubot.core.DiffParser;
+import com.study.secubot.scan.Finding;
+import com.study.secubot.scan.SecretScanner;
+
+/**
+ * Secret-scanning a parsed diff with the shipped rules. Multiply the score by
+ * {@code diffBytes} for bytes per second. Run from the repository root so that
+ * the rules are found.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector", "-Xmx4g" })
+@State(Scope.Benchmark)
+public class SecretScannerBenchmark {
+
+    // 64 KB, 1 MB, 8 MB
+    @Param({ "65536", "1048576", "8388608" })
+    public int diffBytes;
+
+    @Param("knowledge-base/scanner-rules.json")
+    public String rulesPath;
+
+    private SecretScanner scanner;
+    private List<DiffFile> files;
+
+    @Setup
+    public void setUp() throws IOException {
+        scanner = new SecretScanner(rulesPath);
+        files = new DiffParser().parse(Synthetic.diff(diffBytes, Synthetic.SEED));
+    }
+
+    @Benchmark
+    public List<Finding> scan() {
+        return scanner.scan(files);
+    }
+}
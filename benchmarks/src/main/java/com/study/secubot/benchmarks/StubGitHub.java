@@ -0,0 +1,91 @@
+package com.study.secubot.benchmarks;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Local stand-in for the GitHub REST API, serving the corpus as the pull
+ * requests of {@code replay/app}. Every response is delayed by
+ * {@code latencyMs}. Comments and reviews are accepted and discarded, so each
+ * replay of a pull request is a full, first-time review.
+ */
+final class StubGitHub implements AutoCloseable {
+
+    private static final Pattern PULL = Pattern.compile("/repos/replay/app/(pulls|issues)/(\\d+)(/[a-z]+)?");
+
+    private final MockWebServer server = new MockWebServer();
+    private final Map<Integer, ReplayCorpus.Entry> pulls = new HashMap<>();
+    private final long latencyMs;
+    private final AtomicLong requests = new AtomicLong();
+
+    StubGitHub(List<ReplayCorpus.Entry> corpus, long latencyMs) throws IOException {
+        corpus.forEach(entry -> pulls.put(entry.number(), entry));
+        this.latencyMs = latencyMs;
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                requests.incrementAndGet();
+                return respond(request).setHeadersDelay(StubGitHub.this.latencyMs, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Base URL to use as {@code secubot.github.api-url}.
+     */
+    String apiUrl() {
+        String url = server.url("/").toString();
+        return url.substring(0, url.length() - 1);
+    }
+
+    String prUrl(int number) {
+        return apiUrl() + "/repos/replay/app/pulls/" + number;
+    }
+
+    long requests() {
+        return requests.get();
+    }
+
+    private MockResponse respond(RecordedRequest request) {
+        Matcher m = PULL.matcher(request.getRequestUrl().encodedPath());
+        ReplayCorpus.Entry pull = m.matches() ? pulls.get(Integer.parseInt(m.group(2))) : null;
+        if (pull == null) {
+            return new MockResponse().setResponseCode(404).setBody("{\"message\":\"Not Found\"}");
+        }
+        String resource = m.group(1) + (m.group(3) == null ? "" : m.group(3));
+        String method = request.getMethod();
+        return switch (resource) {
+            case "pulls" -> String.valueOf(request.getHeader("Accept")).contains("diff")
+                    ? new MockResponse().setBody(pull.diff())
+                    : json("{\"number\":" + pull.number() + ",\"head\":{\"sha\":\"" + pull.headSha()
+                            + "\"},\"base\":{\"sha\":\"base\"}}");
+            case "issues/comments" -> "POST".equals(method)
+                    ? json("{}").setResponseCode(201)
+                    : json("[]");
+            case "pulls/comments" -> json("[]");
+            case "pulls/reviews" -> json("{}");
+            default -> new MockResponse().setResponseCode(404).setBody("{\"message\":\"Not Found\"}");
+        };
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+}
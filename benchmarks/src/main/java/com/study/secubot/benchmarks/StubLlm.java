@@ -0,0 +1,247 @@
+package com.study.secubot.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import dev.langchain4j.model.output.TokenUsage;
+
+/**
+ * Stand-in for the LLM provider.
+ *
+ * <p>
+ * Latency is log-normal around {@code medianMs} with shape {@code sigma}
+ * (0.5 puts p95 at about 2.3 times the median). The verdict is drawn from the
+ * risk mix by a hash of the prompt, so the same diff always gets the same
+ * answer, as it would at temperature 0. MEDIUM and worse verdicts carry one
+ * finding on the first added line. A fraction {@code errorRate} of calls fail
+ * after the latency has elapsed.
+ */
+final class StubLlm {
+
+    // Share of the latency spent before the first streamed token
+    private static final double FIRST_TOKEN_SHARE = 0.2;
+    private static final int CHUNKS = 8;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final double medianMs;
+    private final double sigma;
+    private final double errorRate;
+    private final Map<String, Integer> riskMix;
+    private final int totalWeight;
+    private final long seed;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    StubLlm(double medianMs, double sigma, double errorRate, Map<String, Integer> riskMix, long seed) {
+        this.medianMs = medianMs;
+        this.sigma = sigma;
+        this.errorRate = errorRate;
+        this.riskMix = new LinkedHashMap<>(riskMix);
+        this.totalWeight = riskMix.values().stream().mapToInt(Integer::intValue).sum();
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("Risk mix needs a positive weight: " + riskMix);
+        }
+        this.seed = seed;
+    }
+
+    /**
+     * Parses {@code LOW=70,MEDIUM=20,HIGH=8,CRITICAL=2}.
+     */
+    static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Expected LEVEL=weight, got " + part);
+            }
+            weights.put(kv[0].trim().toUpperCase(), Integer.parseInt(kv[1].trim()));
+        }
+        return weights;
+    }
+
+    long calls() {
+        return calls.get();
+    }
+
+    long errors() {
+        return errors.get();
+    }
+
+    ChatModel chatModel() {
+        return new ChatModel() {
+            @Override
+            public ChatResponse doChat(ChatRequest request) {
+                calls.incrementAndGet();
+                sleep(latencyMs());
+                failMaybe();
+                return response(request);
+            }
+        };
+    }
+
+    StreamingChatModel streamingChatModel() {
+        return new StreamingChatModel() {
+            @Override
+            public void doChat(ChatRequest request, StreamingChatResponseHandler handler) {
+                calls.incrementAndGet();
+                long latency = latencyMs();
+                Thread.ofVirtual().start(() -> stream(request, handler, latency));
+            }
+        };
+    }
+
+    private void stream(ChatRequest request, StreamingChatResponseHandler handler, long latency) {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        StreamingHandle handle = new StreamingHandle() {
+            @Override
+            public void cancel() {
+                cancelled.set(true);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled.get();
+            }
+        };
+        try {
+            sleep((long) (latency * FIRST_TOKEN_SHARE));
+            failMaybe();
+            ChatResponse response = response(request);
+            String text = response.aiMessage().text();
+            long chunkDelay = (long) (latency * (1 - FIRST_TOKEN_SHARE) / CHUNKS);
+            int chunk = (text.length() + CHUNKS - 1) / CHUNKS;
+            for (int start = 0; start < text.length(); start += chunk) {
+                if (start > 0) {
+                    sleep(chunkDelay);
+                }
+                if (cancelled.get()) {
+                    return;
+                }
+                handler.onPartialResponse(new PartialResponse(text.substring(start, Math.min(text.length(),
+                        start + chunk))), new PartialResponseContext(handle));
+            }
+            handler.onCompleteResponse(response);
+        } catch (RuntimeException e) {
+            handler.onError(e);
+        }
+    }
+
+    private ChatResponse response(ChatRequest request) {
+        String prompt = userText(request);
+        String risk = pickRisk(prompt);
+        ObjectNode verdict = mapper.createObjectNode();
+        verdict.put("risk_level", risk);
+        verdict.put("summary", "Replay verdict " + risk + " for a prompt of " + prompt.length() + " chars.");
+        ObjectNode finding = firstAddedLine(prompt);
+        if (finding != null && !"LOW".equals(risk)) {
+            finding.put("severity", risk);
+            finding.put("message", "Replay finding");
+            verdict.putArray("findings").add(finding);
+        } else {
+            verdict.putArray("findings");
+        }
+        String text = verdict.toString();
+        int inputTokens = request.messages().stream().mapToInt(m -> messageText(m).length() / 4).sum();
+        return ChatResponse.builder()
+                .aiMessage(AiMessage.from(text))
+                .tokenUsage(new TokenUsage(inputTokens, text.length() / 4))
+                .build();
+    }
+
+    private String pickRisk(String prompt) {
+        int ticket = new SplittableRandom(seed ^ prompt.hashCode()).nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : riskMix.entrySet()) {
+            ticket -= entry.getValue();
+            if (ticket < 0) {
+                return entry.getKey();
+            }
+        }
+        return "LOW";
+    }
+
+    /**
+     * File and code of the first added line of the diff in INPUT_JSON, or null.
+     */
+    private ObjectNode firstAddedLine(String prompt) {
+        int json = prompt.indexOf("INPUT_JSON=");
+        if (json < 0) {
+            return null;
+        }
+        String diff;
+        try {
+            JsonNode input = mapper.readTree(prompt.substring(json + "INPUT_JSON=".length()));
+            diff = input.path("diff").asText("");
+        } catch (Exception e) {
+            return null;
+        }
+        String path = null;
+        for (String line : diff.split("\n")) {
+            if (line.startsWith("diff --git ")) {
+                path = line.substring(line.lastIndexOf(" b/") + " b/".length());
+            } else if (path != null && line.startsWith("+") && !line.isBlank()) {
+                ObjectNode finding = mapper.createObjectNode();
+                finding.put("file", path);
+                finding.put("code", line.substring(1));
+                return finding;
+            }
+        }
+        return null;
+    }
+
+    private long latencyMs() {
+        double gaussian = ThreadLocalRandom.current().nextGaussian();
+        return Math.round(medianMs * Math.exp(sigma * gaussian));
+    }
+
+    private void failMaybe() {
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            errors.incrementAndGet();
+            throw new IllegalStateException("Replay LLM error (injected)");
+        }
+    }
+
+    private static String userText(ChatRequest request) {
+        for (ChatMessage message : request.messages()) {
+            if (message instanceof UserMessage user) {
+                return user.singleText();
+            }
+        }
+        return "";
+    }
+
+    private static String messageText(ChatMessage message) {
+        if (message instanceof UserMessage user) {
+            return user.singleText();
+        }
+        return message instanceof SystemMessage system ? system.text() : "";
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(Math.max(0, millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Replay LLM call interrupted", e);
+        }
+    }
+}
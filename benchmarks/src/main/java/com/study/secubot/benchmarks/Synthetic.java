@@ -0,0 +1,187 @@
+package com.study.secubot.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+/**
+ * Deterministic inputs for the benchmarks: unified diffs of Java changes,
+ * knowledge-base guidelines and a cheap stand-in for the embedding model.
+ * The same seed always yields the same data, so runs are comparable.
+ */
+final class Synthetic {
+
+    static final long SEED = 42;
+    // Dimension of all-MiniLM-L6-v2
+    static final int DIMENSION = 384;
+
+    private static final String[] CODE = {
+            "String query = \"SELECT * FROM users WHERE id = \" + id;",
+            "Statement stmt = connection.createStatement();",
+            "ResultSet rs = stmt.executeQuery(query);",
+            "response.getWriter().write(request.getParameter(\"name\"));",
+            "log.info(\"Login attempt for \" + email + \" with password \" + password);",
+            "private static final String API_KEY = System.getenv(\"API_KEY\");",
+            "List<Order> orders = orderRepository.findByCustomer(customerId);",
+            "for (Order order : orders) {",
+            "    total = total.add(order.amount());",
+            "}",
+            "return ResponseEntity.ok(mapper.writeValueAsString(result));",
+            "element.innerHTML = userInput;",
+            "} catch (IOException e) {",
+            "    e.printStackTrace();",
+            "if (user.getPhone() != null && !user.getPhone().isBlank()) {",
+            "Map<String, Object> attributes = new HashMap<>(session.getAttributes());",
+            "byte[] digest = MessageDigest.getInstance(\"SHA-256\").digest(bytes);",
+            "int retries = Integer.parseInt(properties.getProperty(\"retries\", \"3\"));",
+    };
+
+    private static final String[] WORDS = {
+            "sql", "injection", "query", "preparedstatement", "parameterized", "xss", "encode", "output",
+            "escape", "template", "sensitive", "secret", "hardcoded", "credentials", "token", "logging",
+            "exception", "stack", "trace", "gdpr", "personal", "data", "encryption", "pii", "validate",
+            "input", "redirect", "session", "cookie", "csrf", "authentication", "authorization", "access",
+            "control", "deserialization", "path", "traversal", "upload", "cipher", "random", "tls", "the",
+            "always", "never", "use", "avoid", "user", "request", "response", "server", "client", "store",
+    };
+
+    private Synthetic() {
+    }
+
+    /**
+     * A unified diff of roughly {@code bytes} bytes (never less than one hunk),
+     * twenty hunks per file.
+     */
+    static String diff(int bytes, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder sb = new StringBuilder(bytes + 1024);
+        int file = 0;
+        int hunk = 0;
+        while (sb.length() < bytes || hunk == 0) {
+            if (hunk % 20 == 0) {
+                String path = "src/main/java/com/acme/service/Service" + file++ + ".java";
+                sb.append("diff --git a/").append(path).append(" b/").append(path).append('\n')
+                        .append("index 1a2b3c4..5d6e7f8 100644\n")
+                        .append("--- a/").append(path).append('\n')
+                        .append("+++ b/").append(path).append('\n');
+            }
+            int start = 1 + (hunk % 20) * 40;
+            // 3 context, 2 removed, 4 added, 3 context
+            sb.append("@@ -").append(start).append(",8 +").append(start).append(",10 @@ class Service {\n");
+            appendLines(sb, random, ' ', 3);
+            appendLines(sb, random, '-', 2);
+            appendLines(sb, random, '+', 4);
+            appendLines(sb, random, ' ', 3);
+            hunk++;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Retrieval queries shaped like those of one review batch: a path header
+     * followed by the context and added lines of a hunk.
+     */
+    static List<String> queries(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder("src/main/java/com/acme/service/Service" + i + ".java\n");
+            for (int line = 0; line < 10; line++) {
+                sb.append(CODE[random.nextInt(CODE.length)]).append('\n');
+            }
+            queries.add(sb.toString());
+        }
+        return queries;
+    }
+
+    /**
+     * A guideline paragraph of about 450 characters, one segment for the
+     * knowledge-base splitter.
+     */
+    static String paragraph(SplittableRandom random) {
+        StringBuilder sb = new StringBuilder(480);
+        while (sb.length() < 450) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        sb.setCharAt(sb.length() - 1, '.');
+        return sb.toString();
+    }
+
+    static List<TextSegment> segments(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<TextSegment> segments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            segments.add(TextSegment.from(paragraph(random)));
+        }
+        return segments;
+    }
+
+    /**
+     * Writes a knowledge base of about {@code segments} segments as markdown
+     * files of twenty paragraphs each.
+     */
+    static void writeKnowledgeBase(Path dir, int segments, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        Files.createDirectories(dir);
+        for (int file = 0; segments > 0; file++) {
+            StringBuilder sb = new StringBuilder("# Guideline " + file + "\n\n");
+            int paragraphs = Math.min(20, segments);
+            for (int i = 0; i < paragraphs; i++) {
+                sb.append(paragraph(random)).append("\n\n");
+            }
+            segments -= paragraphs;
+            Files.writeString(dir.resolve("guideline-" + file + ".md"), sb, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Embeds text as a unit vector seeded by its hash. Costs next to nothing,
+     * so benchmarks using it measure everything around the model.
+     */
+    static final class HashEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+            List<Embedding> embeddings = new ArrayList<>(textSegments.size());
+            for (TextSegment segment : textSegments) {
+                embeddings.add(vector(segment.text().hashCode()));
+            }
+            return Response.from(embeddings);
+        }
+
+        @Override
+        public int dimension() {
+            return DIMENSION;
+        }
+
+        static Embedding vector(long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            float[] vector = new float[DIMENSION];
+            double norm = 0;
+            for (int i = 0; i < DIMENSION; i++) {
+                vector[i] = (float) random.nextGaussian();
+                norm += vector[i] * vector[i];
+            }
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < DIMENSION; i++) {
+                vector[i] *= scale;
+            }
+            return Embedding.from(vector);
+        }
+    }
+
+    private static void appendLines(StringBuilder sb, SplittableRandom random, char prefix, int count) {
+        for (int i = 0; i < count; i++) {
+            sb.append(prefix).append("        ").append(CODE[random.nextInt(CODE.length)]).append('\n');
+        }
+    }
+}
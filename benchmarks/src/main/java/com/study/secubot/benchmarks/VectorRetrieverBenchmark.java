@@ -0,0 +1,96 @@
+package com.study.secubot.benchmarks;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.study.secubot.rag.KnowledgeBase;
+import com.study.secubot.rag.QuantizedEmbeddingStore;
+import com.study.secubot.rag.ScoredDocument;
+import com.study.secubot.rag.VectorStoreRetriever;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+
+/**
+ * Vector retrieval: embedding the query and searching the store.
+ *
+ * <p>
+ * With {@code embedder=hash} the query embedding is free, so the score is the
+ * store search alone; {@code minilm} adds the real ONNX model. The stored
+ * vectors are hash vectors either way, so large stores set up in seconds.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector", "-Xmx4g" })
+@State(Scope.Benchmark)
+public class VectorRetrieverBenchmark {
+
+    @Param({ "10", "1000", "10000", "100000" })
+    public int segments;
+
+    // secubot.rag.store
+    @Param({ "quantized", "memory" })
+    public String store;
+
+    @Param({ "hash", "minilm" })
+    public String embedder;
+
+    private VectorStoreRetriever retriever;
+    private String query;
+    private List<String> queries;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        EmbeddingStore<TextSegment> embeddingStore = "memory".equals(store)
+                ? new InMemoryEmbeddingStore<>()
+                : new QuantizedEmbeddingStore();
+        List<TextSegment> knowledgeBase = Synthetic.segments(segments, Synthetic.SEED);
+        List<Embedding> embeddings = new ArrayList<>(knowledgeBase.size());
+        for (TextSegment segment : knowledgeBase) {
+            embeddings.add(Synthetic.HashEmbeddingModel.vector(segment.text().hashCode()));
+        }
+        embeddingStore.addAll(embeddings, knowledgeBase);
+
+        EmbeddingModel model = "minilm".equals(embedder)
+                ? new AllMiniLmL6V2EmbeddingModel()
+                : new Synthetic.HashEmbeddingModel();
+        retriever = new VectorStoreRetriever(new KnowledgeBase(embeddingStore), model);
+        // Injected by Spring in the application (secubot.rag.max-results)
+        Field maxResults = VectorStoreRetriever.class.getDeclaredField("maxResults");
+        maxResults.setAccessible(true);
+        maxResults.setInt(retriever, 3);
+
+        queries = Synthetic.queries(8, Synthetic.SEED);
+        query = queries.get(0);
+    }
+
+    @Benchmark
+    public List<String> retrieve() {
+        return retriever.retrieve(query);
+    }
+
+    @Benchmark
+    public List<ScoredDocument> retrieveAll() {
+        return retriever.retrieveAll(queries);
+    }
+}
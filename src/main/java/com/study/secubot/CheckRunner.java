@@ -2,6 +2,7 @@ package com.study.secubot;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.concurrent.Callable;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -11,10 +12,14 @@ import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.secubot.batch.BatchCommand;
 import com.study.secubot.core.ReviewEngine;
-import com.study.secubot.github.GitHubService;
+import com.study.secubot.core.RiskLevel;
+import com.study.secubot.metrics.RunReport;
 import com.study.secubot.rag.KnowledgeBaseLoader;
+import com.study.secubot.server.ServeCommand;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
@@ -24,9 +29,12 @@ import picocli.CommandLine.Command;
 @Slf4j
 public class CheckRunner implements CommandLineRunner, Callable<Integer>, ExitCodeGenerator {
 
-    private final GitHubService gitHubService;
-    private final ReviewEngine engine;
+    private final PullRequestReviewer reviewer;
     private final KnowledgeBaseLoader kbLoader;
+    private final ServeCommand serveCommand;
+    private final BatchCommand batchCommand;
+    private final MeterRegistry meterRegistry;
+    private final String reportPath;
 
     private int exitCode;
 
@@ -36,15 +44,23 @@ public class CheckRunner implements CommandLineRunner, Callable<Integer>, ExitCo
     @Value("${context-lines:20}")
     private int contextLines;
 
-    public CheckRunner(GitHubService gitHubService, ReviewEngine engine, KnowledgeBaseLoader kbLoader) {
-        this.gitHubService = gitHubService;
-        this.engine = engine;
+    public CheckRunner(PullRequestReviewer reviewer, KnowledgeBaseLoader kbLoader, ServeCommand serveCommand,
+            BatchCommand batchCommand, MeterRegistry meterRegistry,
+            @Value("${secubot.metrics.report-path:secubot-run-report.json}") String reportPath) {
+        this.reviewer = reviewer;
         this.kbLoader = kbLoader;
+        this.serveCommand = serveCommand;
+        this.batchCommand = batchCommand;
+        this.meterRegistry = meterRegistry;
+        this.reportPath = reportPath;
     }
 
     @Override
     public void run(String... args) throws Exception {
-        this.exitCode = new CommandLine(this).execute(args);
+        this.exitCode = new CommandLine(this)
+                .addSubcommand("serve", serveCommand)
+                .addSubcommand("batch", batchCommand)
+                .execute(args);
     }
 
     @Override
@@ -54,15 +70,7 @@ public class CheckRunner implements CommandLineRunner, Callable<Integer>, ExitCo
 
     @Override
     public Integer call() {
-        // 1. Load Knowledge Base
-        try {
-            kbLoader.load();
-        } catch (IOException e) {
-            log.error("Failed to load knowledge base: " + e.getMessage());
-            return 1;
-        }
-
-        // 2. Resolve PR URL (CLI arg or Event File)
+        // 1. Resolve PR URL (CLI arg or Event File)
         String targetPrUrl = prUrl;
         if (targetPrUrl == null || targetPrUrl.isEmpty()) {
             targetPrUrl = extractPrUrlFromEvent();
@@ -73,33 +81,51 @@ public class CheckRunner implements CommandLineRunner, Callable<Integer>, ExitCo
             return 1;
         }
 
-        log.info("Processing PR: " + targetPrUrl);
+        RunReport report = new RunReport(meterRegistry);
+        ReviewEngine.ReviewResult result = review(targetPrUrl);
+        int code = result != null && !RiskLevel.of(result.riskLevel).isBlocking() ? 0 : 1;
+        writeReport(report, targetPrUrl, result, code);
+        return code;
+    }
 
+    /**
+     * Loads the knowledge base and reviews the pull request; null when either
+     * step failed.
+     */
+    private ReviewEngine.ReviewResult review(String targetPrUrl) {
+        // 2. Load Knowledge Base (after cheap checks that can end the run)
         try {
-            // 3. Fetch Diff
-            String diff = gitHubService.getPullRequestDiff(targetPrUrl);
-            log.info("Fetched diff size: " + diff.length());
-
-            // 4. Run Review
-            log.info("Running security review...");
-            ReviewEngine.ReviewResult result = engine.process(diff);
+            kbLoader.load();
+        } catch (IOException e) {
+            log.error("Failed to load knowledge base: " + e.getMessage());
+            return null;
+        }
 
-            // 5. Post Comment
-            log.info("Posting comment...");
-            String commentBody = buildCommentBody(result);
-            gitHubService.postComment(targetPrUrl, commentBody);
+        try {
+            // 3. Review and comment
+            ReviewEngine.ReviewResult result = reviewer.review(targetPrUrl);
 
-            // 6. Block if High Risk
-            if ("HIGH".equalsIgnoreCase(result.riskLevel) || "CRITICAL".equalsIgnoreCase(result.riskLevel)) {
+            // 4. Block if High Risk
+            if (RiskLevel.of(result.riskLevel).isBlocking()) {
                 log.error("Blocking PR due to HIGH/CRITICAL risk.");
-                return 1;
             }
-
-            return 0;
+            return result;
 
         } catch (Exception e) {
             log.error("Error processing PR: " + e.getMessage());
-            return 1;
+            return null;
+        }
+    }
+
+    private void writeReport(RunReport report, String targetPrUrl, ReviewEngine.ReviewResult result, int code) {
+        if (reportPath.isEmpty()) {
+            return;
+        }
+        try {
+            report.write(Path.of(reportPath), targetPrUrl, result == null ? null : result.riskLevel, code);
+            log.info("Run report written to " + reportPath);
+        } catch (IOException e) {
+            log.warn("Failed to write run report: " + e.getMessage());
         }
     }
 
@@ -112,24 +138,10 @@ public class CheckRunner implements CommandLineRunner, Callable<Integer>, ExitCo
             ObjectMapper mapper = new ObjectMapper();
             JsonNode root = mapper.readTree(new File(eventPath));
             // For pull_request event
-            return root.path("pull_request").path("url").asText(null);
+            return PullRequestReviewer.prUrlFromEvent(root);
         } catch (Exception e) {
             e.printStackTrace();
             return null;
         }
     }
-
-    private String buildCommentBody(ReviewEngine.ReviewResult result) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("### \uD83D\uDEA8 SecuBot Security Review\n\n");
-        sb.append("**Risk Level**: `").append(result.riskLevel).append("`\n\n");
-        sb.append("**Summary**:\n").append(result.summary).append("\n\n");
-
-        if (result.usedContext != null && !result.usedContext.isEmpty()) {
-            sb.append("<details><summary> Referenced Security Guidelines </summary>\n\n");
-            sb.append(result.usedContext);
-            sb.append("\n</details>");
-        }
-        return sb.toString();
-    }
 }
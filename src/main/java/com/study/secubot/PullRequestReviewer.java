@@ -0,0 +1,146 @@
+package com.study.secubot;
+
+import java.io.IOException;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.study.secubot.core.DiffFilter;
+import com.study.secubot.core.ReviewEngine;
+import com.study.secubot.github.GitHubClientMetrics;
+import com.study.secubot.github.GitHubService;
+import com.study.secubot.github.ReviewPublisher;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reviews one pull request end to end: fetch the diff, run the review, publish
+ * the summary and inline findings. Shared by the one-shot CLI and the webhook
+ * server, so both use the same warm engine, retriever and embedding store.
+ *
+ * <p>
+ * When the summary comment records an earlier reviewed head, only the commits
+ * pushed since then are fetched (compare API) and reviewed, and the result is
+ * merged with the recorded risk. A force-push, a vanished base commit or a
+ * blocking recorded risk (so that a fixing push can clear it) fall back to a
+ * full review.
+ */
+@Service
+@Slf4j
+public class PullRequestReviewer {
+
+    private final GitHubService gitHubService;
+    private final ReviewEngine engine;
+    private final ReviewPublisher publisher;
+    private final GitHubClientMetrics gitHubMetrics;
+    private final boolean incremental;
+    private final String ignoreFile;
+
+    public PullRequestReviewer(GitHubService gitHubService, ReviewEngine engine, ReviewPublisher publisher,
+            GitHubClientMetrics gitHubMetrics,
+            @Value("${secubot.review.incremental:true}") boolean incremental,
+            @Value("${secubot.review.ignore-file:.secubotignore}") String ignoreFile) {
+        this.gitHubService = gitHubService;
+        this.engine = engine;
+        this.publisher = publisher;
+        this.gitHubMetrics = gitHubMetrics;
+        this.incremental = incremental;
+        this.ignoreFile = ignoreFile;
+    }
+
+    public ReviewEngine.ReviewResult review(String prUrl) throws IOException {
+        return review(prUrl, incremental);
+    }
+
+    /**
+     * Reviews {@code prUrl}; {@code incremental} false forces a full review even
+     * when an earlier head is recorded.
+     */
+    public ReviewEngine.ReviewResult review(String prUrl, boolean incremental) throws IOException {
+        log.info("Processing PR: " + prUrl);
+
+        // 1. Find where the last run stopped
+        String head = gitHubService.getHeadSha(prUrl);
+        ReviewPublisher.State previous = publisher.previousState(prUrl);
+        String base = incremental ? incrementalBase(prUrl, previous, head) : null;
+        if (head.equals(base)) {
+            log.info("Head " + head + " already reviewed");
+            return new ReviewEngine.ReviewResult(previous.risk().name(), "No new commits since last review.", "");
+        }
+
+        // 2. Fetch and parse Diff (streamed, never held as one string); each
+        // file is secret-scanned as it arrives
+        ReviewEngine.Intake files = engine.intake(diffFilter(prUrl));
+        if (base != null) {
+            gitHubService.streamCompareDiff(prUrl, base, head, files);
+            log.info("Fetched diff since " + base + ": " + files.size() + " file(s)");
+        } else {
+            gitHubService.streamPullRequestDiff(prUrl, files);
+            log.info("Fetched diff: " + files.size() + " file(s)");
+        }
+
+        // 3. Run Review
+        log.info("Running security review...");
+        ReviewEngine.ReviewResult result = engine.process(files);
+        if (base != null) {
+            result = ReviewEngine.ReviewResult.since(result, base, previous.risk());
+        }
+
+        // 4. Publish summary comment and inline review
+        log.info("Publishing review...");
+        publisher.publish(prUrl, result, head, previous);
+        log.info("GitHub API: " + gitHubMetrics.summary());
+        return result;
+    }
+
+    /**
+     * Built-in exclusions plus the ignore file of the pull request's base
+     * branch. The pull request's own version is not used, or it could exclude
+     * its own changes from review.
+     */
+    private DiffFilter diffFilter(String prUrl) {
+        if (ignoreFile == null || ignoreFile.isBlank()) {
+            return new DiffFilter(null, List.of());
+        }
+        try {
+            String content = gitHubService.getBaseFileContent(prUrl, ignoreFile);
+            return new DiffFilter(ignoreFile, content == null ? List.of() : content.lines().toList());
+        } catch (IOException e) {
+            log.warn("Cannot read " + ignoreFile + " from the base branch, using built-in exclusions: "
+                    + e.getMessage());
+            return new DiffFilter(ignoreFile, List.of());
+        }
+    }
+
+    /**
+     * The previously reviewed head if only the commits after it need review,
+     * otherwise null for a full review.
+     */
+    private String incrementalBase(String prUrl, ReviewPublisher.State previous, String head) throws IOException {
+        if (previous == null || previous.headSha() == null) {
+            return null;
+        }
+        if (previous.headSha().equals(head)) {
+            return head;
+        }
+        if (previous.risk().isBlocking()) {
+            log.info("Previous review was " + previous.risk() + "; reviewing the full diff");
+            return null;
+        }
+        String status = gitHubService.compareStatus(prUrl, previous.headSha(), head);
+        if (!"ahead".equals(status)) {
+            // diverged/behind after a force-push, or null when the old head was garbage-collected
+            log.info("Head is " + status + " relative to " + previous.headSha() + "; reviewing the full diff");
+            return null;
+        }
+        return previous.headSha();
+    }
+
+    /**
+     * Pull request API URL from a {@code pull_request} event payload, or null.
+     */
+    public static String prUrlFromEvent(JsonNode event) {
+        return event.path("pull_request").path("url").asText(null);
+    }
+}
@@ -0,0 +1,138 @@
+package com.study.secubot.batch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.study.secubot.PullRequestReviewer;
+import com.study.secubot.github.GitHubService;
+import com.study.secubot.rag.KnowledgeBaseLoader;
+
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/**
+ * {@code secubot batch}: reviews many pull requests in one JVM. The knowledge
+ * base is loaded once and every review shares the same engine, embedding store
+ * and HTTP client, so total time is bounded by LLM concurrency rather than by
+ * JVM startups.
+ */
+@Component
+@Command(name = "batch", mixinStandardHelpOptions = true, description = "Review many pull requests with one warm engine and write an aggregated report")
+@Slf4j
+public class BatchCommand implements Callable<Integer> {
+
+    private final PullRequestReviewer reviewer;
+    private final KnowledgeBaseLoader kbLoader;
+    private final GitHubService gitHubService;
+    private final int defaultParallelism;
+
+    @Parameters(paramLabel = "PR_URL", description = "Pull request API URLs")
+    private List<String> prUrls = new ArrayList<>();
+
+    @Option(names = "--repo", paramLabel = "OWNER/NAME", description = "Review the pull requests of this repository (repeatable)")
+    private List<String> repos = new ArrayList<>();
+
+    @Option(names = "--state", description = "Pull request state for --repo: open, closed or all (default: ${DEFAULT-VALUE})")
+    private String state = "open";
+
+    @Option(names = "--file", description = "File with one pull request URL per line; blank lines and # comments are skipped")
+    private Path file;
+
+    @Option(names = "--parallelism", description = "Pull requests reviewed at once (default: secubot.batch.parallelism)")
+    private Integer parallelism;
+
+    @Option(names = "--report", description = "Where to write the JSON report (default: ${DEFAULT-VALUE})")
+    private Path report = Path.of("secubot-report.json");
+
+    @Option(names = "--full", description = "Review every pull request in full, ignoring the recorded last reviewed head")
+    private boolean full;
+
+    public BatchCommand(PullRequestReviewer reviewer, KnowledgeBaseLoader kbLoader, GitHubService gitHubService,
+            @Value("${secubot.batch.parallelism:4}") int defaultParallelism) {
+        this.reviewer = reviewer;
+        this.kbLoader = kbLoader;
+        this.gitHubService = gitHubService;
+        this.defaultParallelism = defaultParallelism;
+    }
+
+    @Override
+    public Integer call() {
+        List<String> targets;
+        try {
+            targets = resolveTargets();
+        } catch (IOException e) {
+            log.error("Failed to resolve pull requests: " + e.getMessage());
+            return 1;
+        }
+        if (targets.isEmpty()) {
+            log.error("Error: No pull requests given. Pass URLs, --repo or --file.");
+            return 1;
+        }
+
+        try {
+            kbLoader.load();
+        } catch (IOException e) {
+            log.error("Failed to load knowledge base: " + e.getMessage());
+            return 1;
+        }
+
+        int threads = parallelism != null ? parallelism : defaultParallelism;
+        log.info("Reviewing {} pull request(s), {} at a time", targets.size(), threads);
+        BatchReport result;
+        try {
+            result = BatchReport.run(targets, threads, url -> reviewer.review(url, !full));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+
+        try {
+            result.write(report);
+            log.info("Report written to " + report.toAbsolutePath());
+        } catch (IOException e) {
+            log.error("Failed to write report: " + e.getMessage());
+        }
+        log.info(result.summary());
+
+        if (result.failed() > 0) {
+            log.error("{} pull request(s) could not be reviewed.", result.failed());
+        }
+        if (result.blocking() > 0) {
+            log.error("{} pull request(s) with HIGH/CRITICAL risk.", result.blocking());
+        }
+        return result.blocking() > 0 || result.failed() > 0 ? 1 : 0;
+    }
+
+    /**
+     * URLs from the arguments, the file and the repositories, in that order and
+     * without duplicates.
+     */
+    private List<String> resolveTargets() throws IOException {
+        Set<String> targets = new LinkedHashSet<>(prUrls);
+        if (file != null) {
+            for (String line : Files.readAllLines(file)) {
+                String url = line.strip();
+                if (!url.isEmpty() && !url.startsWith("#")) {
+                    targets.add(url);
+                }
+            }
+        }
+        for (String repo : repos) {
+            List<String> found = gitHubService.listPullRequests(repo, state);
+            log.info("{}: {} {} pull request(s)", repo, found.size(), state);
+            targets.addAll(found);
+        }
+        return new ArrayList<>(targets);
+    }
+}
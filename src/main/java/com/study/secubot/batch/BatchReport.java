@@ -0,0 +1,170 @@
+package com.study.secubot.batch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.study.secubot.core.ReviewEngine;
+import com.study.secubot.core.RiskLevel;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Outcome of a batch run: one entry per pull request, in input order.
+ *
+ * <p>
+ * The JSON report has the shape:
+ *
+ * <pre>
+ * {
+ *   "started": "...", "elapsed_ms": 1234,
+ *   "total": 3, "blocking": 1, "failed": 0,
+ *   "risk_counts": { "LOW": 2, "HIGH": 1 },
+ *   "pull_requests": [ { "url", "risk_level", "summary", "elapsed_ms", "error" } ]
+ * }
+ * </pre>
+ */
+@Slf4j
+public class BatchReport {
+
+    @FunctionalInterface
+    public interface Reviewer {
+        ReviewEngine.ReviewResult review(String prUrl) throws Exception;
+    }
+
+    /**
+     * {@code riskLevel} is UNKNOWN and {@code error} is set when the review
+     * failed.
+     */
+    public record Entry(String url, String riskLevel, String summary, long elapsedMs, String error) {
+
+        public boolean isBlocking() {
+            return RiskLevel.of(riskLevel).isBlocking();
+        }
+    }
+
+    private final Instant started;
+    private final long elapsedMs;
+    private final List<Entry> entries;
+
+    BatchReport(Instant started, long elapsedMs, List<Entry> entries) {
+        this.started = started;
+        this.elapsedMs = elapsedMs;
+        this.entries = entries;
+    }
+
+    /**
+     * Reviews {@code prUrls} on {@code parallelism} threads. A failing pull
+     * request is recorded and does not stop the others.
+     */
+    public static BatchReport run(List<String> prUrls, int parallelism, Reviewer reviewer)
+            throws InterruptedException {
+        Instant started = Instant.now();
+        long start = System.nanoTime();
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread t = new Thread(r, "batch-review-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            List<Future<Entry>> futures = new ArrayList<>(prUrls.size());
+            for (String url : prUrls) {
+                futures.add(pool.submit(() -> reviewOne(url, reviewer)));
+            }
+            List<Entry> entries = new ArrayList<>(futures.size());
+            for (Future<Entry> future : futures) {
+                try {
+                    entries.add(future.get());
+                } catch (ExecutionException e) {
+                    // reviewOne catches everything; only an Error ends up here
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return new BatchReport(started, (System.nanoTime() - start) / 1_000_000, entries);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Entry reviewOne(String url, Reviewer reviewer) {
+        long start = System.nanoTime();
+        try {
+            ReviewEngine.ReviewResult result = reviewer.review(url);
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            log.info("{}: {} in {} ms", url, result.riskLevel, elapsed);
+            return new Entry(url, result.riskLevel, result.summary, elapsed, null);
+        } catch (Exception e) {
+            log.error("{}: review failed: {}", url, e.getMessage());
+            return new Entry(url, RiskLevel.UNKNOWN.name(), null, (System.nanoTime() - start) / 1_000_000,
+                    e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    public long blocking() {
+        return entries.stream().filter(Entry::isBlocking).count();
+    }
+
+    public long failed() {
+        return entries.stream().filter(e -> e.error() != null).count();
+    }
+
+    public Map<RiskLevel, Integer> riskCounts() {
+        Map<RiskLevel, Integer> counts = new EnumMap<>(RiskLevel.class);
+        for (Entry entry : entries) {
+            counts.merge(RiskLevel.of(entry.riskLevel()), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    public String summary() {
+        return "Batch: " + entries.size() + " pull request(s) in " + elapsedMs + " ms, " + riskCounts()
+                + ", " + failed() + " failed";
+    }
+
+    public void write(Path file) throws IOException {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode root = mapper.createObjectNode();
+        root.put("started", started.toString());
+        root.put("elapsed_ms", elapsedMs);
+        root.put("total", entries.size());
+        root.put("blocking", blocking());
+        root.put("failed", failed());
+        ObjectNode counts = root.putObject("risk_counts");
+        riskCounts().forEach((risk, count) -> counts.put(risk.name(), count));
+        ArrayNode prs = root.putArray("pull_requests");
+        for (Entry entry : entries) {
+            ObjectNode node = prs.addObject();
+            node.put("url", entry.url());
+            node.put("risk_level", entry.riskLevel());
+            node.put("summary", entry.summary());
+            node.put("elapsed_ms", entry.elapsedMs());
+            node.put("error", entry.error());
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        mapper.writeValue(file.toFile(), root);
+    }
+}
@@ -0,0 +1,27 @@
+package com.study.secubot.config;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.study.secubot.github.GitHubClientMetrics;
+import com.study.secubot.github.GitHubHttpClient;
+
+import okhttp3.OkHttpClient;
+
+@Configuration
+public class GitHubClientConfig {
+
+    @Bean
+    public OkHttpClient gitHubHttpClient(@Value("${secubot.github.cache-dir:}") String cacheDir,
+            @Value("${secubot.github.cache-max-bytes:52428800}") long cacheMaxBytes,
+            @Value("${secubot.github.max-retries:3}") int maxRetries,
+            @Value("${secubot.github.max-wait-seconds:120}") long maxWaitSeconds,
+            GitHubClientMetrics metrics) {
+        return GitHubHttpClient.create(cacheDir.isEmpty() ? null : Paths.get(cacheDir), cacheMaxBytes, maxRetries,
+                Duration.ofSeconds(maxWaitSeconds), metrics);
+    }
+}
@@ -1,7 +1,13 @@
 package com.study.secubot.config;
 
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import com.study.secubot.rag.QuantizedEmbeddingStore;
 
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
@@ -12,13 +18,25 @@ import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
 @Configuration
 public class LangChainConfig {
 
+    /**
+     * Identifies the embedding model in the on-disk index without instantiating
+     * it, so a warm start never loads ONNX.
+     */
+    public static final String EMBEDDING_MODEL_ID = AllMiniLmL6V2EmbeddingModel.class.getName();
+
+    // Injection points are @Lazy too; the ONNX model loads on the first embed call
     @Bean
+    @Lazy
     EmbeddingModel embeddingModel() {
         return new AllMiniLmL6V2EmbeddingModel();
     }
 
+    // Every knowledge-base load fills a fresh store that is published as a whole
     @Bean
-    EmbeddingStore<TextSegment> embeddingStore() {
-        return new InMemoryEmbeddingStore<>();
+    Supplier<EmbeddingStore<TextSegment>> embeddingStoreFactory(@Value("${secubot.rag.store:quantized}") String store) {
+        if ("memory".equalsIgnoreCase(store)) {
+            return InMemoryEmbeddingStore::new;
+        }
+        return QuantizedEmbeddingStore::new;
     }
 }
@@ -1,12 +1,27 @@
 package com.study.secubot.config;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import com.study.secubot.llm.CircuitBreaker;
+import com.study.secubot.llm.LatencyStats;
+import com.study.secubot.llm.LlmRoute;
+import com.study.secubot.llm.RoutingChatModel;
 
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
+import dev.langchain4j.model.googleai.GoogleAiGeminiStreamingChatModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 
 @Configuration
 public class LlmConfig {
@@ -20,20 +35,123 @@ public class LlmConfig {
     @Value("${secubot.llm.model:gemini-2.5-flash}")
     private String modelName;
 
+    // Ordered provider:model list; empty means just provider:model above
+    @Value("${secubot.llm.providers:}")
+    private String providers;
+
+    @Value("${secubot.llm.gemini.api-key:}")
+    private String geminiApiKey;
+
+    @Value("${secubot.llm.openai.api-key:}")
+    private String openAiApiKey;
+
+    @Value("${secubot.llm.timeout-seconds:120}")
+    private long timeoutSeconds;
+
+    @Value("${secubot.llm.hedge.enabled:true}")
+    private boolean hedge;
+
+    @Value("${secubot.llm.hedge.min-delay-ms:2000}")
+    private long minHedgeDelayMs;
+
+    @Value("${secubot.llm.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${secubot.llm.breaker.open-seconds:60}")
+    private long breakerOpenSeconds;
+
+    @Value("${secubot.llm.max-error-rate:0.5}")
+    private double maxErrorRate;
+
+    /**
+     * Providers and models that produce the verdicts in routing order, e.g.
+     * {@code gemini:gemini-2.5-flash}.
+     */
+    public String modelId() {
+        return String.join(",", routeNames());
+    }
+
+    private List<String> routeNames() {
+        if (providers == null || providers.isBlank()) {
+            return List.of(provider + ":" + modelName);
+        }
+        return Arrays.stream(providers.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    @Bean
+    @Lazy
+    public RoutingChatModel chatLanguageModel() {
+        Duration timeout = Duration.ofSeconds(timeoutSeconds);
+        List<LlmRoute> routes = new ArrayList<>();
+        for (String name : routeNames()) {
+            int colon = name.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("secubot.llm.providers entries must be provider:model, got " + name);
+            }
+            String routeProvider = name.substring(0, colon);
+            String routeModel = name.substring(colon + 1);
+            routes.add(new LlmRoute(name,
+                    chatModel(routeProvider, routeModel, timeout),
+                    streamingChatModel(routeProvider, routeModel, timeout),
+                    new LatencyStats(100),
+                    new CircuitBreaker(breakerFailureThreshold, Duration.ofSeconds(breakerOpenSeconds),
+                            Clock.systemUTC())));
+        }
+        return new RoutingChatModel(routes, timeout, Duration.ofMillis(minHedgeDelayMs), hedge, maxErrorRate);
+    }
+
+    /**
+     * Same routes as {@link #chatLanguageModel()}, used when
+     * {@code secubot.llm.streaming} is on.
+     */
     @Bean
-    public ChatModel chatLanguageModel() {
-        if ("openai".equalsIgnoreCase(provider)) {
+    @Lazy
+    public StreamingChatModel streamingChatLanguageModel() {
+        return chatLanguageModel().streaming();
+    }
+
+    private ChatModel chatModel(String routeProvider, String routeModel, Duration timeout) {
+        if ("openai".equalsIgnoreCase(routeProvider)) {
             return OpenAiChatModel.builder()
-                    .apiKey(apiKey)
-                    .modelName(modelName)
+                    .apiKey(apiKeyFor(routeProvider))
+                    .modelName(routeModel)
+                    .timeout(timeout)
+                    .maxRetries(0) // the router fails over instead
                     .build();
         } else {
             // Default to Google AI Gemini
             return GoogleAiGeminiChatModel.builder()
-                    .apiKey(apiKey)
-                    .modelName(modelName)
+                    .apiKey(apiKeyFor(routeProvider))
+                    .modelName(routeModel)
                     .temperature(0.0) // Security reviews should be deterministic
+                    .timeout(timeout)
+                    .maxRetries(0)
                     .build();
         }
     }
+
+    private StreamingChatModel streamingChatModel(String routeProvider, String routeModel, Duration timeout) {
+        if ("openai".equalsIgnoreCase(routeProvider)) {
+            return OpenAiStreamingChatModel.builder()
+                    .apiKey(apiKeyFor(routeProvider))
+                    .modelName(routeModel)
+                    .timeout(timeout)
+                    .build();
+        } else {
+            return GoogleAiGeminiStreamingChatModel.builder()
+                    .apiKey(apiKeyFor(routeProvider))
+                    .modelName(routeModel)
+                    .temperature(0.0)
+                    .timeout(timeout)
+                    .build();
+        }
+    }
+
+    /**
+     * The provider's own key if set, otherwise {@code secubot.llm.api-key}.
+     */
+    private String apiKeyFor(String routeProvider) {
+        String key = "openai".equalsIgnoreCase(routeProvider) ? openAiApiKey : geminiApiKey;
+        return key == null || key.isEmpty() ? apiKey : key;
+    }
 }
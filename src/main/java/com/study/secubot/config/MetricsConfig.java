@@ -0,0 +1,43 @@
+package com.study.secubot.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.study.secubot.core.LlmMetrics;
+import com.study.secubot.github.GitHubClientMetrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/**
+ * One Prometheus registry for the process. It joins Micrometer's global
+ * registry, which is where {@link com.study.secubot.metrics.Stages} records,
+ * and exposes the existing GitHub and LLM counters alongside the stage timers.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public PrometheusMeterRegistry prometheusMeterRegistry(GitHubClientMetrics gitHub, LlmMetrics llm) {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+        FunctionCounter.builder("secubot.github.requests", gitHub, GitHubClientMetrics::requests).register(registry);
+        FunctionCounter.builder("secubot.github.not.modified", gitHub, GitHubClientMetrics::notModified)
+                .register(registry);
+        FunctionCounter.builder("secubot.github.retries", gitHub, GitHubClientMetrics::retries).register(registry);
+        FunctionCounter.builder("secubot.github.rate.limited", gitHub, GitHubClientMetrics::rateLimited)
+                .register(registry);
+        FunctionCounter.builder("secubot.llm.calls", llm, LlmMetrics::calls).register(registry);
+        FunctionCounter.builder("secubot.llm.cancelled", llm, LlmMetrics::cancelled).register(registry);
+        Gauge.builder("secubot.llm.verdict.avg", llm, LlmMetrics::averageVerdictMillis)
+                .baseUnit("milliseconds").register(registry);
+        Gauge.builder("secubot.llm.decision.last", llm, LlmMetrics::lastDecisionMillis)
+                .baseUnit("milliseconds").register(registry);
+
+        Metrics.addRegistry(registry);
+        return registry;
+    }
+}
@@ -0,0 +1,41 @@
+package com.study.secubot.core;
+
+import java.util.List;
+
+/**
+ * All hunks of one file in a unified diff. {@code oldPath} is {@code null} for
+ * new files and {@code newPath} is {@code null} for deleted files.
+ */
+public record DiffFile(String oldPath, String newPath, boolean binary, List<DiffHunk> hunks) {
+
+    public String path() {
+        return newPath != null ? newPath : oldPath;
+    }
+
+    public boolean deleted() {
+        return newPath == null;
+    }
+
+    /**
+     * Renders the file back into unified-diff form (without index/mode lines).
+     */
+    public void appendTo(StringBuilder sb) {
+        sb.append("diff --git a/").append(oldPath != null ? oldPath : path())
+                .append(" b/").append(path()).append('\n');
+        if (binary) {
+            sb.append("Binary file changed\n");
+            return;
+        }
+        for (DiffHunk hunk : hunks) {
+            hunk.appendTo(sb);
+        }
+    }
+
+    public static String render(List<DiffFile> files) {
+        StringBuilder sb = new StringBuilder();
+        for (DiffFile file : files) {
+            file.appendTo(sb);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,253 @@
+package com.study.secubot.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.study.secubot.metrics.Stages;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decides which files of a diff are not worth an LLM review: lockfiles,
+ * vendored dependencies, generated and minified code. Skipped files are still
+ * secret-scanned; see {@link ReviewEngine.Intake}.
+ *
+ * <p>
+ * Paths are matched against built-in globs plus those of a
+ * {@code .secubotignore} file, which uses {@code .gitignore} syntax: a pattern
+ * without a {@code /} matches a name at any depth, a leading {@code /} anchors
+ * it to the repository root, a trailing {@code /} matches directories only,
+ * {@code **} spans directories and {@code !pattern} re-includes paths that
+ * other patterns, built-in ones included, ignore. All globs are compiled into
+ * one regex per polarity, so a path is tested once whatever the number of
+ * patterns. The ignore file itself is never skipped.
+ *
+ * <p>
+ * Files that pass the globs are checked as well: a generated-code marker on
+ * the first comment line ({@code @generated}, {@code Code generated ... DO NOT
+ * EDIT}), or added lines that are long on average as in minified code, skip
+ * the file. Skipped files are counted through {@link Stages#skipped}.
+ */
+@Slf4j
+public class DiffFilter {
+
+    static final String IGNORED = "ignored";
+    static final String GENERATED = "generated";
+    static final String MINIFIED = "minified";
+
+    static final List<String> BUILT_IN = List.of(
+            // Lockfiles
+            "package-lock.json", "npm-shrinkwrap.json", "yarn.lock", "pnpm-lock.yaml", "bun.lockb",
+            "Gemfile.lock", "Cargo.lock", "poetry.lock", "Pipfile.lock", "uv.lock", "composer.lock", "go.sum",
+            "gradle.lockfile", "packages.lock.json", "Podfile.lock", "pubspec.lock", "mix.lock", "flake.lock",
+            // Vendored dependencies
+            "vendor/", "node_modules/", "bower_components/", "third_party/",
+            // Minified bundles, source maps and generated code
+            "*.min.js", "*.min.css", "*.map", "*.pb.go", "*.pb.cc", "*.pb.h", "*_pb2.py", "*_pb2_grpc.py",
+            "*.g.dart", "*.designer.cs");
+
+    // Lines at the top of a file searched for its first comment line
+    static final int HEADER_LINES = 10;
+    // Average added-line length above which a file counts as minified
+    static final int MINIFIED_LINE_CHARS = 300;
+    // Below this many added chars a few long lines are not worth a verdict
+    static final int MINIFIED_MIN_CHARS = 1000;
+
+    // Markers written by code generators, matched on the first comment line only
+    private static final Pattern GENERATED_HEADER = Pattern.compile(
+            "@generated\\b|\\bcode generated\\b.*\\bdo not edit\\b|generated by the protocol buffer compiler",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern COMMENT = Pattern.compile("^\\s*(?://|/\\*|\\*|#|<!--|--|;|%)");
+    // Interpreter and encoding lines come before any header comment
+    private static final Pattern PREAMBLE = Pattern.compile("^\\s*(?:#!|#.*-\\*-.*coding)");
+
+    private static final DiffFilter NONE = new DiffFilter(null, null, null, false);
+
+    private final String ignoreFile;
+    private final Pattern ignored;
+    private final Pattern included;
+    private final boolean heuristics;
+
+    /**
+     * A filter with the built-in globs followed by {@code patterns}, the lines of
+     * the ignore file at {@code ignoreFile}, in {@code .secubotignore} syntax.
+     */
+    public DiffFilter(String ignoreFile, List<String> patterns) {
+        List<String> ignore = new ArrayList<>();
+        List<String> include = new ArrayList<>();
+        for (String line : concat(BUILT_IN, patterns)) {
+            String pattern = line.strip();
+            if (pattern.isEmpty() || pattern.startsWith("#")) {
+                continue;
+            }
+            if (pattern.startsWith("!")) {
+                include.add(globToRegex(pattern.substring(1)));
+            } else {
+                ignore.add(globToRegex(pattern.startsWith("\\") ? pattern.substring(1) : pattern));
+            }
+        }
+        this.ignoreFile = ignoreFile == null ? null : stripSlash(ignoreFile);
+        this.ignored = compile(ignore);
+        this.included = compile(include);
+        this.heuristics = true;
+    }
+
+    private DiffFilter(String ignoreFile, Pattern ignored, Pattern included, boolean heuristics) {
+        this.ignoreFile = ignoreFile;
+        this.ignored = ignored;
+        this.included = included;
+        this.heuristics = heuristics;
+    }
+
+    /**
+     * A filter that keeps every file.
+     */
+    public static DiffFilter none() {
+        return NONE;
+    }
+
+    /**
+     * Whether the globs exclude {@code path}, relative to the repository root.
+     */
+    public boolean ignores(String path) {
+        return path != null && ignored != null && !path.equals(ignoreFile) && ignored.matcher(path).matches()
+                && (included == null || !included.matcher(path).matches());
+    }
+
+    /**
+     * Why {@code file} should not be reviewed, or {@code null} when it should.
+     * Returns {@link #IGNORED}, {@link #GENERATED} or {@link #MINIFIED}.
+     */
+    public String reason(DiffFile file) {
+        if (!heuristics || file.path().equals(ignoreFile)) {
+            return null;
+        }
+        if (ignores(file.path())) {
+            return IGNORED;
+        }
+        if (file.binary()) {
+            return null;
+        }
+        if (hasGeneratedHeader(file)) {
+            return GENERATED;
+        }
+        long addedChars = 0;
+        int addedLines = 0;
+        for (DiffHunk hunk : file.hunks()) {
+            for (DiffLine line : hunk.lines()) {
+                if (line.type() == DiffLine.Type.ADDED) {
+                    addedChars += line.text().length();
+                    addedLines++;
+                }
+            }
+        }
+        if (addedChars >= MINIFIED_MIN_CHARS && addedChars / addedLines > MINIFIED_LINE_CHARS) {
+            return MINIFIED;
+        }
+        return null;
+    }
+
+    /**
+     * Records a file left out of the LLM review. Its size is estimated from
+     * its lines; lockfiles, generated and minified code are ASCII, so
+     * characters are counted as bytes.
+     */
+    void skipped(DiffFile file, String reason) {
+        long chars = size(file);
+        log.debug("Skipping {} file {} ({} chars)", reason, file.path(), chars);
+        Stages.skipped(chars, PromptPacker.estimateTokens((int) Math.min(chars, Integer.MAX_VALUE)));
+    }
+
+    /**
+     * Whether the first comment line of the file, which must be among the
+     * lines of the diff, carries a generator's marker.
+     */
+    private static boolean hasGeneratedHeader(DiffFile file) {
+        if (file.hunks().isEmpty() || file.hunks().get(0).newStart() > 1) {
+            return false;
+        }
+        for (DiffLine line : file.hunks().get(0).lines()) {
+            if (line.newLine() == 0 || line.text().isBlank() || PREAMBLE.matcher(line.text()).find()) {
+                continue;
+            }
+            if (line.newLine() > HEADER_LINES || !COMMENT.matcher(line.text()).find()) {
+                return false;
+            }
+            return GENERATED_HEADER.matcher(line.text()).find();
+        }
+        return false;
+    }
+
+    private static long size(DiffFile file) {
+        // "diff --git a/<path> b/<path>" plus one header and one prefix per line
+        long chars = 16 + 2L * file.path().length();
+        for (DiffHunk hunk : file.hunks()) {
+            chars += 24 + hunk.section().length();
+            for (DiffLine line : hunk.lines()) {
+                chars += line.text().length() + 2;
+            }
+        }
+        return chars;
+    }
+
+    private static String stripSlash(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    /**
+     * Translates one glob into a regex matching the whole path: the path
+     * itself or anything below it.
+     */
+    static String globToRegex(String glob) {
+        boolean directory = glob.endsWith("/");
+        String body = directory ? glob.substring(0, glob.length() - 1) : glob;
+        // Like git, a pattern with a slash other than a trailing one is relative to the root
+        boolean anchored = body.contains("/");
+        if (body.startsWith("/")) {
+            body = body.substring(1);
+        }
+
+        StringBuilder regex = new StringBuilder(anchored ? "" : "(?:.*/)?");
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '*' && i + 1 < body.length() && body.charAt(i + 1) == '*') {
+                boolean slashed = i + 2 < body.length() && body.charAt(i + 2) == '/';
+                regex.append(slashed ? "(?:.*/)?" : ".*");
+                i += slashed ? 2 : 1;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if (c == '[' && body.indexOf(']', i + 2) > 0) {
+                int end = body.indexOf(']', i + 2);
+                String set = body.substring(i + 1, end);
+                regex.append('[').append(set.startsWith("!") ? "^" + set.substring(1) : set).append(']');
+                i = end;
+            } else if (c == '\\' && i + 1 < body.length()) {
+                literal(regex, body.charAt(++i));
+            } else {
+                literal(regex, c);
+            }
+        }
+        regex.append(directory ? "/.*" : "(?:/.*)?");
+        return regex.toString();
+    }
+
+    private static void literal(StringBuilder regex, char c) {
+        if ("\\.[]{}()<>*+-=!?^$|".indexOf(c) >= 0) {
+            regex.append('\\');
+        }
+        regex.append(c);
+    }
+
+    private static Pattern compile(List<String> regexes) {
+        return regexes.isEmpty() ? null : Pattern.compile("(?:" + String.join(")|(?:", regexes) + ")");
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        List<String> all = new ArrayList<>(first);
+        all.addAll(second);
+        return all;
+    }
+}
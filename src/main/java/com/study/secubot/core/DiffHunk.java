@@ -0,0 +1,21 @@
+package com.study.secubot.core;
+
+import java.util.List;
+
+/**
+ * One {@code @@ -oldStart,oldCount +newStart,newCount @@} block of a file diff.
+ */
+public record DiffHunk(int oldStart, int oldCount, int newStart, int newCount, String section, List<DiffLine> lines) {
+
+    public String header() {
+        return "@@ -" + oldStart + "," + oldCount + " +" + newStart + "," + newCount + " @@"
+                + (section.isEmpty() ? "" : " " + section);
+    }
+
+    public void appendTo(StringBuilder sb) {
+        sb.append(header()).append('\n');
+        for (DiffLine line : lines) {
+            sb.append(line.type().prefix()).append(line.text()).append('\n');
+        }
+    }
+}
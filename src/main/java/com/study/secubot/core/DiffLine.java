@@ -0,0 +1,22 @@
+package com.study.secubot.core;
+
+/**
+ * A single line of a diff hunk. Line numbers are 1-based; {@code oldLine} is 0
+ * for added lines and {@code newLine} is 0 for removed lines.
+ */
+public record DiffLine(Type type, int oldLine, int newLine, String text) {
+
+    public enum Type {
+        CONTEXT(' '), ADDED('+'), REMOVED('-');
+
+        private final char prefix;
+
+        Type(char prefix) {
+            this.prefix = prefix;
+        }
+
+        public char prefix() {
+            return prefix;
+        }
+    }
+}
@@ -1,12 +1,194 @@
 package com.study.secubot.core;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okio.Buffer;
+import okio.BufferedSource;
+
+/**
+ * Streaming parser for git's unified diff format.
+ *
+ * <p>
+ * Lines are pulled from the source one at a time and each {@link DiffFile} is
+ * handed to the consumer as soon as its last hunk has been read, so at most one
+ * file is held in memory regardless of the size of the whole diff.
+ */
 public class DiffParser {
 
-    public String parse(String rawDiff) {
-        // In a real implementation, this would parse the unified diff format
-        // and extract relevant lines with context.
-        // For PoC, we will just return the raw diff or a slightly cleaned version.
+    private static final Pattern HUNK_HEADER = Pattern
+            .compile("^@@ -(\\d+)(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@ ?(.*)$");
+
+    public List<DiffFile> parse(String rawDiff) {
+        List<DiffFile> files = new ArrayList<>();
+        try {
+            parse(new Buffer().writeUtf8(rawDiff == null ? "" : rawDiff), files::add);
+        } catch (IOException e) {
+            // In-memory buffers do not throw
+            throw new UncheckedIOException(e);
+        }
+        return files;
+    }
+
+    public void parse(BufferedSource source, Consumer<DiffFile> consumer) throws IOException {
+        FileBuilder file = null;
+        HunkBuilder hunk = null;
+        boolean skippingBinaryPatch = false;
+
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (hunk != null && hunk.expectsMore()) {
+                hunk.accept(line);
+                continue;
+            }
+
+            if (line.startsWith("diff --git ")) {
+                emit(file, consumer);
+                file = FileBuilder.fromGitHeader(line);
+                hunk = null;
+                skippingBinaryPatch = false;
+            } else if (file == null || skippingBinaryPatch) {
+                // Preamble before the first file (e.g. mbox headers) or binary patch payload
+                continue;
+            } else if (line.startsWith("@@")) {
+                Matcher m = HUNK_HEADER.matcher(line);
+                if (m.matches()) {
+                    hunk = new HunkBuilder(Integer.parseInt(m.group(1)), count(m.group(2)),
+                            Integer.parseInt(m.group(3)), count(m.group(4)), m.group(5));
+                    file.hunks.add(hunk);
+                }
+            } else if (line.startsWith("--- ")) {
+                file.oldPath = stripPrefix(line.substring(4), "a/");
+            } else if (line.startsWith("+++ ")) {
+                file.newPath = stripPrefix(line.substring(4), "b/");
+            } else if (line.startsWith("rename from ")) {
+                file.oldPath = line.substring("rename from ".length());
+            } else if (line.startsWith("rename to ")) {
+                file.newPath = line.substring("rename to ".length());
+            } else if (line.startsWith("new file mode")) {
+                file.oldPath = null;
+            } else if (line.startsWith("deleted file mode")) {
+                file.newPath = null;
+            } else if (line.startsWith("Binary files ")) {
+                file.binary = true;
+            } else if (line.startsWith("GIT binary patch")) {
+                file.binary = true;
+                skippingBinaryPatch = true;
+            }
+            // index, mode and similarity lines carry nothing we need
+        }
+        emit(file, consumer);
+    }
+
+    private static void emit(FileBuilder file, Consumer<DiffFile> consumer) {
+        if (file != null) {
+            consumer.accept(file.build());
+        }
+    }
+
+    private static int count(String group) {
+        return group == null ? 1 : Integer.parseInt(group);
+    }
+
+    private static String stripPrefix(String path, String prefix) {
+        int tab = path.indexOf('\t');
+        if (tab >= 0) {
+            path = path.substring(0, tab);
+        }
+        if ("/dev/null".equals(path)) {
+            return null;
+        }
+        return path.startsWith(prefix) ? path.substring(prefix.length()) : path;
+    }
+
+    private static class FileBuilder {
+        String oldPath;
+        String newPath;
+        boolean binary;
+        final List<HunkBuilder> hunks = new ArrayList<>();
+
+        static FileBuilder fromGitHeader(String line) {
+            // "diff --git a/<old> b/<new>"; paths may contain spaces, so split on the last " b/"
+            FileBuilder file = new FileBuilder();
+            String paths = line.substring("diff --git ".length());
+            int split = paths.lastIndexOf(" b/");
+            if (split > 0) {
+                file.oldPath = stripPrefix(paths.substring(0, split), "a/");
+                file.newPath = paths.substring(split + 3);
+            } else {
+                file.oldPath = paths;
+                file.newPath = paths;
+            }
+            return file;
+        }
+
+        DiffFile build() {
+            List<DiffHunk> built = new ArrayList<>(hunks.size());
+            for (HunkBuilder hunk : hunks) {
+                built.add(hunk.build());
+            }
+            return new DiffFile(oldPath, newPath, binary, built);
+        }
+    }
+
+    private static class HunkBuilder {
+        final int oldStart;
+        final int oldCount;
+        final int newStart;
+        final int newCount;
+        final String section;
+        final List<DiffLine> lines = new ArrayList<>();
+        int oldLine;
+        int newLine;
+        int oldRemaining;
+        int newRemaining;
+
+        HunkBuilder(int oldStart, int oldCount, int newStart, int newCount, String section) {
+            this.oldStart = oldStart;
+            this.oldCount = oldCount;
+            this.newStart = newStart;
+            this.newCount = newCount;
+            this.section = section;
+            this.oldLine = oldStart;
+            this.newLine = newStart;
+            this.oldRemaining = oldCount;
+            this.newRemaining = newCount;
+        }
+
+        boolean expectsMore() {
+            return oldRemaining > 0 || newRemaining > 0;
+        }
+
+        void accept(String line) {
+            char type = line.isEmpty() ? ' ' : line.charAt(0);
+            String text = line.isEmpty() ? "" : line.substring(1);
+            switch (type) {
+                case '+' -> {
+                    lines.add(new DiffLine(DiffLine.Type.ADDED, 0, newLine++, text));
+                    newRemaining--;
+                }
+                case '-' -> {
+                    lines.add(new DiffLine(DiffLine.Type.REMOVED, oldLine++, 0, text));
+                    oldRemaining--;
+                }
+                case '\\' -> {
+                    // "\ No newline at end of file"
+                }
+                default -> {
+                    lines.add(new DiffLine(DiffLine.Type.CONTEXT, oldLine++, newLine++, text));
+                    oldRemaining--;
+                    newRemaining--;
+                }
+            }
+        }
 
-        return rawDiff; // Implementation placeholder
+        DiffHunk build() {
+            return new DiffHunk(oldStart, oldCount, newStart, newCount, section, List.copyOf(lines));
+        }
     }
 }
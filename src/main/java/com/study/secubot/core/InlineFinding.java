@@ -0,0 +1,16 @@
+package com.study.secubot.core;
+
+/**
+ * An issue tied to one added line of the diff.
+ *
+ * <p>
+ * The LLM reports the offending {@code code} rather than a line number, since
+ * it counts lines poorly; {@link ReviewBatch#lineOf} maps it back to the line
+ * in the new file. {@code line} is 0 while unresolved.
+ */
+public record InlineFinding(String path, int line, String code, RiskLevel severity, String message) {
+
+    public InlineFinding atLine(int newLine) {
+        return new InlineFinding(path, newLine, code, severity, message);
+    }
+}
@@ -0,0 +1,87 @@
+package com.study.secubot.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency of LLM reviews, shared by every call in the process.
+ *
+ * <p>
+ * Time to verdict is how long one call takes until its {@code risk_level} is
+ * known (the whole response when not streaming). Time to decision is how long
+ * a review of a whole diff takes until its overall risk level is settled:
+ * every batch has a verdict, or one of them is CRITICAL.
+ */
+@Component
+public class LlmMetrics {
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong firstTokenMillis = new AtomicLong();
+    private final AtomicLong verdictMillis = new AtomicLong();
+    private final AtomicLong completionMillis = new AtomicLong();
+    private final AtomicLong decisions = new AtomicLong();
+    private final AtomicLong decisionMillis = new AtomicLong();
+    private final AtomicLong lastDecisionMillis = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    void recordCall(long firstToken, long verdict, long completion) {
+        calls.incrementAndGet();
+        firstTokenMillis.addAndGet(firstToken);
+        verdictMillis.addAndGet(verdict);
+        completionMillis.addAndGet(completion);
+    }
+
+    void recordDecision(long millis) {
+        decisions.incrementAndGet();
+        decisionMillis.addAndGet(millis);
+        lastDecisionMillis.set(millis);
+    }
+
+    void recordCancelled(int batches) {
+        cancelled.addAndGet(batches);
+    }
+
+    public long calls() {
+        return calls.get();
+    }
+
+    public long decisions() {
+        return decisions.get();
+    }
+
+    public long lastDecisionMillis() {
+        return lastDecisionMillis.get();
+    }
+
+    public long cancelled() {
+        return cancelled.get();
+    }
+
+    public double averageFirstTokenMillis() {
+        return average(firstTokenMillis, calls);
+    }
+
+    public double averageVerdictMillis() {
+        return average(verdictMillis, calls);
+    }
+
+    public double averageCompletionMillis() {
+        return average(completionMillis, calls);
+    }
+
+    public double averageDecisionMillis() {
+        return average(decisionMillis, decisions);
+    }
+
+    private static double average(AtomicLong total, AtomicLong count) {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    public String summary() {
+        return String.format("%d call(s), avg %.0f ms to first token, %.0f ms to verdict, %.0f ms to completion; "
+                + "last decision after %d ms; %d batch(es) cancelled", calls(), averageFirstTokenMillis(),
+                averageVerdictMillis(), averageCompletionMillis(), lastDecisionMillis(), cancelled());
+    }
+}
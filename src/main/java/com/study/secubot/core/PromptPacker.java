@@ -0,0 +1,234 @@
+package com.study.secubot.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.study.secubot.rag.ScoredDocument;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fits diff hunks and retrieved context into the per-call input budget
+ * ({@code secubot.review.max-input-chars}).
+ *
+ * <p>
+ * Hunks are ranked by simple risk signals and placed first-fit into batches,
+ * so the riskiest code lands in the first call and whatever does not fit goes
+ * to follow-up calls rather than being cut off. Hunks larger than the diff
+ * budget are split between lines. Context is then added per batch in retrieval
+ * score order until the remaining budget is used up.
+ */
+@Component
+@Slf4j
+public class PromptPacker {
+
+    // Share of the budget kept free for knowledge-base context
+    static final double CONTEXT_SHARE = 0.3;
+    // Rough chars-per-token ratio for code and English prose
+    static final int CHARS_PER_TOKEN = 4;
+
+    private static final String[] RISK_SIGNALS = {
+            "password", "passwd", "secret", "token", "apikey", "api_key", "private key", "credential",
+            "select ", "insert ", "update ", "delete ", "query", "execute", "exec(", "eval(", "runtime.getruntime",
+            "processbuilder", "innerhtml", "getparameter", "getwriter", "redirect", "deserializ", "readobject",
+            "md5", "sha1", "des/", "random(", "printstacktrace", "cookie", "session", "cors", "csrf",
+            "permitall", "disable()", "trustall", "hostnameverifier", "file(", "path(", "../",
+    };
+
+    private final int maxInputChars;
+
+    public PromptPacker(@Value("${secubot.review.max-input-chars:60000}") int maxInputChars) {
+        this.maxInputChars = maxInputChars;
+    }
+
+    public int diffBudget() {
+        return (int) (maxInputChars * (1 - CONTEXT_SHARE));
+    }
+
+    public static int estimateTokens(int chars) {
+        return (chars + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    /**
+     * Packs hunk-level units into as few batches as the budget allows, riskiest
+     * first.
+     */
+    public List<ReviewBatch> pack(List<ReviewUnit> units) {
+        List<ReviewUnit> pieces = fit(units);
+        Map<ReviewUnit, Integer> order = new IdentityHashMap<>();
+        for (int i = 0; i < pieces.size(); i++) {
+            order.put(pieces.get(i), i);
+        }
+
+        List<ReviewUnit> ranked = new ArrayList<>(pieces);
+        ranked.sort(Comparator.comparingDouble(PromptPacker::riskScore).reversed());
+
+        int budget = diffBudget();
+        List<List<ReviewUnit>> bins = new ArrayList<>();
+        List<Integer> used = new ArrayList<>();
+        for (ReviewUnit unit : ranked) {
+            int chars = unit.chars();
+            int bin = 0;
+            while (bin < bins.size() && used.get(bin) + chars > budget) {
+                bin++;
+            }
+            if (bin == bins.size()) {
+                bins.add(new ArrayList<>());
+                used.add(0);
+            }
+            bins.get(bin).add(unit);
+            used.set(bin, used.get(bin) + chars);
+        }
+
+        List<ReviewBatch> batches = new ArrayList<>(bins.size());
+        for (int i = 0; i < bins.size(); i++) {
+            // Restore diff order inside a batch so hunks of one file stay together
+            List<ReviewUnit> bin = bins.get(i);
+            bin.sort(Comparator.comparingInt(order::get));
+            String label = bins.size() == 1 ? "diff" : "part " + (i + 1) + "/" + bins.size();
+            batches.add(new ReviewBatch(label, bin));
+        }
+        if (batches.size() > 1) {
+            log.info("Diff exceeds {} chars (~{} tokens); packed into {} batches", budget,
+                    estimateTokens(budget), batches.size());
+        }
+        return batches;
+    }
+
+    /**
+     * One batch per unit, for fan-out review. Units over the diff budget are split.
+     */
+    public List<ReviewBatch> packPerUnit(List<ReviewUnit> units) {
+        List<ReviewBatch> batches = new ArrayList<>();
+        for (ReviewUnit unit : units) {
+            List<ReviewUnit> pieces = fit(List.of(unit));
+            for (ReviewUnit piece : pieces) {
+                batches.add(new ReviewBatch(piece.label(), List.of(piece)));
+            }
+        }
+        return batches;
+    }
+
+    /**
+     * Joins context documents, best score first, until the input budget left
+     * after the diff is used up. Lower-scored documents are dropped.
+     */
+    public String packContext(int diffChars, List<ScoredDocument> documents) {
+        int remaining = maxInputChars - diffChars;
+        List<ScoredDocument> ranked = new ArrayList<>(documents);
+        ranked.sort(Comparator.comparingDouble(ScoredDocument::score).reversed());
+
+        StringBuilder sb = new StringBuilder();
+        int dropped = 0;
+        for (ScoredDocument doc : ranked) {
+            int needed = doc.text().length() + (sb.length() == 0 ? 0 : 2);
+            if (needed > remaining) {
+                dropped++;
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append("\n\n");
+            }
+            sb.append(doc.text());
+            remaining -= needed;
+        }
+        if (dropped > 0) {
+            log.info("Dropped {} of {} context document(s) to stay within {} chars", dropped, documents.size(),
+                    maxInputChars);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Splits units larger than the diff budget between lines, keeping correct
+     * line numbers on each piece.
+     */
+    private List<ReviewUnit> fit(List<ReviewUnit> units) {
+        int budget = diffBudget();
+        List<ReviewUnit> pieces = new ArrayList<>();
+        for (ReviewUnit unit : units) {
+            if (unit.chars() <= budget) {
+                pieces.add(unit);
+                continue;
+            }
+            for (DiffHunk hunk : unit.hunks()) {
+                for (DiffHunk piece : splitHunk(hunk, budget)) {
+                    pieces.add(new ReviewUnit(unit.file(), List.of(piece)));
+                }
+            }
+        }
+        return pieces;
+    }
+
+    private static List<DiffHunk> splitHunk(DiffHunk hunk, int budget) {
+        List<DiffHunk> pieces = new ArrayList<>();
+        List<DiffLine> lines = new ArrayList<>();
+        int chars = ReviewUnit.HEADER_CHARS;
+        for (DiffLine line : hunk.lines()) {
+            int lineChars = ReviewUnit.lineChars(line);
+            if (!lines.isEmpty() && chars + lineChars > budget) {
+                pieces.add(piece(hunk, lines));
+                lines = new ArrayList<>();
+                chars = ReviewUnit.HEADER_CHARS;
+            }
+            lines.add(line);
+            chars += lineChars;
+        }
+        if (!lines.isEmpty()) {
+            pieces.add(piece(hunk, lines));
+        }
+        return pieces;
+    }
+
+    private static DiffHunk piece(DiffHunk hunk, List<DiffLine> lines) {
+        int oldStart = hunk.oldStart();
+        int newStart = hunk.newStart();
+        int oldCount = 0;
+        int newCount = 0;
+        boolean first = true;
+        for (DiffLine line : lines) {
+            if (first) {
+                oldStart = line.oldLine() > 0 ? line.oldLine() : oldStart;
+                newStart = line.newLine() > 0 ? line.newLine() : newStart;
+                first = false;
+            }
+            if (line.type() != DiffLine.Type.ADDED) {
+                oldCount++;
+            }
+            if (line.type() != DiffLine.Type.REMOVED) {
+                newCount++;
+            }
+        }
+        return new DiffHunk(oldStart, oldCount, newStart, newCount, hunk.section(), List.copyOf(lines));
+    }
+
+    /**
+     * Counts risk keywords on added lines, plus a small weight per added line so
+     * larger changes rank above trivial ones when no keyword matches.
+     */
+    static double riskScore(ReviewUnit unit) {
+        double score = 0;
+        for (DiffHunk hunk : unit.hunks()) {
+            for (DiffLine line : hunk.lines()) {
+                if (line.type() != DiffLine.Type.ADDED) {
+                    continue;
+                }
+                score += 0.1;
+                String lower = line.text().toLowerCase(Locale.ROOT);
+                for (String signal : RISK_SIGNALS) {
+                    if (lower.contains(signal)) {
+                        score += 10;
+                    }
+                }
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,104 @@
+package com.study.secubot.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The review units sent to the LLM in one call.
+ */
+public record ReviewBatch(String label, List<ReviewUnit> units) {
+
+    /**
+     * Renders the units as one diff, merging consecutive hunks of the same file
+     * under a single file header.
+     */
+    public String render() {
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while (i < units.size()) {
+            DiffFile file = units.get(i).file();
+            List<DiffHunk> hunks = new ArrayList<>(units.get(i).hunks());
+            while (++i < units.size() && units.get(i).file() == file) {
+                hunks.addAll(units.get(i).hunks());
+            }
+            new DiffFile(file.oldPath(), file.newPath(), file.binary(), hunks).appendTo(sb);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Paths of the files in this batch, in order and without duplicates.
+     */
+    public Set<String> paths() {
+        Set<String> paths = new LinkedHashSet<>();
+        for (ReviewUnit unit : units) {
+            paths.add(unit.file().path());
+        }
+        return paths;
+    }
+
+    /**
+     * Line number in the new file of the added line in {@code path} whose text
+     * equals {@code code} (ignoring whitespace), or failing that contains it.
+     * Returns 0 when no added line matches.
+     */
+    public int lineOf(String path, String code) {
+        String wanted = ReviewCache.normalize(code == null ? "" : code);
+        if (wanted.isEmpty()) {
+            return 0;
+        }
+        int partial = 0;
+        for (ReviewUnit unit : units) {
+            if (!unit.file().path().equals(path)) {
+                continue;
+            }
+            for (DiffHunk hunk : unit.hunks()) {
+                for (DiffLine line : hunk.lines()) {
+                    if (line.type() != DiffLine.Type.ADDED) {
+                        continue;
+                    }
+                    String text = ReviewCache.normalize(line.text());
+                    if (text.equals(wanted)) {
+                        return line.newLine();
+                    }
+                    if (partial == 0 && text.contains(wanted)) {
+                        partial = line.newLine();
+                    }
+                }
+            }
+        }
+        return partial;
+    }
+
+    /**
+     * One retrieval query per hunk (file path plus context and added lines),
+     * cut into windows of at most {@code maxChars} so that embedding models with
+     * short input limits still see every line.
+     */
+    public List<String> retrievalQueries(int maxChars) {
+        List<String> queries = new ArrayList<>();
+        for (ReviewUnit unit : units) {
+            for (DiffHunk hunk : unit.hunks()) {
+                String header = unit.file().path() + "\n";
+                StringBuilder sb = new StringBuilder(header);
+                for (DiffLine line : hunk.lines()) {
+                    if (line.type() == DiffLine.Type.REMOVED) {
+                        continue;
+                    }
+                    if (sb.length() > header.length() && sb.length() + line.text().length() + 1 > maxChars) {
+                        queries.add(sb.toString());
+                        sb.setLength(0);
+                        sb.append(header);
+                    }
+                    sb.append(line.text()).append('\n');
+                }
+                if (sb.length() > header.length()) {
+                    queries.add(sb.toString());
+                }
+            }
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,201 @@
+package com.study.secubot.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.study.secubot.config.LlmConfig;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Disk-backed LRU cache of LLM verdicts, one per review unit.
+ *
+ * <p>
+ * Verdicts are kept per unit rather than per LLM call, so that a fixup commit
+ * only sends the hunks it touched back to the LLM, however the units were
+ * packed into calls. The key is a hash of the normalized diff content of the
+ * unit (file path plus line type and text with whitespace removed, hunk line
+ * numbers ignored) together with everything else that could change the verdict:
+ * the knowledge-base version, the model and the prompt template. Rebasing or
+ * reformatting a hunk therefore still hits, while any guideline, model or
+ * prompt change misses.
+ */
+@Component
+@Slf4j
+public class ReviewCache {
+
+    private static final int FORMAT_VERSION = 2;
+
+    private final Path path;
+    private final int maxEntries;
+    private final LlmConfig llmConfig;
+    private final MessageBuilder messageBuilder;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LinkedHashMap<String, ReviewEngine.ReviewResult> entries;
+    private boolean dirty;
+
+    public ReviewCache(@Value("${secubot.review.cache.path:}") String path,
+            @Value("${secubot.review.cache.max-entries:10000}") int maxEntries,
+            LlmConfig llmConfig, MessageBuilder messageBuilder) {
+        this.path = path.isEmpty() ? null : Paths.get(path);
+        this.maxEntries = maxEntries;
+        this.llmConfig = llmConfig;
+        this.messageBuilder = messageBuilder;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ReviewEngine.ReviewResult> eldest) {
+                return size() > ReviewCache.this.maxEntries;
+            }
+        };
+        read();
+    }
+
+    /**
+     * A cache that never stores anything, for callers outside Spring.
+     */
+    public static ReviewCache disabled() {
+        return new ReviewCache("", 0, null, null);
+    }
+
+    public boolean isEnabled() {
+        return path != null;
+    }
+
+    /**
+     * Key for reviewing {@code unit} against knowledge-base version
+     * {@code kbVersion} (see {@link com.study.secubot.rag.KnowledgeSnapshot}).
+     */
+    public String key(ReviewUnit unit, String kbVersion) {
+        MessageDigest digest = sha256();
+        update(digest, "kb=" + kbVersion);
+        update(digest, "model=" + llmConfig.modelId());
+        update(digest, "prompt=" + messageBuilder.templateHash());
+        update(digest, "file=" + unit.file().path());
+        for (DiffHunk hunk : unit.hunks()) {
+            update(digest, "@@");
+            for (DiffLine line : hunk.lines()) {
+                digest.update((byte) line.type().prefix());
+                update(digest, normalize(line.text()));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public synchronized ReviewEngine.ReviewResult get(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(String key, ReviewEngine.ReviewResult result) {
+        // Failed or unparseable reviews should be retried next time
+        if (RiskLevel.of(result.riskLevel) == RiskLevel.UNKNOWN) {
+            return;
+        }
+        entries.put(key, result);
+        dirty = true;
+    }
+
+    /**
+     * Writes the cache back to disk if anything was added since the last flush.
+     */
+    public synchronized void flush() {
+        if (path == null || !dirty) {
+            return;
+        }
+
+        ObjectNode root = mapper.createObjectNode();
+        root.put("version", FORMAT_VERSION);
+        ArrayNode array = root.putArray("entries");
+        // Iteration order is least recently used first, which read() preserves
+        for (Map.Entry<String, ReviewEngine.ReviewResult> entry : entries.entrySet()) {
+            ObjectNode node = array.addObject();
+            node.put("key", entry.getKey());
+            node.put("risk_level", entry.getValue().riskLevel);
+            node.put("summary", entry.getValue().summary);
+            node.put("context", entry.getValue().usedContext);
+            ArrayNode findings = node.putArray("findings");
+            for (InlineFinding finding : entry.getValue().findings) {
+                // Line numbers are resolved per diff, so only the code is kept
+                findings.addObject()
+                        .put("file", finding.path())
+                        .put("code", finding.code())
+                        .put("severity", finding.severity().name())
+                        .put("message", finding.message());
+            }
+        }
+
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+            mapper.writeValue(tmp.toFile(), root);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            log.warn("Failed to write review cache {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void read() {
+        if (path == null || !Files.isRegularFile(path)) {
+            return;
+        }
+        try {
+            JsonNode root = mapper.readTree(path.toFile());
+            if (root.path("version").asInt() != FORMAT_VERSION) {
+                return;
+            }
+            List<JsonNode> nodes = new ArrayList<>();
+            root.path("entries").forEach(nodes::add);
+            for (JsonNode node : nodes) {
+                entries.put(node.path("key").asText(), new ReviewEngine.ReviewResult(
+                        node.path("risk_level").asText(), node.path("summary").asText(),
+                        node.path("context").asText(), ReviewEngine.parseFindings(node.path("findings"))));
+            }
+            log.info("Loaded {} cached review verdict(s) from {}", entries.size(), path);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable review cache {}: {}", path, e.getMessage());
+        }
+    }
+
+    static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,66 +1,536 @@
 package com.study.secubot.core;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.study.secubot.rag.VectorStoreRetriever;
+import com.study.secubot.metrics.Stages;
+import com.study.secubot.rag.HybridRetriever;
+import com.study.secubot.rag.KnowledgeSnapshot;
+import com.study.secubot.rag.ScoredDocument;
+import com.study.secubot.scan.Finding;
+import com.study.secubot.scan.SecretScanner;
 
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @Slf4j
 public class ReviewEngine {
 
+    // MiniLM reads at most 256 word pieces, roughly this many chars of code
+    private static final int RETRIEVAL_QUERY_CHARS = 1000;
+
     private final ChatModel chatModel;
-    private final VectorStoreRetriever retriever;
+    private final StreamingChatModel streamingChatModel;
+    private final HybridRetriever retriever;
     private final ObjectMapper mapper = new ObjectMapper();
     private final MessageBuilder messageBuilder;
+    private final DiffParser diffParser = new DiffParser();
+    private final ReviewCache cache;
+    private final PromptPacker packer;
+    private final SecretScanner scanner;
+    private final LlmMetrics metrics;
+
+    private final boolean fanOut;
+    private final boolean streaming;
+    private final int maxUnitChars;
+    // Shared by all reviews in this process so concurrent PRs respect the same limits
+    private final Semaphore llmPermits;
+    private final RateLimiter rateLimiter;
 
-    public ReviewEngine(ChatModel chatModel, VectorStoreRetriever retriever, MessageBuilder messageBuilder) {
+    public ReviewEngine(@Lazy ChatModel chatModel, @Lazy StreamingChatModel streamingChatModel,
+            HybridRetriever retriever, MessageBuilder messageBuilder,
+            ReviewCache cache, PromptPacker packer, SecretScanner scanner, LlmMetrics metrics,
+            @Value("${secubot.review.mode:single}") String mode,
+            @Value("${secubot.llm.streaming:true}") boolean streaming,
+            @Value("${secubot.review.max-concurrency:8}") int maxConcurrency,
+            @Value("${secubot.review.requests-per-second:0}") double requestsPerSecond,
+            @Value("${secubot.review.max-unit-chars:12000}") int maxUnitChars) {
         this.chatModel = chatModel;
+        this.streamingChatModel = streamingChatModel;
         this.retriever = retriever;
         this.messageBuilder = messageBuilder;
+        this.cache = cache;
+        this.packer = packer;
+        this.scanner = scanner;
+        this.metrics = metrics;
+        this.fanOut = "fanout".equalsIgnoreCase(mode);
+        this.streaming = streaming && streamingChatModel != null;
+        this.maxUnitChars = maxUnitChars;
+        this.llmPermits = new Semaphore(Math.max(1, maxConcurrency));
+        this.rateLimiter = new RateLimiter(requestsPerSecond);
     }
 
     public ReviewResult process(String diff) throws IOException {
+        return process(diffParser.parse(diff));
+    }
+
+    /**
+     * Scans the added lines for secrets first. A CRITICAL finding decides the
+     * review on its own and no LLM call is made; lesser findings are merged into
+     * the LLM verdict.
+     */
+    public ReviewResult process(List<DiffFile> files) throws IOException {
+        Intake intake = intake();
+        files.forEach(intake);
+        return process(intake);
+    }
+
+    /**
+     * Starts a review whose files arrive one at a time, such as from a streamed
+     * diff. Hand the files to the returned intake, then to
+     * {@link #process(Intake)}.
+     */
+    public Intake intake() {
+        return intake(DiffFilter.none());
+    }
+
+    /**
+     * Like {@link #intake()}, leaving the files {@code filter} rejects out of
+     * the LLM review. They are still scanned for secrets.
+     */
+    public Intake intake(DiffFilter filter) {
+        return new Intake(filter);
+    }
+
+    /**
+     * Like {@link #process(List)} for files collected by an {@link Intake},
+     * whose secret scan already ran while they arrived. Files the intake's
+     * filter skipped are listed in the summary.
+     */
+    public ReviewResult process(Intake intake) throws IOException {
+        long start = System.nanoTime();
+        List<Finding> findings = intake.findings;
+        log.info("Secret scan: {} finding(s) in {} ms", findings.size(), intake.scanNanos / 1_000_000);
+        if (!intake.skipped.isEmpty()) {
+            log.info("Skipped {} file(s) for the LLM review", intake.skipped.size());
+        }
+
+        ReviewResult result;
+        if (findings.stream().anyMatch(f -> f.severity() == RiskLevel.CRITICAL)) {
+            log.warn("Critical secret found; skipping LLM review");
+            metrics.recordDecision((intake.scanNanos + System.nanoTime() - start) / 1_000_000);
+            result = ReviewResult.withFindings(new ReviewResult("LOW", "", ""), findings);
+        } else {
+            result = ReviewResult.withFindings(review(intake.files), findings);
+            log.info("LLM: {}", metrics.summary());
+        }
+        return ReviewResult.withSkipped(result, intake.skipped);
+    }
+
+    /**
+     * Files of one review as they arrive from the diff. Each file is scanned for
+     * secrets on arrival, so the scan overlaps the download of the rest of the
+     * diff. Files the filter rejects are dropped after the scan; the others are
+     * kept for LLM batching, which needs all of them.
+     */
+    public final class Intake implements Consumer<DiffFile> {
+        private final DiffFilter filter;
+        private final List<DiffFile> files = new ArrayList<>();
+        private final List<Finding> findings = new ArrayList<>();
+        // Path to the reason it was skipped
+        private final Map<String, String> skipped = new LinkedHashMap<>();
+        private long scanNanos;
+
+        private Intake(DiffFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public void accept(DiffFile file) {
+            long start = System.nanoTime();
+            findings.addAll(scanner.scan(List.of(file)));
+            scanNanos += System.nanoTime() - start;
+            String reason = filter.reason(file);
+            if (reason == null) {
+                files.add(file);
+            } else {
+                filter.skipped(file, reason);
+                skipped.put(file.path(), reason);
+            }
+        }
+
+        public int size() {
+            return files.size() + skipped.size();
+        }
+    }
+
+    /**
+     * Reviews the diff in one or more LLM calls and merges the verdicts.
+     *
+     * <p>
+     * Units with a cached verdict are not sent again; only the rest are packed.
+     * In single mode the hunks are packed into as few budget-sized batches as
+     * possible; in fan-out mode every file (or hunk group of a large file) is its
+     * own batch. Batches run on virtual threads; concurrency is bounded by the
+     * shared semaphore and rate limiter rather than by the number of threads.
+     * Once one batch's verdict is CRITICAL the others are cancelled; see
+     * {@link VerdictTracker}. All batches use the knowledge-base snapshot
+     * current when the review starts, even if a reload publishes a newer one.
+     */
+    private ReviewResult review(List<DiffFile> files) throws IOException {
+        List<ReviewUnit> units = fanOut
+                ? ReviewUnit.split(files, Math.min(maxUnitChars, packer.diffBudget()))
+                : ReviewUnit.split(files, 0);
+        if (units.isEmpty()) {
+            log.info("Reviewing {} file(s) in 0 LLM call(s)", files.size());
+            return new ReviewResult("LOW", "No reviewable changes.", "");
+        }
+
+        KnowledgeSnapshot kb = retriever.snapshot();
+        CacheStats stats = new CacheStats();
+        // Units with a cached verdict are done; only the others are packed for the LLM
+        Map<String, ReviewResult> results = new LinkedHashMap<>();
+        List<ReviewUnit> misses = cachedVerdicts(units, kb, stats, results);
+        List<ReviewBatch> batches = fanOut ? packer.packPerUnit(misses) : packer.pack(misses);
+        log.info("Reviewing {} file(s) in {} LLM call(s)", files.size(), batches.size());
+        VerdictTracker tracker = new VerdictTracker(results.size() + batches.size(), metrics);
+        results.forEach((label, result) -> tracker.verdict(label, RiskLevel.of(result.riskLevel)));
+        try {
+            int skipped = 0;
+            if (tracker.stoppedEarly()) {
+                // A cached CRITICAL already decides the review
+                skipped = batches.size();
+            } else if (batches.size() == 1 && results.isEmpty()) {
+                ReviewBatch batch = batches.get(0);
+                return reviewAndCache(batch, kb, risk -> tracker.verdict(batch.label(), risk));
+            } else if (!batches.isEmpty()) {
+                skipped = reviewAll(batches, kb, tracker, results);
+            }
+
+            ReviewResult merged = ReviewResult.merge(results);
+            if (tracker.stoppedEarly() && skipped > 0) {
+                merged.summary += "\n\nReview stopped early: " + skipped
+                        + " remaining part(s) skipped after a CRITICAL verdict.";
+            }
+            log.info("Merged {} review(s). Risk Level: {}", results.size(), merged.riskLevel);
+            return merged;
+        } finally {
+            if (cache.isEnabled()) {
+                log.info("Review cache: {} hit(s) / {} lookup(s) ({}% hit rate)", stats.hits, stats.lookups,
+                        stats.lookups == 0 ? 0 : Math.round(100.0 * stats.hits / stats.lookups));
+                cache.flush();
+            }
+        }
+    }
+
+    /**
+     * Adds the cached verdict of every unit that has one to {@code results},
+     * under the unit's label, and returns the units that still need reviewing.
+     */
+    private List<ReviewUnit> cachedVerdicts(List<ReviewUnit> units, KnowledgeSnapshot kb, CacheStats stats,
+            Map<String, ReviewResult> results) {
+        if (!cache.isEnabled()) {
+            return units;
+        }
+        List<ReviewUnit> misses = new ArrayList<>();
+        for (ReviewUnit unit : units) {
+            ReviewResult cached = cache.get(cache.key(unit, kb.version()));
+            stats.record(cached != null);
+            if (cached == null) {
+                misses.add(unit);
+            } else {
+                // Cached verdicts ignore line positions, so findings are located anew
+                results.put(unit.label(), cached.locate(new ReviewBatch(unit.label(), List.of(unit))));
+            }
+        }
+        return misses;
+    }
+
+    /**
+     * Reviews the batches concurrently, adding each verdict to {@code results},
+     * and returns how many were cancelled after a CRITICAL verdict.
+     */
+    private int reviewAll(List<ReviewBatch> batches, KnowledgeSnapshot kb, VerdictTracker tracker,
+            Map<String, ReviewResult> results) throws IOException {
+        Map<String, Future<ReviewResult>> futures = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (ReviewBatch batch : batches) {
+                Future<ReviewResult> future = executor.submit(() -> reviewBatch(batch, kb, tracker));
+                futures.put(batch.label(), future);
+                tracker.register(batch.label(), future);
+            }
+        }
+
+        int skipped = 0;
+        for (Map.Entry<String, Future<ReviewResult>> entry : futures.entrySet()) {
+            try {
+                results.put(entry.getKey(), entry.getValue().get());
+            } catch (CancellationException e) {
+                skipped++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted during review");
+            } catch (ExecutionException e) {
+                // reviewBatch never throws, but keep the merge total
+                results.put(entry.getKey(), new ReviewResult("UNKNOWN", "Review failed: " + e.getCause(), ""));
+            }
+        }
+        return skipped;
+    }
+
+    private ReviewResult reviewBatch(ReviewBatch batch, KnowledgeSnapshot kb, VerdictTracker tracker) {
+        try {
+            return reviewAndCache(batch, kb, risk -> tracker.verdict(batch.label(), risk));
+        } catch (Exception e) {
+            log.error("Review of {} failed: {}", batch.label(), e.getMessage());
+            // Still a verdict, or the review would never count as decided
+            tracker.verdict(batch.label(), RiskLevel.UNKNOWN);
+            // A verdict streamed before the failure stands: it may have stopped the other batches
+            RiskLevel risk = RiskLevel.max(tracker.verdictOf(batch.label()), RiskLevel.UNKNOWN);
+            return new ReviewResult(risk.name(), "Review failed: " + e.getMessage(), "");
+        }
+    }
+
+    /**
+     * Reviews the batch and caches the verdict of each of its units, so that a
+     * later review of the same unit in any batch skips the LLM.
+     * {@code onVerdict} gets the risk level as soon as it is known.
+     */
+    private ReviewResult reviewAndCache(ReviewBatch batch, KnowledgeSnapshot kb, Consumer<RiskLevel> onVerdict)
+            throws IOException {
+        ReviewResult result = review(batch, kb, onVerdict);
+        if (cache.isEnabled()) {
+            result.perUnit(batch).forEach((unit, verdict) -> cache.put(cache.key(unit, kb.version()), verdict));
+        }
+        return result.locate(batch);
+    }
+
+    private ReviewResult review(ReviewBatch batch, KnowledgeSnapshot kb, Consumer<RiskLevel> onVerdict)
+            throws IOException {
+        String diff = batch.render();
         log.info("Starting security review for diff size: {}", diff.length());
 
-        // 1. Retrieve Context (RAG)
-        List<String> contextDocs = retriever.retrieve(diff);
+        // 1. Retrieve Context (RAG) with one query per hunk, limited to guidelines
+        // for the batch's languages and trimmed to the input budget left after the diff
+        List<ScoredDocument> contextDocs = Stages.time(Stages.RETRIEVE,
+                () -> retriever.retrieveAll(batch.retrievalQueries(RETRIEVAL_QUERY_CHARS), batch.paths(), kb));
         log.info("Retrieved {} context documents", contextDocs.size());
-        String context = String.join("\n\n", contextDocs);
+        Stages.segments("retrieved", contextDocs.size());
+
+        long buildStart = System.nanoTime();
+        String context = packer.packContext(diff.length(), contextDocs);
+        ChatRequest request = messageBuilder.buildSecurityReviewRequest(diff, context);
+        Stages.record(Stages.PROMPT_BUILD, System.nanoTime() - buildStart);
+        Stages.bytes("diff", diff);
+        Stages.bytes("context", context);
+        countPrompt(request);
 
         // 2. Call LLM
         log.info("Calling LLM...");
-        ChatResponse response = chatModel.chat(
-                messageBuilder.buildSecurityReviewRequest(diff, context));
+        // The verdict the stream announced, which may already have cancelled the other batches
+        AtomicReference<RiskLevel> verdict = new AtomicReference<>(RiskLevel.LOW);
+        ChatResponse response = Stages.time(Stages.LLM_CALL,
+                () -> streaming ? streamLlm(request, streamed(onVerdict, verdict)) : callLlm(request));
         String llmResponse = response.aiMessage().text();
         log.info("LLM Response: {}", llmResponse.length());
         log.debug("LLM Response: {}", llmResponse);
+        Stages.bytes("response", llmResponse);
+        if (response.tokenUsage() != null) {
+            Stages.tokens("input", response.tokenUsage().inputTokenCount());
+            Stages.tokens("output", response.tokenUsage().outputTokenCount());
+        }
 
         // 3. Parse LLM Response
         // Expected JSON: { "risk_level": "...", "summary": "..." }
         try {
             // Clean up potentially markdown-wrapped JSON
             String jsonContent = cleanMarkdownJson(llmResponse);
-            JsonNode node = mapper.readTree(jsonContent);
-            String riskLevel = node.path("risk_level").asText("UNKNOWN");
+            JsonNode node = Stages.time(Stages.RESPONSE_PARSE, () -> mapper.readTree(jsonContent));
+            RiskLevel risk = RiskLevel.max(verdict.get(), RiskLevel.of(node.path("risk_level").asText("UNKNOWN")));
             String summary = node.path("summary").asText("No summary provided.");
-            log.info("Review completed. Risk Level: {}", riskLevel);
-            return new ReviewResult(riskLevel, summary, context);
+            log.info("Review completed. Risk Level: {}", risk);
+            onVerdict.accept(risk);
+            return new ReviewResult(risk.name(), summary, context, parseFindings(node.path("findings")));
         } catch (Exception e) {
             log.error("Failed to parse LLM response: {}", llmResponse, e);
-            // Fallback if LLM response is not JSON
-            return new ReviewResult("UNKNOWN", llmResponse, context);
+            // Fallback if LLM response is not JSON, e.g. truncated after a
+            // streamed CRITICAL that already stopped the other batches
+            RiskLevel risk = RiskLevel.max(verdict.get(), RiskLevel.UNKNOWN);
+            onVerdict.accept(risk);
+            return new ReviewResult(risk.name(), llmResponse, context);
         }
     }
 
+    /**
+     * Passes streamed verdicts on to {@code onVerdict} and remembers the
+     * highest in {@code verdict}.
+     */
+    private static Consumer<RiskLevel> streamed(Consumer<RiskLevel> onVerdict, AtomicReference<RiskLevel> verdict) {
+        return risk -> {
+            verdict.accumulateAndGet(risk, RiskLevel::max);
+            onVerdict.accept(risk);
+        };
+    }
+
+    /**
+     * Counts the text sent to the model as {@code prompt} bytes: the system
+     * prompt and the user message, which wraps the context and the diff.
+     */
+    private static void countPrompt(ChatRequest request) {
+        for (ChatMessage message : request.messages()) {
+            if (message instanceof SystemMessage system) {
+                Stages.bytes("prompt", system.text());
+            } else if (message instanceof UserMessage user && user.hasSingleText()) {
+                Stages.bytes("prompt", user.singleText());
+            }
+        }
+    }
+
+    private ChatResponse callLlm(ChatRequest request) throws IOException {
+        try {
+            llmPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an LLM slot");
+        }
+        try {
+            rateLimiter.acquire();
+            long start = System.nanoTime();
+            ChatResponse response = chatModel.chat(request);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            metrics.recordCall(millis, millis, millis);
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the rate limiter");
+        } finally {
+            llmPermits.release();
+        }
+    }
+
+    /**
+     * Streams the response, handing the risk level to {@code onVerdict} as soon
+     * as the incremental parser sees it. Interrupting the calling thread (the
+     * batch was cancelled) aborts the stream.
+     */
+    private ChatResponse streamLlm(ChatRequest request, Consumer<RiskLevel> onVerdict) throws IOException {
+        try {
+            llmPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an LLM slot");
+        }
+        CompletableFuture<ChatResponse> done = new CompletableFuture<>();
+        AtomicReference<StreamingHandle> handle = new AtomicReference<>();
+        try {
+            rateLimiter.acquire();
+            long start = System.nanoTime();
+            long[] firstToken = { -1 };
+            long[] verdict = { -1 };
+            VerdictStreamParser parser = new VerdictStreamParser();
+
+            streamingChatModel.chat(request, new StreamingChatResponseHandler() {
+                @Override
+                public void onPartialResponse(String text) {
+                    onPartial(text, null);
+                }
+
+                @Override
+                public void onPartialResponse(PartialResponse partial, PartialResponseContext context) {
+                    onPartial(partial.text(), context.streamingHandle());
+                }
+
+                private void onPartial(String text, StreamingHandle streamingHandle) {
+                    if (streamingHandle != null) {
+                        handle.set(streamingHandle);
+                        if (done.isCancelled()) {
+                            streamingHandle.cancel();
+                            return;
+                        }
+                    }
+                    if (firstToken[0] < 0) {
+                        firstToken[0] = System.nanoTime() - start;
+                    }
+                    if (verdict[0] < 0) {
+                        RiskLevel risk = parser.feed(text);
+                        if (risk != null) {
+                            verdict[0] = System.nanoTime() - start;
+                            onVerdict.accept(risk);
+                        }
+                    }
+                }
+
+                @Override
+                public void onCompleteResponse(ChatResponse response) {
+                    long total = System.nanoTime() - start;
+                    metrics.recordCall((firstToken[0] < 0 ? total : firstToken[0]) / 1_000_000,
+                            (verdict[0] < 0 ? total : verdict[0]) / 1_000_000, total / 1_000_000);
+                    done.complete(response);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    done.completeExceptionally(error);
+                }
+            });
+            return done.get();
+        } catch (InterruptedException e) {
+            done.cancel(true);
+            StreamingHandle streamingHandle = handle.get();
+            if (streamingHandle != null) {
+                streamingHandle.cancel();
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("LLM call cancelled");
+        } catch (ExecutionException e) {
+            throw new IOException("LLM call failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            llmPermits.release();
+        }
+    }
+
+    /**
+     * Reads the {@code findings} array of an LLM verdict. Entries without a file
+     * or code are dropped; lines are resolved later.
+     */
+    static List<InlineFinding> parseFindings(JsonNode array) {
+        List<InlineFinding> findings = new ArrayList<>();
+        for (JsonNode node : array) {
+            String file = node.path("file").asText("");
+            String code = node.path("code").asText("");
+            if (!file.isEmpty() && !code.isEmpty()) {
+                findings.add(new InlineFinding(file, 0, code, RiskLevel.of(node.path("severity").asText()),
+                        node.path("message").asText("")));
+            }
+        }
+        return findings;
+    }
+
     private String cleanMarkdownJson(String text) {
         if (text.startsWith("```json")) {
             text = text.substring(7);
@@ -73,15 +543,192 @@ public class ReviewEngine {
         return text.trim();
     }
 
+    private static class CacheStats {
+        private int hits;
+        private int lookups;
+
+        synchronized void record(boolean hit) {
+            lookups++;
+            if (hit) {
+                hits++;
+            }
+        }
+    }
+
     public static class ReviewResult {
+        private static final int MAX_LISTED_SKIPPED = 20;
+
         public String riskLevel;
         public String summary;
         public String usedContext;
+        public List<InlineFinding> findings;
 
         public ReviewResult(String riskLevel, String summary, String usedContext) {
+            this(riskLevel, summary, usedContext, List.of());
+        }
+
+        public ReviewResult(String riskLevel, String summary, String usedContext, List<InlineFinding> findings) {
             this.riskLevel = riskLevel;
             this.summary = summary;
             this.usedContext = usedContext;
+            this.findings = findings;
+        }
+
+        /**
+         * Copy with every finding's line resolved against the batch it came from.
+         */
+        ReviewResult locate(ReviewBatch batch) {
+            if (findings.isEmpty()) {
+                return this;
+            }
+            List<InlineFinding> located = findings.stream()
+                    .map(f -> f.atLine(batch.lineOf(f.path(), f.code())))
+                    .collect(Collectors.toList());
+            return new ReviewResult(riskLevel, summary, usedContext, located);
+        }
+
+        /**
+         * Splits the verdict of {@code batch} into one verdict per unit, for
+         * caching. Each finding goes to the unit holding its code, or failing that
+         * to the first unit of its file, and a unit's risk is the highest among its
+         * findings. Risk that the findings do not account for cannot be placed, so
+         * every unit keeps it; no unit ever ends up below what it was part of.
+         */
+        Map<ReviewUnit, ReviewResult> perUnit(ReviewBatch batch) {
+            if (batch.units().size() == 1) {
+                return Map.of(batch.units().get(0), this);
+            }
+            Map<ReviewUnit, List<InlineFinding>> owned = new IdentityHashMap<>();
+            RiskLevel explained = RiskLevel.LOW;
+            for (InlineFinding finding : findings) {
+                explained = RiskLevel.max(explained, finding.severity());
+                owned.computeIfAbsent(owner(batch, finding), k -> new ArrayList<>()).add(finding);
+            }
+            RiskLevel risk = RiskLevel.of(riskLevel);
+            boolean unexplained = risk.compareTo(explained) > 0;
+
+            Map<ReviewUnit, ReviewResult> results = new IdentityHashMap<>();
+            for (ReviewUnit unit : batch.units()) {
+                List<InlineFinding> own = owned.getOrDefault(unit, List.of());
+                RiskLevel unitRisk = unexplained ? risk
+                        : own.stream().map(InlineFinding::severity).reduce(RiskLevel.LOW, RiskLevel::max);
+                results.put(unit, new ReviewResult(unitRisk.name(), summary, usedContext, own));
+            }
+            return results;
+        }
+
+        private static ReviewUnit owner(ReviewBatch batch, InlineFinding finding) {
+            ReviewUnit first = null;
+            for (ReviewUnit unit : batch.units()) {
+                if (!unit.file().path().equals(finding.path())) {
+                    continue;
+                }
+                if (new ReviewBatch(unit.label(), List.of(unit)).lineOf(finding.path(), finding.code()) != 0) {
+                    return unit;
+                }
+                if (first == null) {
+                    first = unit;
+                }
+            }
+            return first != null ? first : batch.units().get(0);
+        }
+
+        /**
+         * Merges per-unit results into one PR-level result. The highest risk level
+         * wins; identical summaries are listed once with every unit they came from,
+         * most severe first.
+         */
+        public static ReviewResult merge(Map<String, ReviewResult> results) {
+            RiskLevel highest = RiskLevel.LOW;
+            Map<String, RiskLevel> summaryRisk = new LinkedHashMap<>();
+            Map<String, List<String>> summaryLabels = new LinkedHashMap<>();
+            Set<String> contexts = new LinkedHashSet<>();
+            Set<InlineFinding> findings = new LinkedHashSet<>();
+
+            for (Map.Entry<String, ReviewResult> entry : results.entrySet()) {
+                ReviewResult result = entry.getValue();
+                RiskLevel risk = RiskLevel.of(result.riskLevel);
+                highest = RiskLevel.max(highest, risk);
+
+                String summary = result.summary == null ? "" : result.summary.trim();
+                summaryRisk.merge(summary, risk, RiskLevel::max);
+                summaryLabels.computeIfAbsent(summary, k -> new ArrayList<>()).add(entry.getKey());
+                if (result.usedContext != null && !result.usedContext.isEmpty()) {
+                    contexts.add(result.usedContext);
+                }
+                findings.addAll(result.findings);
+            }
+
+            String summary;
+            if (summaryRisk.size() == 1) {
+                summary = summaryRisk.keySet().iterator().next();
+            } else {
+                summary = summaryRisk.entrySet().stream()
+                        .sorted(Map.Entry.<String, RiskLevel>comparingByValue(Comparator.reverseOrder()))
+                        .map(e -> "- [" + e.getValue() + "] " + e.getKey() + " ("
+                                + summaryLabels.get(e.getKey()).stream()
+                                        .map(label -> "`" + label + "`")
+                                        .collect(Collectors.joining(", "))
+                                + ")")
+                        .collect(Collectors.joining("\n"));
+            }
+            return new ReviewResult(highest.name(), summary, String.join("\n\n", contexts),
+                    new ArrayList<>(findings));
+        }
+
+        /**
+         * Raises {@code result} to the most severe finding and lists the findings
+         * ahead of its summary.
+         */
+        public static ReviewResult withFindings(ReviewResult result, List<Finding> findings) {
+            if (findings.isEmpty()) {
+                return result;
+            }
+            RiskLevel highest = RiskLevel.of(result.riskLevel);
+            StringBuilder summary = new StringBuilder("Secret scan findings:\n");
+            List<InlineFinding> inline = new ArrayList<>();
+            for (Finding finding : findings) {
+                highest = RiskLevel.max(highest, finding.severity());
+                summary.append("- ").append(finding.format()).append('\n');
+                inline.add(new InlineFinding(finding.path(), finding.line(), null, finding.severity(),
+                        finding.description() + " (`" + finding.excerpt() + "`)"));
+            }
+            if (result.summary != null && !result.summary.isBlank()) {
+                summary.append('\n').append(result.summary);
+            }
+            inline.addAll(result.findings);
+            return new ReviewResult(highest.name(), summary.toString().trim(), result.usedContext, inline);
+        }
+
+        /**
+         * Lists the files left out of the LLM review after the summary, so that
+         * readers know what the verdict does not cover.
+         */
+        public static ReviewResult withSkipped(ReviewResult result, Map<String, String> skipped) {
+            if (skipped.isEmpty()) {
+                return result;
+            }
+            StringBuilder summary = new StringBuilder(result.summary == null ? "" : result.summary.trim())
+                    .append("\n\nNot reviewed by the LLM (secret scan only), ").append(skipped.size())
+                    .append(" file(s):\n");
+            skipped.entrySet().stream().limit(MAX_LISTED_SKIPPED).forEach(e -> summary.append("- `")
+                    .append(e.getKey()).append("` (").append(e.getValue()).append(")\n"));
+            if (skipped.size() > MAX_LISTED_SKIPPED) {
+                summary.append("- and ").append(skipped.size() - MAX_LISTED_SKIPPED).append(" more\n");
+            }
+            return new ReviewResult(result.riskLevel, summary.toString().trim(), result.usedContext,
+                    result.findings);
+        }
+
+        /**
+         * Combines the review of the commits pushed since {@code baseSha} with the
+         * risk recorded for everything before it.
+         */
+        public static ReviewResult since(ReviewResult delta, String baseSha, RiskLevel priorRisk) {
+            RiskLevel risk = RiskLevel.max(RiskLevel.of(delta.riskLevel), priorRisk);
+            String summary = "Changes since `" + baseSha.substring(0, Math.min(7, baseSha.length()))
+                    + "` (earlier commits: `" + priorRisk + "`):\n" + delta.summary;
+            return new ReviewResult(risk.name(), summary, delta.usedContext, delta.findings);
         }
     }
 }
@@ -0,0 +1,79 @@
+package com.study.secubot.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A slice of the PR diff that is reviewed by a single LLM call: a whole file,
+ * or a run of consecutive hunks when the file is too large for one call.
+ */
+public record ReviewUnit(DiffFile file, List<DiffHunk> hunks) {
+
+    // Approximate size of a rendered hunk header
+    static final int HEADER_CHARS = 32;
+
+    public String label() {
+        if (hunks.size() == file.hunks().size()) {
+            return file.path();
+        }
+        return file.path() + ":" + hunks.get(0).newStart();
+    }
+
+    public String render() {
+        StringBuilder sb = new StringBuilder();
+        new DiffFile(file.oldPath(), file.newPath(), file.binary(), hunks).appendTo(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Splits files into review units. Files whose hunks fit in
+     * {@code maxUnitChars} stay whole; larger files are cut between hunks.
+     * Binary files are skipped since there is nothing to review.
+     */
+    public static List<ReviewUnit> split(List<DiffFile> files, int maxUnitChars) {
+        List<ReviewUnit> units = new ArrayList<>();
+        for (DiffFile file : files) {
+            if (file.binary() || file.hunks().isEmpty()) {
+                continue;
+            }
+
+            List<DiffHunk> current = new ArrayList<>();
+            int currentChars = 0;
+            for (DiffHunk hunk : file.hunks()) {
+                int hunkChars = chars(hunk);
+                if (!current.isEmpty() && currentChars + hunkChars > maxUnitChars) {
+                    units.add(new ReviewUnit(file, current));
+                    current = new ArrayList<>();
+                    currentChars = 0;
+                }
+                current.add(hunk);
+                currentChars += hunkChars;
+            }
+            units.add(new ReviewUnit(file, current));
+        }
+        return units;
+    }
+
+    /**
+     * Approximate rendered size in chars, without the file header.
+     */
+    public int chars() {
+        int chars = 0;
+        for (DiffHunk hunk : hunks) {
+            chars += chars(hunk);
+        }
+        return chars;
+    }
+
+    private static int chars(DiffHunk hunk) {
+        int chars = HEADER_CHARS;
+        for (DiffLine line : hunk.lines()) {
+            chars += lineChars(line);
+        }
+        return chars;
+    }
+
+    static int lineChars(DiffLine line) {
+        return line.text().length() + 2;
+    }
+}
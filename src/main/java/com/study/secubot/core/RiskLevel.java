@@ -0,0 +1,29 @@
+package com.study.secubot.core;
+
+/**
+ * Risk levels in ascending severity. {@code UNKNOWN} (an unparseable or failed
+ * review) ranks above {@code LOW} so that a failure is never hidden behind a
+ * clean verdict when results are merged.
+ */
+public enum RiskLevel {
+    LOW, UNKNOWN, MEDIUM, HIGH, CRITICAL;
+
+    public static RiskLevel of(String value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN;
+        }
+    }
+
+    public boolean isBlocking() {
+        return this == HIGH || this == CRITICAL;
+    }
+
+    public static RiskLevel max(RiskLevel a, RiskLevel b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
@@ -0,0 +1,87 @@
+package com.study.secubot.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+/**
+ * Pulls the top-level {@code risk_level} out of a streamed verdict as soon as
+ * its value is complete, without waiting for the summary and findings.
+ *
+ * <p>
+ * Chunks are pushed into Jackson's non-blocking parser, so no text is parsed
+ * twice. Anything before the first {@code '{'} (a markdown fence) is skipped.
+ * Malformed input just ends early detection; the full response is still parsed
+ * normally once complete.
+ */
+class VerdictStreamParser {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private boolean started;
+    private boolean done;
+    private int depth;
+    private boolean inRiskField;
+    private RiskLevel riskLevel;
+
+    VerdictStreamParser() {
+        try {
+            this.parser = FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Feeds the next chunk of model output. Returns the risk level once it is
+     * known, null until then.
+     */
+    RiskLevel feed(String chunk) {
+        if (riskLevel != null || done || chunk == null || chunk.isEmpty()) {
+            return riskLevel;
+        }
+        if (!started) {
+            int brace = chunk.indexOf('{');
+            if (brace < 0) {
+                return null;
+            }
+            chunk = chunk.substring(brace);
+            started = true;
+        }
+
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                switch (token) {
+                    case START_OBJECT, START_ARRAY -> depth++;
+                    case END_OBJECT, END_ARRAY -> {
+                        if (--depth == 0) {
+                            done = true;
+                            return null;
+                        }
+                    }
+                    case FIELD_NAME -> inRiskField = depth == 1 && "risk_level".equals(parser.currentName());
+                    case VALUE_STRING -> {
+                        if (inRiskField) {
+                            riskLevel = RiskLevel.of(parser.getText());
+                            return riskLevel;
+                        }
+                    }
+                    default -> inRiskField = false;
+                }
+            }
+        } catch (IOException e) {
+            done = true;
+        }
+        return riskLevel;
+    }
+}
@@ -0,0 +1,89 @@
+package com.study.secubot.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects the verdicts of one review's batches as they become known.
+ *
+ * <p>
+ * The overall risk is decided once every batch has a verdict or as soon as one
+ * is CRITICAL, since nothing can raise it further. In the latter case the
+ * other batches are cancelled: calls still waiting for a slot never start and
+ * streaming calls are aborted mid-response.
+ */
+@Slf4j
+class VerdictTracker {
+
+    private final int expected;
+    private final LlmMetrics metrics;
+    private final long start = System.nanoTime();
+    private final Map<String, Future<?>> tasks = new ConcurrentHashMap<>();
+    private final Map<String, RiskLevel> verdicts = new ConcurrentHashMap<>();
+    // The batch whose CRITICAL verdict stopped the others; set once
+    private final AtomicReference<String> critical = new AtomicReference<>();
+    private boolean decided;
+
+    VerdictTracker(int expected, LlmMetrics metrics) {
+        this.expected = expected;
+        this.metrics = metrics;
+    }
+
+    void register(String label, Future<?> task) {
+        tasks.put(label, task);
+        String trigger = critical.get();
+        if (trigger != null && !trigger.equals(label)) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Records the verdict of batch {@code label}. Later calls for the same batch
+     * are ignored. A failed batch counts with {@link RiskLevel#UNKNOWN}.
+     */
+    void verdict(String label, RiskLevel risk) {
+        if (verdicts.putIfAbsent(label, risk) != null) {
+            return;
+        }
+        // Only the first CRITICAL batch cancels the others, so two CRITICAL
+        // batches never cancel each other
+        if (risk == RiskLevel.CRITICAL && expected > 1 && critical.compareAndSet(null, label)) {
+            int cancelled = 0;
+            for (Map.Entry<String, Future<?>> task : tasks.entrySet()) {
+                if (!task.getKey().equals(label) && task.getValue().cancel(true)) {
+                    cancelled++;
+                }
+            }
+            metrics.recordCancelled(cancelled);
+            decide(risk);
+        } else if (verdicts.size() == expected) {
+            decide(verdicts.values().stream().reduce(RiskLevel.LOW, RiskLevel::max));
+        }
+    }
+
+    /**
+     * The first verdict recorded for batch {@code label}, or
+     * {@link RiskLevel#LOW} if there is none yet.
+     */
+    RiskLevel verdictOf(String label) {
+        return verdicts.getOrDefault(label, RiskLevel.LOW);
+    }
+
+    private synchronized void decide(RiskLevel risk) {
+        if (decided) {
+            return;
+        }
+        decided = true;
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        metrics.recordDecision(millis);
+        log.info("Risk decided: {} after {} ms", risk, millis);
+    }
+
+    boolean stoppedEarly() {
+        return critical.get() != null;
+    }
+}
@@ -0,0 +1,80 @@
+package com.study.secubot.github;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Counters for GitHub API traffic, shared by every call in the process.
+ */
+@Component
+public class GitHubClientMetrics {
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong waitMillis = new AtomicLong();
+
+    void recordRequest() {
+        requests.incrementAndGet();
+    }
+
+    /**
+     * A conditional request answered with 304; the body comes from the local cache.
+     */
+    void recordNotModified() {
+        notModified.incrementAndGet();
+    }
+
+    /**
+     * Bytes read from a cached body that GitHub did not have to send again.
+     */
+    void recordBytesSaved(long bytes) {
+        bytesSaved.addAndGet(bytes);
+    }
+
+    void recordRetry(boolean rateLimit, long waitedMillis) {
+        retries.incrementAndGet();
+        if (rateLimit) {
+            rateLimited.incrementAndGet();
+        }
+        waitMillis.addAndGet(waitedMillis);
+    }
+
+    void recordWait(long waitedMillis) {
+        rateLimited.incrementAndGet();
+        waitMillis.addAndGet(waitedMillis);
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    public long notModified() {
+        return notModified.get();
+    }
+
+    public long bytesSaved() {
+        return bytesSaved.get();
+    }
+
+    public long retries() {
+        return retries.get();
+    }
+
+    public long rateLimited() {
+        return rateLimited.get();
+    }
+
+    public long waitMillis() {
+        return waitMillis.get();
+    }
+
+    public String summary() {
+        return String.format("%d request(s), %d served from cache via 304 (%d bytes saved), %d retry(ies), "
+                + "%d rate-limited, %d ms waited", requests(), notModified(), bytesSaved(), retries(), rateLimited(),
+                waitMillis());
+    }
+}
@@ -0,0 +1,81 @@
+package com.study.secubot.github;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Builds the OkHttp client used for all GitHub API calls: one connection pool
+ * (HTTP/2 where the server offers it), an on-disk HTTP cache that is always
+ * revalidated with ETag / Last-Modified, and rate-limit-aware retries.
+ */
+public final class GitHubHttpClient {
+
+    private GitHubHttpClient() {
+    }
+
+    /**
+     * @param cacheDir directory of the HTTP cache, or null to disable caching
+     */
+    public static OkHttpClient create(Path cacheDir, long cacheMaxBytes, int maxRetries, Duration maxWait,
+            GitHubClientMetrics metrics) {
+        return create(cacheDir, cacheMaxBytes,
+                new RateLimitInterceptor(maxRetries, maxWait, metrics, Thread::sleep, Clock.systemUTC()), metrics);
+    }
+
+    static OkHttpClient create(Path cacheDir, long cacheMaxBytes, RateLimitInterceptor retries,
+            GitHubClientMetrics metrics) {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(Duration.ofSeconds(10))
+                .readTimeout(Duration.ofSeconds(60))
+                .writeTimeout(Duration.ofSeconds(30))
+                .addInterceptor(chain -> countNotModified(chain.proceed(chain.request()), metrics))
+                .addInterceptor(retries)
+                .addNetworkInterceptor(new RevalidatingCacheInterceptor());
+        if (cacheDir != null) {
+            builder.cache(new Cache(cacheDir.toFile(), cacheMaxBytes));
+        }
+        return builder.build();
+    }
+
+    private static Response countNotModified(Response response, GitHubClientMetrics metrics) {
+        Response network = response.networkResponse();
+        if (response.cacheResponse() == null || network == null || network.code() != 304) {
+            return response;
+        }
+        metrics.recordNotModified();
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        // Count cached bytes as they are read, so streamed diffs stay streamed
+        ForwardingSource counting = new ForwardingSource(body.source()) {
+            @Override
+            public long read(Buffer sink, long byteCount) throws IOException {
+                long read = super.read(sink, byteCount);
+                if (read > 0) {
+                    metrics.recordBytesSaved(read);
+                }
+                return read;
+            }
+        };
+        return response.newBuilder()
+                .body(ResponseBody.create(Okio.buffer(counting), body.contentType(), body.contentLength()))
+                .build();
+    }
+}
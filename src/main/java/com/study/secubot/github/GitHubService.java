@@ -1,9 +1,69 @@
 package com.study.secubot.github;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.study.secubot.core.DiffFile;
 
 public interface GitHubService {
     String getPullRequestDiff(String prUrl) throws IOException;
 
+    /**
+     * Streams the pull request diff through the parser, handing each file to the
+     * consumer as soon as it is complete. The full diff is never held in memory.
+     */
+    void streamPullRequestDiff(String prUrl, Consumer<DiffFile> consumer) throws IOException;
+
+    /**
+     * SHA of the pull request's current head commit.
+     */
+    String getHeadSha(String prUrl) throws IOException;
+
+    /**
+     * Content of {@code path} in the commit the pull request's base branch
+     * points at, or null when the file does not exist there. Configuration
+     * read this way cannot be changed by the pull request under review.
+     */
+    String getBaseFileContent(String prUrl, String path) throws IOException;
+
+    /**
+     * Status of {@code head} relative to {@code base} as reported by the compare
+     * API ({@code ahead}, {@code identical}, {@code behind} or {@code diverged}),
+     * or null if either commit no longer exists.
+     */
+    String compareStatus(String prUrl, String base, String head) throws IOException;
+
+    /**
+     * Streams the diff between two commits of the pull request's repository.
+     */
+    void streamCompareDiff(String prUrl, String base, String head, Consumer<DiffFile> consumer) throws IOException;
+
     void postComment(String prUrl, String body) throws IOException;
+
+    /**
+     * API URLs of the pull requests of {@code repo} ({@code owner/name}) in the
+     * given state ({@code open}, {@code closed} or {@code all}).
+     */
+    List<String> listPullRequests(String repo, String state) throws IOException;
+
+    /**
+     * First issue comment written by the token's own identity whose body
+     * contains {@code marker}, or null if there is none. Comments by anyone
+     * else are ignored, whatever they contain.
+     */
+    IssueComment findComment(String prUrl, String marker) throws IOException;
+
+    void updateComment(String commentUrl, String body) throws IOException;
+
+    /**
+     * Bodies of the inline review comments already on the pull request.
+     */
+    List<String> listReviewCommentBodies(String prUrl) throws IOException;
+
+    /**
+     * Submits all inline comments as a single review, so the author gets one
+     * notification instead of one per finding.
+     */
+    void createReview(String prUrl, String body, List<ReviewComment> comments) throws IOException;
 }
@@ -1,14 +1,30 @@
 package com.study.secubot.github;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.study.secubot.core.DiffFile;
+import com.study.secubot.core.DiffParser;
+import com.study.secubot.metrics.Stages;
 
+import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -16,32 +32,164 @@ import org.springframework.stereotype.Service;
 @Service
 public class GitHubServiceImpl implements GitHubService {
 
+    private static final MediaType JSON = MediaType.parse("application/json");
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]+)>;\\s*rel=\"next\"");
+
     private final String token;
+    private final String apiUrl;
     private final OkHttpClient client;
     private final ObjectMapper mapper;
+    private final DiffParser diffParser;
+    // Login of the token's user, "" when the token cannot read it; null until looked up
+    private volatile String login;
 
-    public GitHubServiceImpl(@Value("${secubot.github.token}") String token) {
+    public GitHubServiceImpl(@Value("${secubot.github.token}") String token,
+            @Value("${secubot.github.api-url:https://api.github.com}") String apiUrl,
+            OkHttpClient client) {
         this.token = token;
-        this.client = new OkHttpClient();
+        this.apiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+        this.client = client;
         this.mapper = new ObjectMapper();
+        this.diffParser = new DiffParser();
     }
 
     @Override
     public String getPullRequestDiff(String prUrl) throws IOException {
-        // prUrl e.g. https://api.github.com/repos/owner/repo/pulls/1
-        Request request = new Request.Builder()
-                .url(prUrl)
-                .header("Authorization", "Bearer " + token)
-                .header("Accept", "application/vnd.github.v3.diff")
+        try (Response response = client.newCall(diffRequest(prUrl)).execute()) {
+            if (!response.isSuccessful())
+                throw new IOException("Unexpected code " + response);
+            return response.body().string();
+        }
+    }
+
+    @Override
+    public void streamPullRequestDiff(String prUrl, Consumer<DiffFile> consumer) throws IOException {
+        try (Response response = client.newCall(diffRequest(prUrl)).execute()) {
+            if (!response.isSuccessful())
+                throw new IOException("Unexpected code " + response);
+            parseDiff(response, consumer);
+        }
+    }
+
+    @Override
+    public String getHeadSha(String prUrl) throws IOException {
+        return pullRequestSha(prUrl, "head");
+    }
+
+    @Override
+    public String getBaseFileContent(String prUrl, String path) throws IOException {
+        String sha = pullRequestSha(prUrl, "base");
+        HttpUrl url = HttpUrl.get(repoUrl(prUrl) + "/contents").newBuilder()
+                .addPathSegments(path.startsWith("/") ? path.substring(1) : path)
+                .addQueryParameter("ref", sha)
                 .build();
+        try (Response response = client.newCall(apiRequest(url.toString())
+                .header("Accept", "application/vnd.github.raw").get().build()).execute()) {
+            if (response.code() == 404)
+                return null;
+            if (!response.isSuccessful())
+                throw new IOException("Unexpected code " + response);
+            return response.body().string();
+        }
+    }
+
+    @Override
+    public String compareStatus(String prUrl, String base, String head) throws IOException {
+        // per_page=1 keeps the commit list short; only the status is needed
+        try (Response response = client.newCall(apiRequest(compareUrl(prUrl, base, head) + "?per_page=1")
+                .get().build()).execute()) {
+            if (response.code() == 404)
+                return null;
+            if (!response.isSuccessful())
+                throw new IOException("Unexpected code " + response);
+            return mapper.readTree(response.body().byteStream()).path("status").asText(null);
+        }
+    }
+
+    @Override
+    public void streamCompareDiff(String prUrl, String base, String head, Consumer<DiffFile> consumer)
+            throws IOException {
+        try (Response response = client.newCall(diffRequest(compareUrl(prUrl, base, head))).execute()) {
+            if (!response.isSuccessful())
+                throw new IOException("Unexpected code " + response);
+            parseDiff(response, consumer);
+        }
+    }
 
+    /**
+     * SHA of the pull request's {@code head} or {@code base} commit. The JSON
+     * is fetched with {@code no-store}: the HTTP cache keeps one entry per URL,
+     * and the diff of the same URL is the one worth revalidating.
+     */
+    private String pullRequestSha(String prUrl, String ref) throws IOException {
+        Request request = apiRequest(prUrl).header("Cache-Control", "no-store").get().build();
         try (Response response = client.newCall(request).execute()) {
             if (!response.isSuccessful())
                 throw new IOException("Unexpected code " + response);
-            return response.body().string();
+            String sha = mapper.readTree(response.body().byteStream()).path(ref).path("sha").asText("");
+            if (sha.isEmpty())
+                throw new IOException("Pull request has no " + ref + " SHA: " + prUrl);
+            return sha;
         }
     }
 
+    /**
+     * Parses the streamed diff, splitting the time between waiting for bytes
+     * from GitHub ({@code diff.fetch}) and parsing them ({@code diff.parse}).
+     */
+    private void parseDiff(Response response, Consumer<DiffFile> consumer) throws IOException {
+        long[] readNanos = { 0 };
+        long[] bytes = { 0 };
+        Source timed = new ForwardingSource(response.body().source()) {
+            @Override
+            public long read(Buffer sink, long byteCount) throws IOException {
+                long start = System.nanoTime();
+                try {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0) {
+                        bytes[0] += read;
+                    }
+                    return read;
+                } finally {
+                    readNanos[0] += System.nanoTime() - start;
+                }
+            }
+        };
+        long start = System.nanoTime();
+        int[] files = { 0 };
+        try {
+            diffParser.parse(Okio.buffer(timed), file -> {
+                files[0]++;
+                consumer.accept(file);
+            });
+        } finally {
+            // The time to first byte was spent in execute(); the response carries it
+            long firstByte = response.receivedResponseAtMillis() - response.sentRequestAtMillis();
+            Stages.record(Stages.DIFF_FETCH, Math.max(0, firstByte) * 1_000_000 + readNanos[0]);
+            Stages.record(Stages.DIFF_PARSE, System.nanoTime() - start - readNanos[0]);
+            Stages.bytes("diff", bytes[0]);
+            Stages.segments("diff.files", files[0]);
+        }
+    }
+
+    static String compareUrl(String prUrl, String base, String head) {
+        // https://api.github.com/repos/owner/repo/pulls/1 -> .../repos/owner/repo/compare/base...head
+        return repoUrl(prUrl) + "/compare/" + base + "..." + head;
+    }
+
+    private static String repoUrl(String prUrl) {
+        return prUrl.substring(0, prUrl.lastIndexOf("/pulls/"));
+    }
+
+    private Request diffRequest(String prUrl) {
+        // prUrl e.g. https://api.github.com/repos/owner/repo/pulls/1
+        return new Request.Builder()
+                .url(prUrl)
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "application/vnd.github.v3.diff")
+                .build();
+    }
+
     @Override
     public void postComment(String prUrl, String body) throws IOException {
         // prUrl is pull request url, but comments are posted to issues endpoint
@@ -75,6 +223,134 @@ public class GitHubServiceImpl implements GitHubService {
         }
     }
 
+    @Override
+    public IssueComment findComment(String prUrl, String marker) throws IOException {
+        for (JsonNode comment : getPaged(prUrl.replace("/pulls/", "/issues/") + "/comments?per_page=100")) {
+            String body = comment.path("body").asText("");
+            if (body.contains(marker) && writtenByUs(comment)) {
+                return new IssueComment(comment.path("url").asText(null), body);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether the token's own identity wrote {@code comment}. Anyone can put
+     * the markers in a comment, so a comment by someone else must not be
+     * trusted or edited. GitHub App installation tokens, including the Actions
+     * token, cannot read {@code /user}; their comments are the only ones of
+     * type {@code Bot}, which a person cannot post as.
+     */
+    private boolean writtenByUs(JsonNode comment) throws IOException {
+        JsonNode user = comment.path("user");
+        String self = login();
+        return self.isEmpty() ? "Bot".equals(user.path("type").asText()) : self.equals(user.path("login").asText());
+    }
+
+    private String login() throws IOException {
+        String current = login;
+        if (current == null) {
+            try (Response response = client.newCall(apiRequest(apiUrl + "/user").get().build()).execute()) {
+                if (response.code() == 401 || response.code() == 403) {
+                    current = "";
+                } else if (!response.isSuccessful()) {
+                    throw new IOException("Unexpected code " + response);
+                } else {
+                    current = mapper.readTree(response.body().byteStream()).path("login").asText("");
+                }
+            }
+            login = current;
+        }
+        return current;
+    }
+
+    @Override
+    public void updateComment(String commentUrl, String body) throws IOException {
+        String json = mapper.writeValueAsString(new CommentRequest(body));
+        Request request = apiRequest(commentUrl)
+                .patch(RequestBody.create(json, JSON))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Failed to update comment: " + response.code() + " " + response.body().string());
+            }
+        }
+    }
+
+    @Override
+    public List<String> listReviewCommentBodies(String prUrl) throws IOException {
+        List<String> bodies = new ArrayList<>();
+        for (JsonNode comment : getPaged(prUrl + "/comments?per_page=100")) {
+            bodies.add(comment.path("body").asText(""));
+        }
+        return bodies;
+    }
+
+    @Override
+    public void createReview(String prUrl, String body, List<ReviewComment> comments) throws IOException {
+        ObjectNode review = mapper.createObjectNode();
+        review.put("event", "COMMENT");
+        review.put("body", body);
+        ArrayNode array = review.putArray("comments");
+        for (ReviewComment comment : comments) {
+            array.addObject()
+                    .put("path", comment.path())
+                    .put("line", comment.line())
+                    .put("side", "RIGHT")
+                    .put("body", comment.body());
+        }
+
+        Request request = apiRequest(prUrl + "/reviews")
+                .post(RequestBody.create(mapper.writeValueAsString(review), JSON))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Failed to create review: " + response.code() + " " + response.body().string());
+            }
+        }
+    }
+
+    /**
+     * All elements of a paginated list endpoint, following {@code Link: rel="next"}.
+     */
+    private List<JsonNode> getPaged(String url) throws IOException {
+        List<JsonNode> items = new ArrayList<>();
+        while (url != null) {
+            try (Response response = client.newCall(apiRequest(url).get().build()).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new IOException("Unexpected code " + response);
+                }
+                mapper.readTree(response.body().byteStream()).forEach(items::add);
+                url = nextPage(response.header("Link"));
+            }
+        }
+        return items;
+    }
+
+    static String nextPage(String link) {
+        if (link == null) {
+            return null;
+        }
+        Matcher m = NEXT_LINK.matcher(link);
+        return m.find() ? m.group(1) : null;
+    }
+
+    private Request.Builder apiRequest(String url) {
+        return new Request.Builder()
+                .url(url)
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "application/vnd.github.v3+json");
+    }
+
+    @Override
+    public List<String> listPullRequests(String repo, String state) throws IOException {
+        List<String> urls = new ArrayList<>();
+        for (JsonNode pr : getPaged(apiUrl + "/repos/" + repo + "/pulls?state=" + state + "&per_page=100")) {
+            urls.add(pr.path("url").asText());
+        }
+        return urls;
+    }
+
     private static class CommentRequest {
         public String body;
 
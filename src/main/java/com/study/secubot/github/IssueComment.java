@@ -0,0 +1,7 @@
+package com.study.secubot.github;
+
+/**
+ * An issue comment on a pull request: its API URL (for updates) and body.
+ */
+public record IssueComment(String url, String body) {
+}
@@ -0,0 +1,185 @@
+package com.study.secubot.github;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Retries GitHub calls with backoff that follows GitHub's rate-limit
+ * guidance.
+ *
+ * <ul>
+ * <li>403/429 with {@code Retry-After}: wait that long.</li>
+ * <li>403/429 with {@code X-RateLimit-Remaining: 0}: wait until
+ * {@code X-RateLimit-Reset}.</li>
+ * <li>Other 403/429 that mention a rate limit (secondary limits): wait at
+ * least a minute, doubling per attempt.</li>
+ * <li>5xx and I/O errors on idempotent requests: exponential backoff with full
+ * jitter.</li>
+ * </ul>
+ *
+ * A wait longer than {@code maxWait} is not attempted; the rate-limited
+ * response is returned so the run fails fast instead of hanging. When a
+ * response reports an exhausted primary quota, later calls wait for the reset
+ * up front instead of burning a request on a certain 403.
+ */
+@Slf4j
+class RateLimitInterceptor implements Interceptor {
+
+    private static final long BASE_BACKOFF_MILLIS = 500;
+    private static final long SECONDARY_LIMIT_MILLIS = 60_000;
+
+    /**
+     * Blocking wait, replaceable in tests.
+     */
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final int maxRetries;
+    private final long maxWaitMillis;
+    private final GitHubClientMetrics metrics;
+    private final Sleeper sleeper;
+    private final Clock clock;
+    private volatile long quotaResetEpochMillis;
+
+    RateLimitInterceptor(int maxRetries, Duration maxWait, GitHubClientMetrics metrics, Sleeper sleeper,
+            Clock clock) {
+        this.maxRetries = maxRetries;
+        this.maxWaitMillis = maxWait.toMillis();
+        this.metrics = metrics;
+        this.sleeper = sleeper;
+        this.clock = clock;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        boolean idempotent = "GET".equals(request.method()) || "HEAD".equals(request.method());
+        waitForQuota();
+
+        for (int attempt = 0;; attempt++) {
+            Response response;
+            try {
+                metrics.recordRequest();
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (!idempotent || attempt >= maxRetries || e instanceof InterruptedIOException) {
+                    throw e;
+                }
+                long wait = jitteredBackoff(attempt);
+                log.warn("GitHub request {} failed ({}); retrying in {} ms", request.url(), e.getMessage(), wait);
+                metrics.recordRetry(false, wait);
+                pause(wait);
+                continue;
+            }
+
+            rememberQuota(response);
+            long wait = retryDelay(response, idempotent, attempt);
+            if (wait < 0 || attempt >= maxRetries) {
+                return response;
+            }
+            if (wait > maxWaitMillis) {
+                log.error("GitHub rate limit requires waiting {} s, more than the allowed {} s", wait / 1000,
+                        maxWaitMillis / 1000);
+                return response;
+            }
+            log.warn("GitHub answered {} for {}; retrying in {} ms", response.code(), request.url(), wait);
+            metrics.recordRetry(isRateLimited(response), wait);
+            response.close();
+            pause(wait);
+        }
+    }
+
+    /**
+     * Milliseconds to wait before retrying, or -1 if the response is final.
+     */
+    long retryDelay(Response response, boolean idempotent, int attempt) {
+        if (isRateLimited(response)) {
+            String retryAfter = response.header("Retry-After");
+            if (retryAfter != null) {
+                try {
+                    return Long.parseLong(retryAfter.trim()) * 1000 + smallJitter();
+                } catch (NumberFormatException ignored) {
+                    // HTTP-date form is not used by GitHub; fall through
+                }
+            }
+            if ("0".equals(response.header("X-RateLimit-Remaining"))) {
+                return Math.max(0, resetMillis(response) - clock.millis()) + smallJitter();
+            }
+            return (SECONDARY_LIMIT_MILLIS << Math.min(attempt, 4)) + smallJitter();
+        }
+        if (idempotent && response.code() >= 500 && response.code() != 501) {
+            return jitteredBackoff(attempt);
+        }
+        return -1;
+    }
+
+    private static boolean isRateLimited(Response response) {
+        if (response.code() == 429) {
+            return true;
+        }
+        if (response.code() != 403) {
+            return false;
+        }
+        if (response.header("Retry-After") != null || "0".equals(response.header("X-RateLimit-Remaining"))) {
+            return true;
+        }
+        // Secondary limits come as plain 403s; GitHub names them in the message
+        try {
+            return response.peekBody(4096).string().toLowerCase().contains("rate limit");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void rememberQuota(Response response) {
+        if ("0".equals(response.header("X-RateLimit-Remaining"))) {
+            quotaResetEpochMillis = resetMillis(response);
+        }
+    }
+
+    private void waitForQuota() throws IOException {
+        long wait = quotaResetEpochMillis - clock.millis();
+        if (wait > 0 && wait <= maxWaitMillis) {
+            log.info("GitHub quota exhausted; waiting {} ms for reset", wait);
+            metrics.recordWait(wait);
+            pause(wait);
+        }
+    }
+
+    private static long resetMillis(Response response) {
+        String reset = response.header("X-RateLimit-Reset");
+        try {
+            return reset == null ? 0 : Long.parseLong(reset.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Full jitter: uniform in [0, base * 2^attempt]
+    private static long jitteredBackoff(int attempt) {
+        return ThreadLocalRandom.current().nextLong(BASE_BACKOFF_MILLIS * (1L << Math.min(attempt, 10)) + 1);
+    }
+
+    // Spreads clients released by the same reset over a second
+    private static long smallJitter() {
+        return ThreadLocalRandom.current().nextLong(1000);
+    }
+
+    private void pause(long millis) throws IOException {
+        try {
+            sleeper.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing off");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.study.secubot.github;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Network interceptor that marks cacheable GitHub responses {@code no-cache}.
+ *
+ * <p>
+ * GitHub answers with {@code max-age=60}, which would let OkHttp serve a
+ * stored diff without asking. A PR pushed to twice within a minute must not be
+ * reviewed against the old diff, so every reuse is revalidated with
+ * {@code If-None-Match} / {@code If-Modified-Since} instead. A 304 costs no
+ * rate-limit quota and no body transfer.
+ */
+class RevalidatingCacheInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+        if (!"GET".equals(chain.request().method())
+                || (response.header("ETag") == null && response.header("Last-Modified") == null)) {
+            return response;
+        }
+        return response.newBuilder()
+                .header("Cache-Control", "no-cache")
+                .removeHeader("Expires")
+                .build();
+    }
+}
@@ -0,0 +1,8 @@
+package com.study.secubot.github;
+
+/**
+ * One inline comment of a pull request review, anchored to a line of the new
+ * file ({@code side: RIGHT}).
+ */
+public record ReviewComment(String path, int line, String body) {
+}
@@ -0,0 +1,186 @@
+package com.study.secubot.github;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Component;
+
+import com.study.secubot.core.InlineFinding;
+import com.study.secubot.core.ReviewEngine;
+import com.study.secubot.core.RiskLevel;
+import com.study.secubot.metrics.Stages;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes a review result to a pull request.
+ *
+ * <ul>
+ * <li>The summary is a single issue comment tagged with a hidden marker. Later
+ * runs edit it in place instead of appending a new comment per push. A second
+ * marker records the reviewed head SHA and its risk level, which is what
+ * incremental reviews start from. Only comments written by SecuBot's own
+ * identity are read or edited; anyone can copy the markers into a comment.</li>
+ * <li>Findings located on a diff line are submitted together as one pull
+ * request review. Each carries a marker derived from its file and code, and
+ * findings already commented on by an earlier run are not posted again.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class ReviewPublisher {
+
+    static final String SUMMARY_MARKER = "<!-- secubot:summary -->";
+    private static final String FINDING_MARKER = "<!-- secubot:finding:%s -->";
+    private static final String STATE_MARKER = "<!-- secubot:state head=%s risk=%s -->";
+    private static final Pattern STATE = Pattern.compile("<!-- secubot:state head=([0-9a-f]+) risk=([A-Z]+) -->");
+
+    private final GitHubService gitHubService;
+
+    public ReviewPublisher(GitHubService gitHubService) {
+        this.gitHubService = gitHubService;
+    }
+
+    /**
+     * What the previous run left on the pull request, or null on the first run.
+     */
+    public State previousState(String prUrl) throws IOException {
+        IssueComment comment = gitHubService.findComment(prUrl, SUMMARY_MARKER);
+        if (comment == null) {
+            return null;
+        }
+        Matcher m = STATE.matcher(comment.body());
+        return m.find()
+                ? new State(comment.url(), m.group(1), RiskLevel.of(m.group(2)))
+                : new State(comment.url(), null, null);
+    }
+
+    /**
+     * Publishes {@code result} as the review of {@code headSha}. {@code previous}
+     * is the value of {@link #previousState} for this run.
+     */
+    public void publish(String prUrl, ReviewEngine.ReviewResult result, String headSha, State previous)
+            throws IOException {
+        Stages.run(Stages.COMMENT_POST, () -> post(prUrl, result, headSha, previous));
+    }
+
+    private void post(String prUrl, ReviewEngine.ReviewResult result, String headSha, State previous)
+            throws IOException {
+        String body = buildCommentBody(result);
+        Stages.bytes("comment", body);
+        if (headSha != null) {
+            body += "\n" + String.format(STATE_MARKER, headSha, RiskLevel.of(result.riskLevel));
+        }
+        if (!updated(previous, body)) {
+            gitHubService.postComment(prUrl, body);
+            log.info("Posted summary comment");
+        }
+
+        List<ReviewComment> comments = newInlineComments(prUrl, result.findings);
+        if (comments.isEmpty()) {
+            return;
+        }
+        Stages.segments("inline.comments", comments.size());
+        try {
+            gitHubService.createReview(prUrl, "SecuBot found " + comments.size() + " issue(s) in this change.",
+                    comments);
+            log.info("Posted review with {} inline comment(s)", comments.size());
+        } catch (IOException e) {
+            // Typically 422 when a line is outside the diff; the summary already lists the findings
+            log.warn("Could not post inline review: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Edits the previous summary in place. Returns false when there is none or
+     * it cannot be edited, e.g. after a change of token, so that a new summary
+     * is posted instead of failing the review.
+     */
+    private boolean updated(State previous, String body) {
+        if (previous == null) {
+            return false;
+        }
+        try {
+            gitHubService.updateComment(previous.commentUrl(), body);
+            log.info("Updated summary comment");
+            return true;
+        } catch (IOException e) {
+            log.warn("Could not update summary comment, posting a new one: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private List<ReviewComment> newInlineComments(String prUrl, List<InlineFinding> findings) throws IOException {
+        Map<String, ReviewComment> pending = new LinkedHashMap<>();
+        for (InlineFinding finding : findings) {
+            if (finding.line() > 0) {
+                String marker = String.format(FINDING_MARKER, fingerprint(finding));
+                pending.putIfAbsent(marker, new ReviewComment(finding.path(), finding.line(),
+                        "**[" + finding.severity() + "]** " + finding.message() + "\n\n" + marker));
+            }
+        }
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+
+        for (String body : gitHubService.listReviewCommentBodies(prUrl)) {
+            pending.keySet().removeIf(body::contains);
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Stable across pushes: file and offending code, not the line number, which
+     * moves whenever lines are added above it.
+     */
+    static String fingerprint(InlineFinding finding) {
+        String key = finding.path() + "\n" + (finding.code() != null ? finding.code().strip() : finding.message());
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String buildCommentBody(ReviewEngine.ReviewResult result) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(SUMMARY_MARKER).append('\n');
+        sb.append("### \uD83D\uDEA8 SecuBot Security Review\n\n");
+        sb.append("**Risk Level**: `").append(result.riskLevel).append("`\n\n");
+        sb.append("**Summary**:\n").append(result.summary).append("\n\n");
+
+        List<InlineFinding> unlocated = result.findings.stream().filter(f -> f.line() <= 0).toList();
+        if (!unlocated.isEmpty()) {
+            sb.append("**Findings**:\n");
+            for (InlineFinding finding : unlocated) {
+                sb.append("- [").append(finding.severity()).append("] `").append(finding.path()).append("`: ")
+                        .append(finding.message()).append('\n');
+            }
+            sb.append('\n');
+        }
+
+        if (result.usedContext != null && !result.usedContext.isEmpty()) {
+            sb.append("<details><summary> Referenced Security Guidelines </summary>\n\n");
+            sb.append(result.usedContext);
+            sb.append("\n</details>");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The summary comment of an earlier run. {@code headSha} and {@code risk} are
+     * null for comments written before the state marker existed.
+     */
+    public record State(String commentUrl, String headSha, RiskLevel risk) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.study.secubot.llm;
+
+import java.util.Arrays;
+
+/**
+ * Latency and outcome of the last {@code capacity} calls to one route.
+ */
+public class LatencyStats {
+
+    private final long[] latencies;
+    private final boolean[] failures;
+    private int next;
+    private int size;
+
+    public LatencyStats(int capacity) {
+        this.latencies = new long[capacity];
+        this.failures = new boolean[capacity];
+    }
+
+    public synchronized void record(long millis, boolean failed) {
+        latencies[next] = millis;
+        failures[next] = failed;
+        next = (next + 1) % latencies.length;
+        size = Math.min(size + 1, latencies.length);
+    }
+
+    public synchronized int samples() {
+        return size;
+    }
+
+    /**
+     * 95th percentile latency of the successful calls in the window, or -1 if
+     * there are none.
+     */
+    public synchronized long p95() {
+        long[] ok = new long[size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (!failures[i]) {
+                ok[n++] = latencies[i];
+            }
+        }
+        if (n == 0) {
+            return -1;
+        }
+        Arrays.sort(ok, 0, n);
+        return ok[(int) Math.ceil(0.95 * n) - 1];
+    }
+
+    public synchronized double errorRate() {
+        if (size == 0) {
+            return 0;
+        }
+        int failed = 0;
+        for (int i = 0; i < size; i++) {
+            if (failures[i]) {
+                failed++;
+            }
+        }
+        return (double) failed / size;
+    }
+}
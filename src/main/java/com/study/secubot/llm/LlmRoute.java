@@ -0,0 +1,29 @@
+package com.study.secubot.llm;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+
+/**
+ * One provider/model the router can send calls to, with its own health state.
+ * {@code name} is {@code provider:model}.
+ */
+public record LlmRoute(String name, ChatModel chatModel, StreamingChatModel streamingChatModel,
+        LatencyStats stats, CircuitBreaker breaker) {
+
+    void recordSuccess(long millis) {
+        stats.record(millis, false);
+        breaker.onSuccess();
+    }
+
+    void recordFailure(long millis) {
+        stats.record(millis, true);
+        breaker.onFailure();
+    }
+
+    @Override
+    public String toString() {
+        long p95 = stats.p95();
+        return String.format("%s [%s, p95 %s, %.0f%% errors over %d call(s)]", name, breaker.state(),
+                p95 < 0 ? "n/a" : p95 + " ms", stats.errorRate() * 100, stats.samples());
+    }
+}
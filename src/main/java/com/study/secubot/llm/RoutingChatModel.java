@@ -0,0 +1,391 @@
+package com.study.secubot.llm;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link ChatModel} over an ordered list of provider/model routes.
+ *
+ * <ul>
+ * <li>Routes are tried in configured order. Routes with an open circuit are
+ * skipped, and routes whose recent error rate exceeds {@code maxErrorRate}
+ * move behind the healthy ones.</li>
+ * <li>If the first route has not answered after its rolling p95 latency (never
+ * less than {@code minHedgeDelay}), one hedged request goes to the next route
+ * and the first successful answer wins; the other call is cancelled.</li>
+ * <li>A failed call fails over to the next route immediately.</li>
+ * <li>Every call has a deadline of {@code timeout} across all attempts.</li>
+ * </ul>
+ *
+ * {@link #streaming()} exposes the same routes as a {@link StreamingChatModel}.
+ * Streams fail over when a route errors before its first token and share the
+ * deadline and circuit breakers, but are not hedged, since that would pay for
+ * most responses twice.
+ */
+@Slf4j
+public class RoutingChatModel implements ChatModel {
+
+    private static final int MIN_SAMPLES = 10;
+
+    private final List<LlmRoute> routes;
+    private final Duration timeout;
+    private final Duration minHedgeDelay;
+    private final boolean hedge;
+    private final double maxErrorRate;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public RoutingChatModel(List<LlmRoute> routes, Duration timeout, Duration minHedgeDelay, boolean hedge,
+            double maxErrorRate) {
+        if (routes.isEmpty()) {
+            throw new IllegalArgumentException("At least one LLM route is required");
+        }
+        this.routes = List.copyOf(routes);
+        this.timeout = timeout;
+        this.minHedgeDelay = minHedgeDelay;
+        this.hedge = hedge;
+        this.maxErrorRate = maxErrorRate;
+    }
+
+    public List<LlmRoute> routes() {
+        return routes;
+    }
+
+    /**
+     * Routes in the order they should be tried: healthy before unhealthy, then
+     * configured order. Open circuits are filtered out later, when a route is
+     * actually picked, so that half-open trials are only claimed when used.
+     */
+    List<LlmRoute> ordered() {
+        List<LlmRoute> ordered = new ArrayList<>(routes);
+        ordered.sort(Comparator.comparing(this::isUnhealthy));
+        return ordered;
+    }
+
+    private boolean isUnhealthy(LlmRoute route) {
+        return route.stats().samples() >= MIN_SAMPLES && route.stats().errorRate() > maxErrorRate;
+    }
+
+    private long hedgeDelayMillis(LlmRoute route) {
+        long p95 = route.stats().samples() >= MIN_SAMPLES ? route.stats().p95() : -1;
+        return Math.max(minHedgeDelay.toMillis(), p95);
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest request) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        List<LlmRoute> order = ordered();
+        LinkedBlockingQueue<Attempt> finished = new LinkedBlockingQueue<>();
+        List<Attempt> inFlight = new ArrayList<>();
+        int next = 0;
+        long hedgeAt = Long.MAX_VALUE;
+        boolean hedged = false;
+        RuntimeException lastError = null;
+
+        try {
+            // Launch the first route whose circuit lets a call through
+            while (inFlight.isEmpty() && next < order.size()) {
+                Attempt attempt = launch(order.get(next++), request, finished);
+                if (attempt != null) {
+                    inFlight.add(attempt);
+                    hedgeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(hedgeDelayMillis(attempt.route));
+                }
+            }
+            if (inFlight.isEmpty()) {
+                throw new IllegalStateException("All LLM routes are unavailable: " + describe());
+            }
+
+            while (true) {
+                long now = System.nanoTime();
+                long waitUntil = hedge && !hedged ? Math.min(deadline, hedgeAt) : deadline;
+                Attempt done = finished.poll(Math.max(0, waitUntil - now), TimeUnit.NANOSECONDS);
+
+                if (done == null) {
+                    if (System.nanoTime() >= deadline) {
+                        for (Attempt attempt : inFlight) {
+                            attempt.route.recordFailure(attempt.elapsedMillis());
+                        }
+                        throw new IllegalStateException("LLM call timed out after " + timeout.toMillis() + " ms: "
+                                + describe());
+                    }
+                    // Hedge: the first route is slower than usual, ask the next one too
+                    hedged = true;
+                    while (next < order.size()) {
+                        Attempt attempt = launch(order.get(next++), request, finished);
+                        if (attempt != null) {
+                            log.info("Hedging {} with {}", inFlight.get(0).route.name(), attempt.route.name());
+                            inFlight.add(attempt);
+                            break;
+                        }
+                    }
+                    continue;
+                }
+
+                inFlight.remove(done);
+                if (done.error == null) {
+                    done.route.recordSuccess(done.elapsedMillis());
+                    return done.response;
+                }
+                done.route.recordFailure(done.elapsedMillis());
+                lastError = done.error;
+                log.warn("LLM route {} failed: {}", done.route.name(), done.error.getMessage());
+
+                // Fail over right away rather than waiting for the hedge delay
+                while (inFlight.isEmpty() && next < order.size()) {
+                    Attempt attempt = launch(order.get(next++), request, finished);
+                    if (attempt != null) {
+                        inFlight.add(attempt);
+                    }
+                }
+                if (inFlight.isEmpty()) {
+                    throw lastError;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the LLM", e);
+        } finally {
+            for (Attempt attempt : inFlight) {
+                attempt.cancel();
+            }
+        }
+    }
+
+    private Attempt launch(LlmRoute route, ChatRequest request, LinkedBlockingQueue<Attempt> finished) {
+        if (!route.breaker().tryAcquire()) {
+            return null;
+        }
+        Attempt attempt = new Attempt(route);
+        attempt.future = executor.submit(() -> {
+            try {
+                attempt.response = route.chatModel().chat(request);
+            } catch (RuntimeException e) {
+                attempt.error = e;
+            }
+            finished.add(attempt);
+        });
+        return attempt;
+    }
+
+    public String describe() {
+        return routes.stream().map(LlmRoute::toString).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * One call to one route.
+     */
+    private static class Attempt {
+        final LlmRoute route;
+        final long start = System.nanoTime();
+        volatile Future<?> future;
+        volatile ChatResponse response;
+        volatile RuntimeException error;
+
+        Attempt(LlmRoute route) {
+            this.route = route;
+        }
+
+        long elapsedMillis() {
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+
+        void cancel() {
+            future.cancel(true);
+            route.breaker().onAbandoned();
+        }
+    }
+
+    /**
+     * The same routes as a streaming model.
+     */
+    public StreamingChatModel streaming() {
+        return new StreamingChatModel() {
+            @Override
+            public void doChat(ChatRequest request, StreamingChatResponseHandler handler) {
+                stream(request, handler);
+            }
+        };
+    }
+
+    private void stream(ChatRequest request, StreamingChatResponseHandler handler) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        streamFrom(ordered(), 0, request, handler, deadline, null);
+    }
+
+    /**
+     * Streams from the first available route at or after {@code index}.
+     */
+    private void streamFrom(List<LlmRoute> order, int index, ChatRequest request,
+            StreamingChatResponseHandler handler, long deadline, Throwable lastError) {
+        int i = index;
+        while (i < order.size() && !order.get(i).breaker().tryAcquire()) {
+            i++;
+        }
+        if (i >= order.size()) {
+            handler.onError(lastError != null ? lastError
+                    : new IllegalStateException("All LLM routes are unavailable: " + describe()));
+            return;
+        }
+        StreamAttempt attempt = new StreamAttempt(order, i, request, handler, deadline);
+        order.get(i).streamingChatModel().chat(request, attempt);
+        executor.submit(attempt::watch);
+    }
+
+    /**
+     * One stream from one route. An error before the first token fails over to
+     * the next route; once tokens have been forwarded the response belongs to
+     * this route. A stream still running at the deadline is cancelled.
+     *
+     * <p>
+     * The caller gets a handle of its own rather than the route's: cancelling
+     * through it ends the attempt without counting against the route, since a
+     * caller that has heard enough says nothing about the route's health.
+     */
+    private class StreamAttempt implements StreamingChatResponseHandler {
+        private static final int PENDING = 0;
+        private static final int STREAMING = 1;
+        private static final int DONE = 2;
+        private static final int ABORTED = 3;
+
+        private final List<LlmRoute> order;
+        private final int index;
+        private final ChatRequest request;
+        private final StreamingChatResponseHandler handler;
+        private final long deadline;
+        private final long start = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final CompletableFuture<Void> finished = new CompletableFuture<>();
+        private volatile StreamingHandle handle;
+        private volatile boolean cancelled;
+        private final StreamingHandle downstream = new StreamingHandle() {
+            @Override
+            public void cancel() {
+                StreamAttempt.this.cancel();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled;
+            }
+        };
+
+        StreamAttempt(List<LlmRoute> order, int index, ChatRequest request, StreamingChatResponseHandler handler,
+                long deadline) {
+            this.order = order;
+            this.index = index;
+            this.request = request;
+            this.handler = handler;
+            this.deadline = deadline;
+        }
+
+        private LlmRoute route() {
+            return order.get(index);
+        }
+
+        private long elapsedMillis() {
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+
+        private boolean owns() {
+            return state.compareAndSet(PENDING, STREAMING) || state.get() == STREAMING;
+        }
+
+        @Override
+        public void onPartialResponse(String text) {
+            if (owns()) {
+                handler.onPartialResponse(text);
+            }
+        }
+
+        @Override
+        public void onPartialResponse(PartialResponse partial, PartialResponseContext context) {
+            handle = context.streamingHandle();
+            if (owns()) {
+                handler.onPartialResponse(partial, new PartialResponseContext(downstream));
+            } else {
+                context.streamingHandle().cancel();
+            }
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse response) {
+            if (state.compareAndSet(PENDING, DONE) || state.compareAndSet(STREAMING, DONE)) {
+                finished.complete(null);
+                route().recordSuccess(elapsedMillis());
+                handler.onCompleteResponse(response);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (state.compareAndSet(PENDING, ABORTED)) {
+                finished.complete(null);
+                route().recordFailure(elapsedMillis());
+                log.warn("LLM route {} failed before streaming: {}", route().name(), error.getMessage());
+                streamFrom(order, index + 1, request, handler, deadline, error);
+            } else if (state.compareAndSet(STREAMING, ABORTED)) {
+                finished.complete(null);
+                route().recordFailure(elapsedMillis());
+                handler.onError(error);
+            }
+        }
+
+        /**
+         * Cancelled by the caller: release the route's permit like an abandoned
+         * hedge, without recording a failure, and stop the watcher.
+         */
+        private void cancel() {
+            if (state.compareAndSet(PENDING, ABORTED) || state.compareAndSet(STREAMING, ABORTED)) {
+                cancelled = true;
+                finished.complete(null);
+                route().breaker().onAbandoned();
+                StreamingHandle streamingHandle = handle;
+                if (streamingHandle != null) {
+                    streamingHandle.cancel();
+                }
+            }
+        }
+
+        void watch() {
+            try {
+                finished.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (state.compareAndSet(PENDING, ABORTED) || state.compareAndSet(STREAMING, ABORTED)) {
+                    route().recordFailure(elapsedMillis());
+                    StreamingHandle streamingHandle = handle;
+                    if (streamingHandle != null) {
+                        streamingHandle.cancel();
+                    }
+                    handler.onError(new IllegalStateException("LLM stream from " + route().name()
+                            + " timed out after " + timeout.toMillis() + " ms"));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // never completed exceptionally
+            }
+        }
+    }
+}
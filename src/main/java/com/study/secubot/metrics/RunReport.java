@@ -0,0 +1,109 @@
+package com.study.secubot.metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Machine-readable summary of one run, built from the meters recorded by
+ * {@link Stages}.
+ *
+ * <p>
+ * The JSON report has the shape:
+ *
+ * <pre>
+ * {
+ *   "started": "...", "elapsed_ms": 1234, "pr_url": "...", "risk_level": "LOW", "exit_code": 0,
+ *   "stages": { "llm.call": { "count": 2, "total_ms": 900.5, "max_ms": 610.2, "mean_ms": 450.3 } },
+ *   "bytes": { "diff": 5120 }, "segments": { "diff.files": 3 }, "tokens": { "input": 2100 },
+ *   "skipped": { "files": 2, "bytes": 48210, "tokens": 12053 }
+ * }
+ * </pre>
+ *
+ * {@code skipped} sums up the files left out of the diff before review and
+ * the input tokens that saved; its counts also appear under their tags.
+ */
+public class RunReport {
+
+    private final MeterRegistry registry;
+    private final Instant started = Instant.now();
+    private final long start = System.nanoTime();
+
+    public RunReport(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public ObjectNode toJson(String prUrl, String riskLevel, int exitCode) {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode root = mapper.createObjectNode();
+        root.put("started", started.toString());
+        root.put("elapsed_ms", (System.nanoTime() - start) / 1_000_000);
+        root.put("pr_url", prUrl);
+        root.put("risk_level", riskLevel);
+        root.put("exit_code", exitCode);
+
+        ObjectNode stages = root.putObject("stages");
+        stageTimers().forEach((stage, timer) -> {
+            ObjectNode node = stages.putObject(stage);
+            node.put("count", timer.count());
+            node.put("total_ms", round(timer.totalTime(TimeUnit.MILLISECONDS)));
+            node.put("max_ms", round(timer.max(TimeUnit.MILLISECONDS)));
+            node.put("mean_ms", round(timer.mean(TimeUnit.MILLISECONDS)));
+        });
+        counters(root.putObject("bytes"), Stages.BYTES, "kind");
+        counters(root.putObject("segments"), Stages.SEGMENTS, "kind");
+        counters(root.putObject("tokens"), Stages.TOKENS, "direction");
+
+        ObjectNode skipped = root.putObject("skipped");
+        skipped.put("files", counter(Stages.SEGMENTS, "kind", Stages.SKIPPED));
+        skipped.put("bytes", counter(Stages.BYTES, "kind", Stages.SKIPPED));
+        skipped.put("tokens", counter(Stages.TOKENS, "direction", Stages.SKIPPED));
+        return root;
+    }
+
+    public void write(Path file, String prUrl, String riskLevel, int exitCode) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file.toFile(), toJson(prUrl, riskLevel, exitCode));
+    }
+
+    private Map<String, Timer> stageTimers() {
+        Map<String, Timer> timers = new TreeMap<>();
+        for (Timer timer : registry.find(Stages.STAGE_TIMER).timers()) {
+            timers.put(timer.getId().getTag("stage"), timer);
+        }
+        return timers;
+    }
+
+    private void counters(ObjectNode target, String name, String tag) {
+        Map<String, Long> values = new TreeMap<>();
+        for (Counter counter : registry.find(name).counters()) {
+            values.put(counter.getId().getTag(tag), (long) counter.count());
+        }
+        values.forEach(target::put);
+    }
+
+    private long counter(String name, String tag, String value) {
+        Counter counter = registry.find(name).tag(tag, value).counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 10) / 10.0;
+    }
+}
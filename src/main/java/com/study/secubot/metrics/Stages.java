@@ -0,0 +1,157 @@
+package com.study.secubot.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Timers and counters for the stages of a review, recorded to Micrometer's
+ * global registry so that code deep in the pipeline needs no extra wiring.
+ *
+ * <p>
+ * Every stage is one {@code secubot.stage} timer tagged with its name. Stages
+ * may nest: {@code kb.load} includes the embedding of changed guidelines and
+ * {@code retrieve} the embedding of the queries, both also recorded as
+ * {@code embed}. Sizes go to {@code secubot.bytes}, {@code secubot.segments}
+ * and {@code secubot.tokens}, tagged by kind. The {@code prompt} bytes are the
+ * whole request sent to the model, {@code diff} and {@code context} its parts.
+ *
+ * <p>
+ * Files filtered out of the diff are counted under {@link #SKIPPED}: their
+ * bytes, their number and the input tokens they would have cost.
+ */
+public final class Stages {
+
+    public static final String KB_LOAD = "kb.load";
+    public static final String DIFF_FETCH = "diff.fetch";
+    public static final String DIFF_PARSE = "diff.parse";
+    public static final String EMBED = "embed";
+    public static final String RETRIEVE = "retrieve";
+    public static final String PROMPT_BUILD = "prompt.build";
+    public static final String LLM_CALL = "llm.call";
+    public static final String RESPONSE_PARSE = "response.parse";
+    public static final String COMMENT_POST = "comment.post";
+
+    public static final String SKIPPED = "diff.skipped";
+
+    static final String STAGE_TIMER = "secubot.stage";
+    static final String BYTES = "secubot.bytes";
+    static final String SEGMENTS = "secubot.segments";
+    static final String TOKENS = "secubot.tokens";
+
+    // Global registry timers by stage; they follow registries added later
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface Body<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    @FunctionalInterface
+    public interface VoidBody<E extends Exception> {
+        void run() throws E;
+    }
+
+    private Stages() {
+    }
+
+    public static <T, E extends Exception> T time(String stage, Body<T, E> body) throws E {
+        long start = System.nanoTime();
+        try {
+            return body.run();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    public static <E extends Exception> void run(String stage, VoidBody<E> body) throws E {
+        long start = System.nanoTime();
+        try {
+            body.run();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    public static void record(String stage, long nanos) {
+        TIMERS.computeIfAbsent(stage, name -> timer(registry(), name)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static void bytes(String kind, long amount) {
+        count(BYTES, "kind", kind, amount);
+    }
+
+    /**
+     * Counts the UTF-8 size of text that is sent or received as a string.
+     */
+    public static void bytes(String kind, CharSequence text) {
+        bytes(kind, utf8Length(text));
+    }
+
+    static long utf8Length(CharSequence text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    public static void segments(String kind, long amount) {
+        count(SEGMENTS, "kind", kind, amount);
+    }
+
+    /**
+     * Token usage as reported by the provider; {@code direction} is
+     * {@code input} or {@code output}, or {@link #SKIPPED} for the estimated
+     * input tokens of skipped files.
+     */
+    public static void tokens(String direction, Integer amount) {
+        if (amount != null) {
+            count(TOKENS, "direction", direction, amount);
+        }
+    }
+
+    /**
+     * Counts one diff file left out of the review, {@code bytes} long in the
+     * raw diff and worth about {@code tokens} input tokens.
+     */
+    public static void skipped(long bytes, int tokens) {
+        bytes(SKIPPED, bytes);
+        segments(SKIPPED, 1);
+        tokens(SKIPPED, tokens);
+    }
+
+    static Timer timer(MeterRegistry registry, String stage) {
+        return Timer.builder(STAGE_TIMER)
+                .description("Time spent in one stage of a review")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static void count(String name, String tag, String value, long amount) {
+        if (amount > 0) {
+            Counter.builder(name).tag(tag, value).register(registry()).increment(amount);
+        }
+    }
+
+    private static MeterRegistry registry() {
+        return Metrics.globalRegistry;
+    }
+}
@@ -0,0 +1,140 @@
+package com.study.secubot.rag;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Case-insensitive multi-keyword matcher. All keywords are found in a single
+ * left-to-right pass over the input, regardless of how many there are.
+ *
+ * <p>
+ * Keywords must be ASCII. The goto/fail functions are compiled into a dense
+ * DFA over the 128 ASCII characters; any non-ASCII input character resets to
+ * the root.
+ */
+public class AhoCorasick {
+
+    private static final int ALPHABET = 128;
+
+    private final List<String> keywords;
+    private final int[][] transitions;
+    private final int[][] outputs;
+
+    public AhoCorasick(List<String> keywords) {
+        this.keywords = List.copyOf(keywords);
+
+        List<int[]> delta = new ArrayList<>();
+        List<List<Integer>> out = new ArrayList<>();
+        delta.add(newState());
+        out.add(new ArrayList<>());
+
+        // Trie
+        for (int k = 0; k < this.keywords.size(); k++) {
+            int state = 0;
+            for (char c : this.keywords.get(k).toCharArray()) {
+                int ch = fold(c);
+                if (ch < 0) {
+                    throw new IllegalArgumentException("Keyword must be ASCII: " + this.keywords.get(k));
+                }
+                if (delta.get(state)[ch] < 0) {
+                    delta.get(state)[ch] = delta.size();
+                    delta.add(newState());
+                    out.add(new ArrayList<>());
+                }
+                state = delta.get(state)[ch];
+            }
+            out.get(state).add(k);
+        }
+
+        // Failure links, folded into full transitions breadth-first
+        int[] fail = new int[delta.size()];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int ch = 0; ch < ALPHABET; ch++) {
+            int next = delta.get(0)[ch];
+            if (next < 0) {
+                delta.get(0)[ch] = 0;
+            } else {
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            out.get(state).addAll(out.get(fail[state]));
+            for (int ch = 0; ch < ALPHABET; ch++) {
+                int next = delta.get(state)[ch];
+                if (next < 0) {
+                    delta.get(state)[ch] = delta.get(fail[state])[ch];
+                } else {
+                    fail[next] = delta.get(fail[state])[ch];
+                    queue.add(next);
+                }
+            }
+        }
+
+        this.transitions = delta.toArray(new int[0][]);
+        this.outputs = new int[out.size()][];
+        for (int s = 0; s < out.size(); s++) {
+            outputs[s] = out.get(s).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public List<String> keywords() {
+        return keywords;
+    }
+
+    public Scanner scanner() {
+        return new Scanner();
+    }
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private static int fold(char c) {
+        if (c >= ALPHABET) {
+            return -1;
+        }
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    /**
+     * Incremental matcher; text may be fed in pieces (e.g. line by line) and
+     * matches spanning pieces are still found.
+     */
+    public class Scanner {
+        private final int[] counts = new int[keywords.size()];
+        private int state;
+
+        public Scanner feed(CharSequence text) {
+            int s = state;
+            for (int i = 0, n = text.length(); i < n; i++) {
+                int ch = fold(text.charAt(i));
+                s = ch < 0 ? 0 : transitions[s][ch];
+                for (int k : outputs[s]) {
+                    counts[k]++;
+                }
+            }
+            state = s;
+            return this;
+        }
+
+        public Scanner reset() {
+            Arrays.fill(counts, 0);
+            state = 0;
+            return this;
+        }
+
+        /**
+         * Occurrence count per keyword, indexed like {@link AhoCorasick#keywords()}.
+         */
+        public int[] counts() {
+            return counts;
+        }
+    }
+}
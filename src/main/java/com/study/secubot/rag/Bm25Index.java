@@ -0,0 +1,128 @@
+package com.study.secubot.rag;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import dev.langchain4j.data.segment.TextSegment;
+
+/**
+ * Immutable BM25 inverted index over knowledge-base segments.
+ *
+ * <p>
+ * Tokens are maximal runs of letters, digits and underscores, lower-cased.
+ * Mixed-case identifiers are indexed both whole and split at case changes, so
+ * {@code printStackTrace} matches the query terms {@code printstacktrace} and
+ * {@code stack}.
+ */
+public class Bm25Index {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final List<TextSegment> segments;
+    private final Map<String, int[][]> postings;
+    private final int[] lengths;
+    private final double averageLength;
+
+    public Bm25Index(List<TextSegment> segments) {
+        this.segments = List.copyOf(segments);
+        this.lengths = new int[segments.size()];
+
+        Map<String, Map<Integer, Integer>> builder = new HashMap<>();
+        long totalLength = 0;
+        for (int doc = 0; doc < segments.size(); doc++) {
+            List<String> tokens = tokenize(segments.get(doc).text());
+            lengths[doc] = tokens.size();
+            totalLength += tokens.size();
+            for (String token : tokens) {
+                builder.computeIfAbsent(token, t -> new HashMap<>()).merge(doc, 1, Integer::sum);
+            }
+        }
+        this.averageLength = segments.isEmpty() ? 0 : (double) totalLength / segments.size();
+
+        // Freeze into primitive {doc, tf} pairs
+        this.postings = new HashMap<>(builder.size() * 2);
+        for (Map.Entry<String, Map<Integer, Integer>> entry : builder.entrySet()) {
+            int[][] list = new int[entry.getValue().size()][];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> posting : entry.getValue().entrySet()) {
+                list[i++] = new int[] { posting.getKey(), posting.getValue() };
+            }
+            postings.put(entry.getKey(), list);
+        }
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    public List<ScoredDocument> search(Collection<String> terms, int limit) {
+        double[] scores = new double[segments.size()];
+        int n = segments.size();
+        for (String term : new LinkedHashSet<>(terms)) {
+            int[][] list = postings.get(term);
+            if (list == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (n - list.length + 0.5) / (list.length + 0.5));
+            for (int[] posting : list) {
+                int doc = posting[0];
+                double tf = posting[1];
+                scores[doc] += idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * lengths[doc] / averageLength));
+            }
+        }
+
+        List<Integer> ranked = new ArrayList<>();
+        for (int doc = 0; doc < n; doc++) {
+            if (scores[doc] > 0) {
+                ranked.add(doc);
+            }
+        }
+        ranked.sort((a, b) -> Double.compare(scores[b], scores[a]));
+
+        List<ScoredDocument> results = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            int doc = ranked.get(i);
+            results.add(new ScoredDocument(segments.get(doc).text(), scores[doc]));
+        }
+        return results;
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length()
+                    && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_');
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                addToken(text.substring(start, i), tokens);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addToken(String token, List<String> tokens) {
+        tokens.add(token.toLowerCase(Locale.ROOT));
+        Set<String> parts = new LinkedHashSet<>();
+        int partStart = 0;
+        for (int i = 1; i < token.length(); i++) {
+            if (Character.isUpperCase(token.charAt(i)) && Character.isLowerCase(token.charAt(i - 1))) {
+                parts.add(token.substring(partStart, i).toLowerCase(Locale.ROOT));
+                partStart = i;
+            }
+        }
+        if (partStart > 0) {
+            parts.add(token.substring(partStart).toLowerCase(Locale.ROOT));
+            tokens.addAll(parts);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.study.secubot.rag;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * On-disk cache of embedded knowledge-base segments, keyed by file.
+ *
+ * <p>
+ * Layout (big-endian):
+ *
+ * <pre>
+ * int    magic "SBIX"
+ * int    format version
+ * utf    model id
+ * utf    splitter id
+ * int    vector dimension
+ * int    file count
+ * per file:
+ *   utf    relative path
+ *   utf    content hash (hex SHA-256)
+ *   int    segment count
+ *   per segment:
+ *     bytes  text (int length + UTF-8)
+ *     int    metadata entry count, then utf key / utf value pairs
+ *     float  vector[dimension]
+ * </pre>
+ *
+ * The file is memory-mapped on read. An index written with a different model,
+ * splitter or format version is treated as empty so that everything is
+ * re-embedded.
+ */
+@Slf4j
+public class EmbeddingIndex {
+
+    private static final int MAGIC = 0x53424958; // "SBIX"
+    private static final int FORMAT_VERSION = 1;
+
+    private final String modelId;
+    private final String splitterId;
+    private final Map<String, FileEntry> entries;
+
+    public EmbeddingIndex(String modelId, String splitterId) {
+        this(modelId, splitterId, new LinkedHashMap<>());
+    }
+
+    private EmbeddingIndex(String modelId, String splitterId, Map<String, FileEntry> entries) {
+        this.modelId = modelId;
+        this.splitterId = splitterId;
+        this.entries = entries;
+    }
+
+    public FileEntry get(String path) {
+        return entries.get(path);
+    }
+
+    public void put(FileEntry entry) {
+        entries.put(entry.path(), entry);
+    }
+
+    public Map<String, FileEntry> entries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Hash over model id, splitter id and every file's path and content hash.
+     */
+    public String version() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((modelId + "\n" + splitterId + "\n").getBytes(StandardCharsets.UTF_8));
+            entries.keySet().stream().sorted().forEach(path -> digest.update(
+                    (path + "=" + entries.get(path).hash() + "\n").getBytes(StandardCharsets.UTF_8)));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Reads the index at {@code file}. Returns an empty index when the file does
+     * not exist, is corrupt, or was built for another model or splitter.
+     */
+    public static EmbeddingIndex read(Path file, String modelId, String splitterId) {
+        EmbeddingIndex empty = new EmbeddingIndex(modelId, splitterId);
+        if (!Files.isRegularFile(file)) {
+            return empty;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.getInt() != MAGIC || buf.getInt() != FORMAT_VERSION) {
+                return empty;
+            }
+            if (!modelId.equals(readUtf(buf)) || !splitterId.equals(readUtf(buf))) {
+                return empty;
+            }
+
+            int dimension = buf.getInt();
+            int fileCount = buf.getInt();
+            Map<String, FileEntry> entries = new LinkedHashMap<>(fileCount * 2);
+            for (int f = 0; f < fileCount; f++) {
+                String path = readUtf(buf);
+                String hash = readUtf(buf);
+                int segmentCount = buf.getInt();
+                List<TextSegment> segments = new ArrayList<>(segmentCount);
+                List<Embedding> embeddings = new ArrayList<>(segmentCount);
+                for (int s = 0; s < segmentCount; s++) {
+                    String text = readUtf(buf);
+                    int metadataCount = buf.getInt();
+                    Map<String, Object> metadata = new HashMap<>(metadataCount * 2);
+                    for (int m = 0; m < metadataCount; m++) {
+                        metadata.put(readUtf(buf), readUtf(buf));
+                    }
+                    float[] vector = new float[dimension];
+                    buf.asFloatBuffer().get(vector);
+                    buf.position(buf.position() + dimension * Float.BYTES);
+                    segments.add(TextSegment.from(text, Metadata.from(metadata)));
+                    embeddings.add(Embedding.from(vector));
+                }
+                entries.put(path, new FileEntry(path, hash, segments, embeddings));
+            }
+            return new EmbeddingIndex(modelId, splitterId, entries);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable embedding index {}: {}", file, e.getMessage());
+            return empty;
+        }
+    }
+
+    /**
+     * Writes the index to {@code file} through a temporary sibling that is then
+     * moved into place, so a crashed run never leaves a half-written index.
+     */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeUtf(out, modelId);
+            writeUtf(out, splitterId);
+            out.writeInt(dimension());
+            out.writeInt(entries.size());
+            for (FileEntry entry : entries.values()) {
+                writeUtf(out, entry.path());
+                writeUtf(out, entry.hash());
+                out.writeInt(entry.segments().size());
+                for (int i = 0; i < entry.segments().size(); i++) {
+                    TextSegment segment = entry.segments().get(i);
+                    writeUtf(out, segment.text());
+                    Map<String, Object> metadata = segment.metadata().toMap();
+                    out.writeInt(metadata.size());
+                    for (Map.Entry<String, Object> m : metadata.entrySet()) {
+                        writeUtf(out, m.getKey());
+                        writeUtf(out, String.valueOf(m.getValue()));
+                    }
+                    for (float v : entry.embeddings().get(i).vector()) {
+                        out.writeFloat(v);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int dimension() {
+        for (FileEntry entry : entries.values()) {
+            if (!entry.embeddings().isEmpty()) {
+                return entry.embeddings().get(0).dimension();
+            }
+        }
+        return 0;
+    }
+
+    private static String readUtf(ByteBuffer buf) {
+        int length = buf.getInt();
+        String value = StandardCharsets.UTF_8.decode(buf.slice(buf.position(), length)).toString();
+        buf.position(buf.position() + length);
+        return value;
+    }
+
+    private static void writeUtf(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Segments and vectors produced from one knowledge-base file.
+     */
+    public record FileEntry(String path, String hash, List<TextSegment> segments, List<Embedding> embeddings) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.study.secubot.rag;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Fuses semantic ({@link VectorStoreRetriever}) and lexical
+ * ({@link SimpleKeywordRetriever}) results with reciprocal-rank fusion.
+ *
+ * <p>
+ * A document's fused score is {@code sum(1 / (K + rank))} over the lists it
+ * appears in, so agreement between both retrievers outranks a single high
+ * placement and the two incomparable score scales never have to be mixed.
+ */
+@Component
+public class HybridRetriever {
+
+    // Standard RRF damping constant
+    private static final int K = 60;
+
+    private final VectorStoreRetriever vectorRetriever;
+    private final SimpleKeywordRetriever keywordRetriever;
+
+    public HybridRetriever(VectorStoreRetriever vectorRetriever, SimpleKeywordRetriever keywordRetriever) {
+        this.vectorRetriever = vectorRetriever;
+        this.keywordRetriever = keywordRetriever;
+    }
+
+    public List<ScoredDocument> retrieveAll(List<String> queries) {
+        return retrieveAll(queries, List.of(), snapshot());
+    }
+
+    /**
+     * Like {@link #retrieveAll(List)}, against one knowledge-base snapshot and
+     * with the semantic search narrowed to guidelines for the languages of
+     * {@code paths}, the files the queries come from.
+     */
+    public List<ScoredDocument> retrieveAll(List<String> queries, Collection<String> paths,
+            KnowledgeSnapshot snapshot) {
+        if (queries.isEmpty()) {
+            return List.of();
+        }
+        int limit = vectorRetriever.maxResults();
+        List<ScoredDocument> semantic = vectorRetriever.retrieveAll(queries,
+                VectorStoreRetriever.languageFilter(paths), snapshot);
+        return fuse(List.of(semantic, keywordRetriever.retrieve(queries, limit, snapshot.keywords())), limit);
+    }
+
+    public KnowledgeSnapshot snapshot() {
+        return vectorRetriever.snapshot();
+    }
+
+    static List<ScoredDocument> fuse(List<List<ScoredDocument>> rankings, int limit) {
+        Map<String, Double> fused = new LinkedHashMap<>();
+        for (List<ScoredDocument> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                fused.merge(ranking.get(rank).text(), 1.0 / (K + rank + 1), Double::sum);
+            }
+        }
+
+        List<ScoredDocument> results = new ArrayList<>(fused.size());
+        fused.forEach((text, score) -> results.add(new ScoredDocument(text, score)));
+        results.sort((a, b) -> Double.compare(b.score(), a.score()));
+        return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+    }
+}
@@ -0,0 +1,197 @@
+package com.study.secubot.rag;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.study.secubot.metrics.Stages;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+
+/**
+ * Staged knowledge-base ingestion.
+ *
+ * <ol>
+ * <li>Files are read, hashed and split in parallel.</li>
+ * <li>Segments of files that need embedding are packed into fixed-size batches
+ * that cross file boundaries, so many small files still produce full ONNX
+ * batches. Batches run on the same bounded pool; at most two batches per
+ * worker are in flight to keep memory bounded.</li>
+ * <li>All segments are added to the store with a single {@code addAll}.</li>
+ * </ol>
+ */
+public class IngestionPipeline {
+
+    private final EmbeddingModel embeddingModel;
+    private final int batchSize;
+    private final int threads;
+
+    public IngestionPipeline(EmbeddingModel embeddingModel, int batchSize, int threads) {
+        this.embeddingModel = embeddingModel;
+        this.batchSize = Math.max(1, batchSize);
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Reads and splits a single file. Returns a {@link SplitFile} carrying
+     * either a reusable index entry or the segments that still need embedding.
+     */
+    @FunctionalInterface
+    public interface FileSplitter {
+        SplitFile split(Path file) throws Exception;
+    }
+
+    public record SplitFile(String path, String hash, List<TextSegment> segments, EmbeddingIndex.FileEntry reused) {
+
+        public static SplitFile reused(EmbeddingIndex.FileEntry entry) {
+            return new SplitFile(entry.path(), entry.hash(), entry.segments(), entry);
+        }
+
+        public static SplitFile pending(String path, String hash, List<TextSegment> segments) {
+            return new SplitFile(path, hash, segments, null);
+        }
+    }
+
+    public record Result(List<EmbeddingIndex.FileEntry> entries, int reusedFiles, int embeddedFiles,
+            int embeddedSegments, long elapsedNanos) {
+
+        public double segmentsPerSecond() {
+            return elapsedNanos == 0 ? 0 : embeddedSegments * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+
+    public Result run(List<Path> files, FileSplitter splitter, EmbeddingStore<TextSegment> store)
+            throws InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "kb-ingest-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            // Stage 1: parallel read + split
+            List<Future<SplitFile>> splits = new ArrayList<>(files.size());
+            for (Path file : files) {
+                splits.add(pool.submit(() -> splitter.split(file)));
+            }
+
+            // Stage 2: global batcher, consumed in file order so the result is deterministic
+            Semaphore inFlight = new Semaphore(threads * 2);
+            List<Future<?>> batches = new ArrayList<>();
+            List<Embedding[]> vectors = new ArrayList<>(files.size());
+            List<SplitFile> splitFiles = new ArrayList<>(files.size());
+            Batch batch = new Batch(batchSize);
+            int reusedFiles = 0;
+            int embeddedFiles = 0;
+            int embeddedSegments = 0;
+
+            for (Future<SplitFile> future : splits) {
+                SplitFile split = future.get();
+                splitFiles.add(split);
+                if (split.reused() != null) {
+                    vectors.add(null);
+                    reusedFiles++;
+                    continue;
+                }
+
+                Embedding[] target = new Embedding[split.segments().size()];
+                vectors.add(target);
+                embeddedFiles++;
+                embeddedSegments += target.length;
+                for (int i = 0; i < target.length; i++) {
+                    batch.add(split.segments().get(i), target, i);
+                    if (batch.isFull()) {
+                        batches.add(submit(pool, inFlight, batch));
+                        batch = new Batch(batchSize);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.add(submit(pool, inFlight, batch));
+            }
+            for (Future<?> future : batches) {
+                future.get();
+            }
+
+            // Stage 3: bulk add
+            List<EmbeddingIndex.FileEntry> entries = new ArrayList<>(splitFiles.size());
+            List<Embedding> allEmbeddings = new ArrayList<>();
+            List<TextSegment> allSegments = new ArrayList<>();
+            for (int i = 0; i < splitFiles.size(); i++) {
+                SplitFile split = splitFiles.get(i);
+                EmbeddingIndex.FileEntry entry = split.reused() != null
+                        ? split.reused()
+                        : new EmbeddingIndex.FileEntry(split.path(), split.hash(), split.segments(),
+                                List.of(vectors.get(i)));
+                entries.add(entry);
+                allEmbeddings.addAll(entry.embeddings());
+                allSegments.addAll(entry.segments());
+            }
+            if (!allSegments.isEmpty()) {
+                store.addAll(allEmbeddings, allSegments);
+            }
+
+            return new Result(entries, reusedFiles, embeddedFiles, embeddedSegments, System.nanoTime() - start);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Future<?> submit(ExecutorService pool, Semaphore inFlight, Batch batch) throws InterruptedException {
+        inFlight.acquire();
+        Callable<Void> task = () -> {
+            try {
+                List<Embedding> embeddings = Stages.time(Stages.EMBED,
+                        () -> embeddingModel.embedAll(batch.segments).content());
+                for (int i = 0; i < embeddings.size(); i++) {
+                    batch.targets.get(i)[batch.offsets[i]] = embeddings.get(i);
+                }
+                return null;
+            } finally {
+                inFlight.release();
+            }
+        };
+        return pool.submit(task);
+    }
+
+    /**
+     * Segments of one embedding call together with the slot each result goes to.
+     */
+    private static class Batch {
+        private final List<TextSegment> segments;
+        private final List<Embedding[]> targets;
+        private final int[] offsets;
+
+        Batch(int capacity) {
+            this.segments = new ArrayList<>(capacity);
+            this.targets = new ArrayList<>(capacity);
+            this.offsets = new int[capacity];
+        }
+
+        void add(TextSegment segment, Embedding[] target, int offset) {
+            offsets[segments.size()] = offset;
+            segments.add(segment);
+            targets.add(target);
+        }
+
+        boolean isFull() {
+            return segments.size() == offsets.length;
+        }
+
+        boolean isEmpty() {
+            return segments.isEmpty();
+        }
+    }
+}
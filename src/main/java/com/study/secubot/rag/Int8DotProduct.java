@@ -0,0 +1,26 @@
+package com.study.secubot.rag;
+
+/**
+ * Dot product of int8 vectors. The SIMD implementation needs the
+ * {@code jdk.incubator.vector} module ({@code --add-modules jdk.incubator.vector});
+ * without it the scalar loop is used.
+ */
+interface Int8DotProduct {
+
+    /**
+     * Dot product of {@code query} with {@code dimension} bytes of
+     * {@code block} starting at {@code offset}.
+     */
+    int dot(byte[] query, byte[] block, int offset, int dimension);
+
+    static Int8DotProduct best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorInt8DotProduct();
+            } catch (LinkageError e) {
+                // Fall through to the scalar loop
+            }
+        }
+        return new ScalarInt8DotProduct();
+    }
+}
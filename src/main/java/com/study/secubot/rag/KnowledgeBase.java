@@ -0,0 +1,43 @@
+package com.study.secubot.rag;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.stereotype.Component;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+
+/**
+ * Holds the current {@link KnowledgeSnapshot}. Loading publishes a complete
+ * snapshot with a single reference swap, so readers never wait for ingestion
+ * and never see a half-populated store.
+ */
+@Component
+public class KnowledgeBase {
+
+    private final AtomicReference<KnowledgeSnapshot> current;
+
+    public KnowledgeBase() {
+        this(KnowledgeSnapshot.empty());
+    }
+
+    /**
+     * A knowledge base searching {@code store} directly, for callers outside
+     * Spring that fill the store themselves.
+     */
+    public KnowledgeBase(EmbeddingStore<TextSegment> store) {
+        this(KnowledgeSnapshot.empty(store));
+    }
+
+    private KnowledgeBase(KnowledgeSnapshot initial) {
+        this.current = new AtomicReference<>(initial);
+    }
+
+    public KnowledgeSnapshot current() {
+        return current.get();
+    }
+
+    void publish(KnowledgeSnapshot snapshot) {
+        current.set(snapshot);
+    }
+}
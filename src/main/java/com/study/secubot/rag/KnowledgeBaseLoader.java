@@ -1,65 +1,169 @@
 package com.study.secubot.rag;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import com.study.secubot.config.LangChainConfig;
+import com.study.secubot.metrics.Stages;
+
 import dev.langchain4j.data.document.Document;
 import dev.langchain4j.data.document.DocumentSplitter;
 import dev.langchain4j.data.document.Metadata;
-import dev.langchain4j.data.document.splitter.DocumentSplitters;
-import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.store.embedding.EmbeddingStore;
 
+/**
+ * Builds {@link KnowledgeSnapshot}s from the markdown guidelines and publishes
+ * them to the {@link KnowledgeBase}.
+ *
+ * <p>
+ * The first load reuses vectors from the on-disk index; later loads (see
+ * {@link KnowledgeBaseWatcher}) reuse those of the current snapshot. Either way
+ * only added or modified files are embedded, deleted files simply drop out,
+ * and the result goes into a fresh store that replaces the old one only once
+ * it is complete.
+ */
 @Component
 public class KnowledgeBaseLoader {
 
+    // Bump whenever the splitter settings below change so stale indexes are rebuilt
+    static final String SPLITTER_ID = "markdown-800";
+
     private final Path knowledgeBasePath;
-    private final EmbeddingStore<TextSegment> embeddingStore;
-    private final EmbeddingModel embeddingModel;
+    private final Path indexPath;
+    private final Supplier<EmbeddingStore<TextSegment>> storeFactory;
+    private final KnowledgeBase knowledgeBase;
+    private final IngestionPipeline pipeline;
+    // Whole sections up to the size MiniLM embeds without truncation, tagged for filtered search
+    private final DocumentSplitter splitter = new MarkdownSplitter(800);
 
     public KnowledgeBaseLoader(@Value("${secubot.knowledge-base.path:knowledge-base}") String path,
-            EmbeddingStore<TextSegment> embeddingStore,
-            EmbeddingModel embeddingModel) {
+            @Value("${secubot.knowledge-base.index-path:}") String indexPath,
+            @Value("${secubot.knowledge-base.embed-batch-size:64}") int embedBatchSize,
+            @Value("${secubot.knowledge-base.ingest-threads:0}") int ingestThreads,
+            Supplier<EmbeddingStore<TextSegment>> storeFactory,
+            @Lazy EmbeddingModel embeddingModel,
+            KnowledgeBase knowledgeBase) {
         this.knowledgeBasePath = Paths.get(path);
-        this.embeddingStore = embeddingStore;
-        this.embeddingModel = embeddingModel;
+        this.indexPath = indexPath.isEmpty() ? null : Paths.get(indexPath);
+        this.storeFactory = storeFactory;
+        this.knowledgeBase = knowledgeBase;
+        this.pipeline = new IngestionPipeline(embeddingModel, embedBatchSize, ingestThreads);
+    }
+
+    public Path path() {
+        return knowledgeBasePath;
+    }
+
+    /**
+     * Loads the knowledge base and publishes it. Loads are serialized; reviews
+     * keep using the previous snapshot until this returns.
+     */
+    public synchronized void load() throws IOException {
+        Stages.run(Stages.KB_LOAD, this::loadIndex);
     }
 
-    public void load() throws IOException {
+    private void loadIndex() throws IOException {
         if (!Files.exists(knowledgeBasePath) || !Files.isDirectory(knowledgeBasePath)) {
             System.err.println("Knowledge base directory not found: " + knowledgeBasePath);
             return;
         }
 
+        String modelId = LangChainConfig.EMBEDDING_MODEL_ID;
+        KnowledgeSnapshot loaded = knowledgeBase.current();
+        EmbeddingIndex previous;
+        if (loaded.isLoaded()) {
+            previous = loaded.index();
+        } else if (indexPath != null) {
+            previous = EmbeddingIndex.read(indexPath, modelId, SPLITTER_ID);
+        } else {
+            previous = new EmbeddingIndex(modelId, SPLITTER_ID);
+        }
+
+        List<Path> markdownFiles;
         try (Stream<Path> paths = Files.walk(knowledgeBasePath)) {
-            List<Path> markdownFiles = paths
+            markdownFiles = paths
                     .filter(Files::isRegularFile)
                     .filter(p -> p.toString().endsWith(".md"))
+                    .sorted()
                     .collect(Collectors.toList());
+        }
+
+        EmbeddingStore<TextSegment> store = storeFactory.get();
+        IngestionPipeline.Result result;
+        try {
+            result = pipeline.run(markdownFiles, file -> split(file, previous), store);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading knowledge base", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to ingest knowledge base: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        EmbeddingIndex current = new EmbeddingIndex(modelId, SPLITTER_ID);
+        result.entries().forEach(current::put);
+        Bm25Index keywords = new Bm25Index(result.entries().stream()
+                .flatMap(entry -> entry.segments().stream())
+                .collect(Collectors.toList()));
+        knowledgeBase.publish(new KnowledgeSnapshot(current.version(), store, keywords, current));
+
+        Stages.segments("kb.embedded", result.embeddedSegments());
+        Stages.segments("kb.indexed", result.entries().stream().mapToLong(entry -> entry.segments().size()).sum());
+        boolean removed = !current.entries().keySet().containsAll(previous.entries().keySet());
+        if (indexPath != null && (result.embeddedFiles() > 0 || removed)) {
+            current.write(indexPath);
+        }
+        System.out.printf(
+                "Knowledge base ready: %d file(s) reused from index, %d embedded (%d segments, %.1f segments/sec, %d ms)%n",
+                result.reusedFiles(), result.embeddedFiles(), result.embeddedSegments(),
+                result.segmentsPerSecond(), result.elapsedNanos() / 1_000_000);
+    }
 
-            for (Path file : markdownFiles) {
-                String content = Files.readString(file);
-                String fileName = file.getFileName().toString();
+    /**
+     * Identifies the loaded knowledge-base content (files, their hashes, model and
+     * splitter). Changes whenever any guideline is added, edited or removed.
+     */
+    public String version() {
+        return knowledgeBase.current().version();
+    }
+
+    private IngestionPipeline.SplitFile split(Path file, EmbeddingIndex previous) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        String relativePath = knowledgeBasePath.relativize(file).toString();
+        String hash = sha256(bytes);
 
-                Document document = Document.from(content, Metadata.from("filename", fileName));
-                // Increased chunk size for better context, with overlap to maintain continuity
-                DocumentSplitter splitter = DocumentSplitters.recursive(500, 50);
-                List<TextSegment> segments = splitter.split(document);
-                List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
-                embeddingStore.addAll(embeddings, segments);
+        EmbeddingIndex.FileEntry entry = previous.get(relativePath);
+        if (entry != null && entry.hash().equals(hash)) {
+            return IngestionPipeline.SplitFile.reused(entry);
+        }
+
+        String fileName = file.getFileName().toString();
+        Document document = Document.from(new String(bytes, StandardCharsets.UTF_8), Metadata.from("filename", fileName));
+        System.out.println("Embedding security doc: " + relativePath);
+        return IngestionPipeline.SplitFile.pending(relativePath, hash, splitter.split(document));
+    }
 
-                System.out.println("Loaded and embedded security doc: " + fileName);
-            }
+    static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 }
@@ -0,0 +1,147 @@
+package com.study.secubot.rag;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reloads the knowledge base when guidelines change on disk.
+ *
+ * <p>
+ * A {@link WatchService} watches the knowledge-base directory and its
+ * subdirectories. A burst of events (an editor saving, a {@code git pull})
+ * triggers one reload once no further event has arrived for the debounce
+ * period. Reloads run on the watcher's own thread through
+ * {@link KnowledgeBaseLoader#load()}, which embeds only added or modified
+ * files and publishes the result atomically; a failed reload is logged and
+ * the previous snapshot stays in place.
+ */
+@Component
+@Slf4j
+public class KnowledgeBaseWatcher implements Closeable {
+
+    private final KnowledgeBaseLoader loader;
+    private final long debounceMillis;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    public KnowledgeBaseWatcher(KnowledgeBaseLoader loader,
+            @Value("${secubot.knowledge-base.reload-debounce-ms:500}") long debounceMillis) {
+        this.loader = loader;
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Starts watching. Does nothing when already started or when the
+     * knowledge-base directory does not exist.
+     */
+    public synchronized void start() throws IOException {
+        Path root = loader.path();
+        if (thread != null || !Files.isDirectory(root)) {
+            return;
+        }
+        watchService = root.getFileSystem().newWatchService();
+        registerAll(root);
+        thread = new Thread(this::run, "kb-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching {} for guideline changes", root.toAbsolutePath());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        watchService.close();
+        thread = null;
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                boolean changed = handle(watchService.take());
+                // Debounce: keep collecting until the directory has been quiet for a while
+                WatchKey next;
+                while ((next = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= handle(next);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private void reload() {
+        try {
+            loader.load();
+            log.info("Knowledge base reloaded, version {}", loader.version());
+        } catch (IOException | RuntimeException e) {
+            log.error("Knowledge base reload failed, keeping the previous version: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Processes the events of one key and returns whether any of them may
+     * change the loaded guidelines.
+     */
+    private boolean handle(WatchKey key) {
+        Path dir = directories.get(key);
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                changed = true;
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerAll(path);
+                } catch (IOException e) {
+                    log.warn("Cannot watch {}: {}", path, e.getMessage());
+                }
+                changed = true;
+            } else if (path.toString().endsWith(".md")) {
+                changed = true;
+            }
+        }
+        if (!key.reset()) {
+            // The directory itself is gone, and with it any guidelines inside
+            directories.remove(key);
+            changed = true;
+        }
+        return changed;
+    }
+
+    private void registerAll(Path root) throws IOException {
+        List<Path> dirs;
+        try (Stream<Path> paths = Files.walk(root)) {
+            dirs = paths.filter(Files::isDirectory).toList();
+        }
+        for (Path dir : dirs) {
+            directories.put(dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), dir);
+        }
+    }
+}
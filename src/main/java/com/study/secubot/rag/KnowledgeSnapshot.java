@@ -0,0 +1,38 @@
+package com.study.secubot.rag;
+
+import java.util.List;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+
+/**
+ * One loaded state of the knowledge base: the vector store, the lexical index
+ * and the per-file index they were built from.
+ *
+ * <p>
+ * A snapshot is never modified once {@link KnowledgeBase#publish published};
+ * a reload builds the next one from scratch. A review takes the current
+ * snapshot once and uses it throughout, so it sees either the old or the new
+ * guidelines but never a mix.
+ */
+public record KnowledgeSnapshot(String version, EmbeddingStore<TextSegment> store, Bm25Index keywords,
+        EmbeddingIndex index) {
+
+    static final String NONE = "none";
+
+    /**
+     * Snapshot before anything is loaded, searching {@code store} as is.
+     */
+    public static KnowledgeSnapshot empty(EmbeddingStore<TextSegment> store) {
+        return new KnowledgeSnapshot(NONE, store, new Bm25Index(List.of()), new EmbeddingIndex("", ""));
+    }
+
+    public static KnowledgeSnapshot empty() {
+        return empty(new InMemoryEmbeddingStore<>());
+    }
+
+    boolean isLoaded() {
+        return !NONE.equals(version);
+    }
+}
@@ -0,0 +1,105 @@
+package com.study.secubot.rag;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Language ids shared by the knowledge-base metadata and the retrieval
+ * filters. Ids are lower case and none is a substring of another, so a
+ * {@code containsString} filter on a comma-separated list never matches the
+ * wrong language.
+ */
+final class Languages {
+
+    /** Metadata value for guidelines that apply to every language. */
+    static final String ANY = "any";
+
+    private static final Map<String, String> EXTENSIONS = Map.ofEntries(
+            Map.entry("java", "java"),
+            Map.entry("kt", "kotlin"), Map.entry("kts", "kotlin"),
+            Map.entry("scala", "scala"),
+            Map.entry("groovy", "groovy"), Map.entry("gradle", "groovy"),
+            Map.entry("js", "js"), Map.entry("jsx", "js"), Map.entry("mjs", "js"), Map.entry("cjs", "js"),
+            Map.entry("ts", "ts"), Map.entry("tsx", "ts"),
+            Map.entry("py", "python"),
+            Map.entry("rb", "ruby"),
+            Map.entry("php", "php"),
+            Map.entry("go", "golang"),
+            Map.entry("cs", "csharp"),
+            Map.entry("c", "cpp"), Map.entry("h", "cpp"), Map.entry("cc", "cpp"), Map.entry("cpp", "cpp"),
+            Map.entry("hpp", "cpp"),
+            Map.entry("rs", "rust"),
+            Map.entry("swift", "swift"),
+            Map.entry("sql", "sql"),
+            Map.entry("sh", "shell"), Map.entry("bash", "shell"),
+            Map.entry("html", "html"), Map.entry("htm", "html"),
+            Map.entry("xml", "xml"),
+            Map.entry("yml", "yaml"), Map.entry("yaml", "yaml"),
+            Map.entry("properties", "properties"));
+
+    // Names used in fences, front matter and headings that differ from the id
+    private static final Map<String, String> ALIASES = Map.ofEntries(
+            Map.entry("go", "golang"),
+            Map.entry("c", "cpp"), Map.entry("c++", "cpp"),
+            Map.entry("c#", "csharp"),
+            Map.entry("javascript", "js"), Map.entry("node", "js"),
+            Map.entry("typescript", "ts"),
+            Map.entry("bash", "shell"), Map.entry("sh", "shell"),
+            Map.entry("yml", "yaml"));
+
+    // Programming languages recognised when named in a heading, e.g. "Guidelines (Java)"
+    private static final Set<String> HEADING_NAMES = Set.of("java", "kotlin", "scala", "groovy", "javascript",
+            "typescript", "node", "python", "ruby", "php", "golang", "c#", "c++", "rust", "swift");
+
+    private Languages() {
+    }
+
+    /**
+     * Language of a file in a diff, or {@code null} when the extension is
+     * unknown.
+     */
+    static String ofPath(String path) {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        if (dot <= slash + 1) {
+            return null;
+        }
+        return EXTENSIONS.get(path.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Language id for a name such as {@code Java}, {@code ts} or {@code C#},
+     * or {@code null} when it is not a known language.
+     */
+    static String ofName(String name) {
+        String key = name.strip().toLowerCase(Locale.ROOT);
+        if (key.isEmpty()) {
+            return null;
+        }
+        String alias = ALIASES.get(key);
+        if (alias != null) {
+            return alias;
+        }
+        if (key.equals(ANY) || EXTENSIONS.containsValue(key)) {
+            return key;
+        }
+        return EXTENSIONS.get(key);
+    }
+
+    /**
+     * Languages a heading names, such as {@code java} for
+     * {@code "Java/Spring Best Practices"}. Data formats like SQL or HTML are
+     * not counted: in a heading they name the topic, not the language.
+     */
+    static Set<String> inHeading(String heading) {
+        Set<String> languages = new TreeSet<>();
+        for (String token : heading.toLowerCase(Locale.ROOT).split("[^a-z0-9+#]+")) {
+            if (HEADING_NAMES.contains(token)) {
+                languages.add(ofName(token));
+            }
+        }
+        return languages;
+    }
+}
@@ -0,0 +1,365 @@
+package com.study.secubot.rag;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Splits markdown guidelines along their headings instead of at fixed
+ * character counts.
+ *
+ * <p>
+ * Every heading starts a section, and a segment starts with the headings
+ * above its first section so that it still says what it is about when read on
+ * its own. Consecutive sections with the same metadata are packed into one
+ * segment while they fit in {@code maxChars}; a longer section is cut at blank
+ * lines. Fenced code blocks are only cut when a single block exceeds the
+ * limit, and {@code #} lines inside them are not headings.
+ *
+ * <p>
+ * Metadata comes from an optional front-matter block:
+ *
+ * <pre>
+ * ---
+ * category: sql-injection
+ * languages: [java, kotlin]
+ * severity: CRITICAL
+ * ---
+ * </pre>
+ *
+ * Every {@code key: value} line becomes segment metadata. Without front matter
+ * the category is the slug of the first heading, and a section's languages
+ * are those its headings name (e.g. {@code "Guidelines (Java)"}), or
+ * {@code any}. {@code languages} is stored as a comma-separated list of
+ * {@link Languages} ids; names that are not known languages are dropped with
+ * a warning, since a raw name such as {@code jsonnet} would match the
+ * {@code js} filter.
+ */
+@Slf4j
+public class MarkdownSplitter implements DocumentSplitter {
+
+    static final String CATEGORY = "category";
+    static final String LANGUAGES = "languages";
+    static final String SEVERITY = "severity";
+    static final String SECTION = "section";
+    static final String INDEX = "index";
+
+    private static final String FRONT_MATTER = "---";
+
+    private final int maxChars;
+
+    public MarkdownSplitter(int maxChars) {
+        if (maxChars <= 0) {
+            throw new IllegalArgumentException("maxChars must be positive");
+        }
+        this.maxChars = maxChars;
+    }
+
+    @Override
+    public List<TextSegment> split(Document document) {
+        List<String> lines = document.text().lines().toList();
+        Map<String, String> frontMatter = new LinkedHashMap<>();
+        int start = readFrontMatter(lines, frontMatter);
+        List<Section> sections = sections(lines, start);
+
+        String languages = frontMatter.containsKey(LANGUAGES) ? languages(frontMatter.get(LANGUAGES), document) : null;
+        String category = frontMatter.containsKey(CATEGORY) ? slug(frontMatter.get(CATEGORY)) : null;
+        for (Section section : sections) {
+            if (category == null && section.heading != null) {
+                category = slug(title(section.heading));
+            }
+        }
+        if (category == null || category.isEmpty()) {
+            category = "general";
+        }
+
+        Metadata base = document.metadata().copy();
+        frontMatter.forEach(base::put);
+        base.put(CATEGORY, category);
+        if (frontMatter.containsKey(SEVERITY)) {
+            base.put(SEVERITY, frontMatter.get(SEVERITY).toUpperCase(Locale.ROOT));
+        }
+
+        List<TextSegment> segments = new ArrayList<>();
+        Chunk chunk = null;
+        for (Section section : sections) {
+            String sectionLanguages = languages != null ? languages
+                    : section.languages.isEmpty() ? Languages.ANY : String.join(",", section.languages);
+            String block = section.block();
+            if (chunk != null && chunk.languages.equals(sectionLanguages)
+                    && chunk.text.length() + 2 + block.length() <= maxChars) {
+                chunk.append(block, section.hasBody());
+                continue;
+            }
+            emit(chunk, base, segments);
+            String prefix = section.prefix();
+            if (prefix.length() + block.length() <= maxChars) {
+                chunk = new Chunk(section, sectionLanguages, prefix + block);
+            } else {
+                chunk = null;
+                for (String piece : cut(section, prefix)) {
+                    emit(new Chunk(section, sectionLanguages, piece), base, segments);
+                }
+            }
+        }
+        emit(chunk, base, segments);
+        return segments;
+    }
+
+    private void emit(Chunk chunk, Metadata base, List<TextSegment> segments) {
+        // A chunk of headings alone adds nothing; the next section repeats them
+        if (chunk == null || !chunk.hasBody) {
+            return;
+        }
+        Metadata metadata = base.copy();
+        metadata.put(LANGUAGES, chunk.languages);
+        metadata.put(SECTION, chunk.first.heading == null ? "" : title(chunk.first.heading));
+        metadata.put(INDEX, String.valueOf(segments.size()));
+        segments.add(TextSegment.from(chunk.text.toString(), metadata));
+    }
+
+    /**
+     * Cuts a section that does not fit into pieces at blank lines outside code
+     * fences, each repeating the section's headings. Paragraphs that are still
+     * too long are cut at line breaks, and lines at {@code maxChars}.
+     */
+    private List<String> cut(Section section, String prefix) {
+        String header = section.heading == null ? prefix : prefix + section.heading + "\n";
+        int budget = Math.max(1, maxChars - header.length());
+
+        List<String> paragraphs = new ArrayList<>();
+        StringBuilder paragraph = new StringBuilder();
+        boolean fenced = false;
+        for (String line : section.body) {
+            if (isFence(line)) {
+                fenced = !fenced;
+            }
+            if (!fenced && line.isBlank()) {
+                if (!paragraph.isEmpty()) {
+                    paragraphs.add(paragraph.toString());
+                    paragraph.setLength(0);
+                }
+                continue;
+            }
+            if (!paragraph.isEmpty()) {
+                paragraph.append('\n');
+            }
+            paragraph.append(line);
+        }
+        if (!paragraph.isEmpty()) {
+            paragraphs.add(paragraph.toString());
+        }
+
+        List<String> pieces = new ArrayList<>();
+        StringBuilder piece = new StringBuilder();
+        for (String p : paragraphs) {
+            for (String part : p.length() <= budget ? List.of(p) : hardCut(p, budget)) {
+                if (!piece.isEmpty() && piece.length() + 2 + part.length() > budget) {
+                    pieces.add(header + piece);
+                    piece.setLength(0);
+                }
+                if (!piece.isEmpty()) {
+                    piece.append("\n\n");
+                }
+                piece.append(part);
+            }
+        }
+        if (!piece.isEmpty()) {
+            pieces.add(header + piece);
+        }
+        return pieces;
+    }
+
+    private static List<String> hardCut(String text, int budget) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder part = new StringBuilder();
+        for (String line : text.split("\n", -1)) {
+            while (line.length() > budget) {
+                if (!part.isEmpty()) {
+                    parts.add(part.toString());
+                    part.setLength(0);
+                }
+                parts.add(line.substring(0, budget));
+                line = line.substring(budget);
+            }
+            if (!part.isEmpty() && part.length() + 1 + line.length() > budget) {
+                parts.add(part.toString());
+                part.setLength(0);
+            }
+            if (!part.isEmpty()) {
+                part.append('\n');
+            }
+            part.append(line);
+        }
+        if (!part.isEmpty()) {
+            parts.add(part.toString());
+        }
+        return parts;
+    }
+
+    /**
+     * Parses a leading {@code ---} block into {@code frontMatter} and returns
+     * the index of the first line after it (0 when there is none).
+     */
+    static int readFrontMatter(List<String> lines, Map<String, String> frontMatter) {
+        if (lines.isEmpty() || !lines.get(0).strip().equals(FRONT_MATTER)) {
+            return 0;
+        }
+        for (int i = 1; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.equals(FRONT_MATTER)) {
+                return i + 1;
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0 && !line.startsWith("#")) {
+                String value = line.substring(colon + 1).strip();
+                if (value.length() >= 2 && (value.startsWith("\"") && value.endsWith("\"")
+                        || value.startsWith("'") && value.endsWith("'"))) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                frontMatter.put(line.substring(0, colon).strip().toLowerCase(Locale.ROOT), value);
+            }
+        }
+        // No closing line: not front matter after all
+        frontMatter.clear();
+        return 0;
+    }
+
+    private static List<Section> sections(List<String> lines, int start) {
+        List<Section> sections = new ArrayList<>();
+        String[] open = new String[7];
+        Section current = new Section(List.of(), null, Set.of());
+        boolean fenced = false;
+        for (int i = start; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (isFence(line)) {
+                fenced = !fenced;
+            }
+            int level = fenced ? 0 : headingLevel(line);
+            if (level == 0) {
+                current.body.add(line);
+                continue;
+            }
+
+            sections.add(current);
+            List<String> trail = new ArrayList<>();
+            Set<String> languages = new TreeSet<>(Languages.inHeading(title(line)));
+            for (int l = 1; l < open.length; l++) {
+                if (l >= level) {
+                    open[l] = null;
+                } else if (open[l] != null) {
+                    trail.add(open[l]);
+                    languages.addAll(Languages.inHeading(title(open[l])));
+                }
+            }
+            open[level] = line.strip();
+            current = new Section(trail, line.strip(), languages);
+        }
+        sections.add(current);
+        sections.removeIf(section -> section.heading == null && !section.hasBody());
+        return sections;
+    }
+
+    private static boolean isFence(String line) {
+        String stripped = line.strip();
+        return stripped.startsWith("```") || stripped.startsWith("~~~");
+    }
+
+    private static int headingLevel(String line) {
+        int level = 0;
+        while (level < line.length() && line.charAt(level) == '#') {
+            level++;
+        }
+        boolean spaced = level < line.length() && line.charAt(level) == ' ';
+        return level >= 1 && level <= 6 && spaced ? level : 0;
+    }
+
+    private static String title(String heading) {
+        return heading.replaceFirst("^#+\\s*", "").strip();
+    }
+
+    private static String languages(String value, Document document) {
+        Set<String> ids = new TreeSet<>();
+        for (String name : value.replaceAll("[\\[\\]\"']", "").split(",")) {
+            String id = Languages.ofName(name);
+            if (id != null) {
+                ids.add(id);
+            } else if (!name.isBlank()) {
+                log.warn("Ignoring unknown language '{}' in the front matter of {}", name.strip(),
+                        document.metadata().getString("filename"));
+            }
+        }
+        return ids.isEmpty() || ids.contains(Languages.ANY) ? Languages.ANY : String.join(",", ids);
+    }
+
+    static String slug(String text) {
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+    }
+
+    private static final class Section {
+        final List<String> trail;
+        final String heading;
+        final Set<String> languages;
+        final List<String> body = new ArrayList<>();
+
+        Section(List<String> trail, String heading, Set<String> languages) {
+            this.trail = trail;
+            this.heading = heading;
+            this.languages = languages;
+        }
+
+        boolean hasBody() {
+            return body.stream().anyMatch(line -> !line.isBlank());
+        }
+
+        String prefix() {
+            return trail.isEmpty() ? "" : String.join("\n", trail) + "\n";
+        }
+
+        /** Heading and body with surrounding blank lines removed. */
+        String block() {
+            int from = 0;
+            int to = body.size();
+            while (from < to && body.get(from).isBlank()) {
+                from++;
+            }
+            while (to > from && body.get(to - 1).isBlank()) {
+                to--;
+            }
+            String text = String.join("\n", body.subList(from, to));
+            if (heading == null) {
+                return text;
+            }
+            return text.isEmpty() ? heading : heading + "\n" + text;
+        }
+    }
+
+    private static final class Chunk {
+        final Section first;
+        final String languages;
+        final StringBuilder text;
+        boolean hasBody;
+
+        Chunk(Section first, String languages, String text) {
+            this.first = first;
+            this.languages = languages;
+            this.text = new StringBuilder(text);
+            this.hasBody = first.hasBody();
+        }
+
+        void append(String block, boolean body) {
+            text.append("\n\n").append(block);
+            hasBody |= body;
+        }
+    }
+}
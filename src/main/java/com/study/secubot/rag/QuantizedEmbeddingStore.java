@@ -0,0 +1,451 @@
+package com.study.secubot.rag;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+
+/**
+ * Embedding store that keeps vectors off-heap in one contiguous block.
+ *
+ * <p>
+ * Each vector is L2-normalized and stored twice: as int8 codes with a per-vector
+ * scale (used for the full scan) and as float32 (used to re-score the
+ * shortlist exactly). A search scans all int8 codes with {@link Int8DotProduct},
+ * keeps the best {@code 4 * maxResults} candidates in a primitive min-heap, and
+ * then re-ranks only those with the exact float cosine. Scores are reported on
+ * the same scale as langchain4j's {@code InMemoryEmbeddingStore}.
+ *
+ * <p>
+ * Removal only marks entries. Marked entries are compacted away before the
+ * buffers grow and once they make up more than half of the entries, so
+ * replacing guidelines does not grow the store without bound. A direct buffer
+ * holds at most 2 GB, which caps the float32 copy at
+ * {@link #maxCapacity(int)} vectors.
+ */
+public class QuantizedEmbeddingStore implements EmbeddingStore<TextSegment> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int SHORTLIST_FACTOR = 4;
+    private static final int MIN_SHORTLIST = 32;
+    // Vectors copied from off-heap into the scan buffer at a time
+    private static final int SCAN_BLOCK = 256;
+    // Compact once more than this fraction of entries is removed
+    private static final double MAX_REMOVED_FRACTION = 0.5;
+
+    private final Int8DotProduct kernel = Int8DotProduct.best();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<String> ids = new ArrayList<>();
+    private final List<TextSegment> segments = new ArrayList<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final BitSet removed = new BitSet();
+    private int dimension = -1;
+    private int size;
+    private float[] scales = new float[0];
+    private ByteBuffer codes;
+    private ByteBuffer floats;
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        addAll(List.of(id), List.of(embedding), null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment segment) {
+        String id = UUID.randomUUID().toString();
+        addAll(List.of(id), List.of(embedding), List.of(segment));
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> newIds = generateIds(embeddings.size());
+        addAll(newIds, embeddings, null);
+        return newIds;
+    }
+
+    @Override
+    public void addAll(List<String> newIds, List<Embedding> embeddings, List<TextSegment> embedded) {
+        if (embedded != null && embedded.size() != embeddings.size()) {
+            throw new IllegalArgumentException("embeddings and segments must have the same size");
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < embeddings.size(); i++) {
+                float[] vector = embeddings.get(i).vector();
+                if (dimension < 0) {
+                    allocate(vector.length, Math.max(INITIAL_CAPACITY, embeddings.size()));
+                } else if (vector.length != dimension) {
+                    throw new IllegalArgumentException(
+                            "Expected dimension " + dimension + " but got " + vector.length);
+                }
+                ensureCapacity(size + 1);
+                write(size, vector);
+                ids.add(newIds.get(i));
+                segments.add(embedded == null ? null : embedded.get(i));
+                positions.put(newIds.get(i), size);
+                size++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> idsToRemove) {
+        lock.writeLock().lock();
+        try {
+            for (String id : idsToRemove) {
+                Integer position = positions.remove(id);
+                if (position != null) {
+                    removed.set(position);
+                }
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < size; i++) {
+                TextSegment segment = segments.get(i);
+                if (!removed.get(i) && segment != null && filter.test(segment.metadata())) {
+                    removed.set(i);
+                    positions.remove(ids.get(i));
+                }
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < size; i++) {
+                removed.set(i);
+            }
+            positions.clear();
+            compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        lock.readLock().lock();
+        try {
+            if (size == 0) {
+                return new EmbeddingSearchResult<>(List.of());
+            }
+
+            float[] query = normalize(request.queryEmbedding().vector());
+            byte[] queryCodes = new byte[dimension];
+            float queryScale = quantize(query, queryCodes);
+            Filter filter = request.filter();
+
+            // Pass 1: approximate int8 scan into a bounded min-heap
+            int shortlist = Math.max(request.maxResults() * SHORTLIST_FACTOR, MIN_SHORTLIST);
+            TopK top = new TopK(shortlist);
+            byte[] block = new byte[SCAN_BLOCK * dimension];
+            for (int start = 0; start < size; start += SCAN_BLOCK) {
+                int count = Math.min(SCAN_BLOCK, size - start);
+                codes.get(start * dimension, block, 0, count * dimension);
+                for (int j = 0; j < count; j++) {
+                    int index = start + j;
+                    if (removed.get(index) || !matches(filter, index)) {
+                        continue;
+                    }
+                    int dot = kernel.dot(queryCodes, block, j * dimension, dimension);
+                    top.offer(dot * queryScale * scales[index], index);
+                }
+            }
+
+            // Pass 2: exact float re-scoring of the shortlist only
+            TopK exact = new TopK(request.maxResults());
+            for (int n = 0; n < top.size; n++) {
+                int index = top.indexes[n];
+                double cosine = exactDot(query, index);
+                if (RelevanceScore.fromCosineSimilarity(cosine) >= request.minScore()) {
+                    exact.offer((float) cosine, index);
+                }
+            }
+
+            int[] order = exact.sortedDescending();
+            List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(order.length);
+            for (int index : order) {
+                matches.add(new EmbeddingMatch<>(RelevanceScore.fromCosineSimilarity(exactDot(query, index)),
+                        ids.get(index), Embedding.from(readFloats(index)), segments.get(index)));
+            }
+            return new EmbeddingSearchResult<>(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size - removed.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean matches(Filter filter, int index) {
+        if (filter == null) {
+            return true;
+        }
+        TextSegment segment = segments.get(index);
+        return segment != null && filter.test(segment.metadata());
+    }
+
+    /**
+     * Largest number of vectors of {@code dimension} floats whose float32 copy
+     * fits in one direct buffer.
+     */
+    static int maxCapacity(int dimension) {
+        return Integer.MAX_VALUE / (dimension * Float.BYTES);
+    }
+
+    int capacity() {
+        return scales.length;
+    }
+
+    private void allocate(int dim, int capacity) {
+        dimension = dim;
+        int bounded = Math.min(capacity, maxCapacity(dim));
+        codes = ByteBuffer.allocateDirect(bounded * dim);
+        floats = ByteBuffer.allocateDirect(Math.multiplyExact(bounded * dim, Float.BYTES))
+                .order(ByteOrder.nativeOrder());
+        scales = new float[bounded];
+    }
+
+    private void ensureCapacity(int needed) {
+        int capacity = scales.length;
+        if (needed <= capacity) {
+            return;
+        }
+        // Reuse removed slots before growing
+        if (!removed.isEmpty()) {
+            compact();
+            if (size + 1 <= capacity) {
+                return;
+            }
+            needed = size + 1;
+        }
+        int max = maxCapacity(dimension);
+        if (needed > max) {
+            throw new IllegalStateException("Store is full: " + max + " vectors of dimension " + dimension);
+        }
+        int newCapacity = (int) Math.min(max, Math.max(needed, 2L * capacity));
+        ByteBuffer newCodes = ByteBuffer.allocateDirect(newCapacity * dimension);
+        newCodes.put(0, codes, 0, size * dimension);
+        ByteBuffer newFloats = ByteBuffer.allocateDirect(Math.multiplyExact(newCapacity * dimension, Float.BYTES))
+                .order(ByteOrder.nativeOrder());
+        newFloats.put(0, floats, 0, size * dimension * Float.BYTES);
+        codes = newCodes;
+        floats = newFloats;
+        scales = Arrays.copyOf(scales, newCapacity);
+    }
+
+    private void compactIfSparse() {
+        if (removed.cardinality() > size * MAX_REMOVED_FRACTION) {
+            compact();
+        }
+    }
+
+    /**
+     * Moves the live entries to the front in their current order and forgets
+     * the removed ones. Capacity is kept.
+     */
+    private void compact() {
+        if (removed.isEmpty()) {
+            return;
+        }
+        byte[] row = new byte[dimension];
+        float[] vector = new float[dimension];
+        int live = 0;
+        for (int i = 0; i < size; i++) {
+            if (removed.get(i)) {
+                continue;
+            }
+            if (live != i) {
+                codes.get(i * dimension, row);
+                codes.put(live * dimension, row);
+                floats.asFloatBuffer().get(i * dimension, vector);
+                floats.asFloatBuffer().put(live * dimension, vector);
+                scales[live] = scales[i];
+                ids.set(live, ids.get(i));
+                segments.set(live, segments.get(i));
+                positions.put(ids.get(live), live);
+            }
+            live++;
+        }
+        ids.subList(live, size).clear();
+        segments.subList(live, size).clear();
+        size = live;
+        removed.clear();
+    }
+
+    private void write(int index, float[] vector) {
+        float[] normalized = normalize(vector);
+        byte[] quantized = new byte[dimension];
+        scales[index] = quantize(normalized, quantized);
+        codes.put(index * dimension, quantized);
+        floats.asFloatBuffer().put(index * dimension, normalized);
+    }
+
+    private float[] readFloats(int index) {
+        float[] vector = new float[dimension];
+        floats.asFloatBuffer().get(index * dimension, vector);
+        return vector;
+    }
+
+    private double exactDot(float[] query, int index) {
+        float[] vector = readFloats(index);
+        double dot = 0;
+        for (int i = 0; i < dimension; i++) {
+            dot += query[i] * vector[i];
+        }
+        return dot;
+    }
+
+    /**
+     * Symmetric int8 quantization; returns the scale that maps codes back to
+     * floats.
+     */
+    private static float quantize(float[] vector, byte[] out) {
+        float maxAbs = 0;
+        for (float v : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(v));
+        }
+        float scale = maxAbs == 0 ? 1f : maxAbs / 127f;
+        for (int i = 0; i < vector.length; i++) {
+            out[i] = (byte) Math.round(vector[i] / scale);
+        }
+        return scale;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float[] out = new float[vector.length];
+        if (norm == 0) {
+            return out;
+        }
+        float inv = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            out[i] = vector[i] * inv;
+        }
+        return out;
+    }
+
+    /**
+     * Fixed-capacity min-heap of (score, index) pairs in parallel primitive
+     * arrays; the root is the weakest of the current best {@code capacity}.
+     */
+    private static class TopK {
+        final float[] scores;
+        final int[] indexes;
+        int size;
+
+        TopK(int capacity) {
+            this.scores = new float[capacity];
+            this.indexes = new int[capacity];
+        }
+
+        void offer(float score, int index) {
+            if (size < scores.length) {
+                scores[size] = score;
+                indexes[size] = index;
+                siftUp(size++);
+            } else if (score > scores[0]) {
+                scores[0] = score;
+                indexes[0] = index;
+                siftDown(0);
+            }
+        }
+
+        int[] sortedDescending() {
+            int[] out = new int[size];
+            for (int n = size - 1; n >= 0; n--) {
+                out[n] = indexes[0];
+                size--;
+                scores[0] = scores[size];
+                indexes[0] = indexes[size];
+                siftDown(0);
+            }
+            return out;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= scores[i]) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) {
+                    return;
+                }
+                int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+                if (scores[i] <= scores[smallest]) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            float s = scores[a];
+            scores[a] = scores[b];
+            scores[b] = s;
+            int x = indexes[a];
+            indexes[a] = indexes[b];
+            indexes[b] = x;
+        }
+    }
+}
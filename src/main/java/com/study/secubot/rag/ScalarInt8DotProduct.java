@@ -0,0 +1,13 @@
+package com.study.secubot.rag;
+
+class ScalarInt8DotProduct implements Int8DotProduct {
+
+    @Override
+    public int dot(byte[] query, byte[] block, int offset, int dimension) {
+        int sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += query[i] * block[offset + i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,7 @@
+package com.study.secubot.rag;
+
+/**
+ * A retrieved knowledge-base text with its relevance score (higher is better).
+ */
+public record ScoredDocument(String text, double score) {
+}
@@ -1,69 +1,95 @@
 package com.study.secubot.rag;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-public class SimpleKeywordRetriever {
-
-    private final Map<String, String> knowledgeBase;
+import org.springframework.stereotype.Component;
 
-    public SimpleKeywordRetriever(Map<String, String> knowledgeBase) {
-        this.knowledgeBase = knowledgeBase;
-    }
+/**
+ * Lexical retrieval over the knowledge base.
+ *
+ * <p>
+ * The diff is scanned once with an {@link AhoCorasick} automaton over a
+ * curated list of security-relevant API names and keywords. Every keyword
+ * found becomes a query term, together with the vocabulary of the category it
+ * belongs to, and the query is run against a BM25 index of the knowledge-base
+ * segments. This finds guidelines for exact identifiers such as
+ * {@code printStackTrace} or {@code innerHTML} that embeddings tend to blur.
+ * The retriever holds no index of its own; each call searches the one of the
+ * snapshot being reviewed against.
+ */
+@Component
+public class SimpleKeywordRetriever {
 
-    public List<String> retrieve(String codeDiff) {
-        List<String> relevantDocs = new ArrayList<>();
+    // Keyword -> terms describing its category in the guidelines
+    private static final Map<String, String> KEYWORDS = Map.ofEntries(
+            // SQL injection
+            Map.entry("select ", "sql injection query preparedstatement parameterized"),
+            Map.entry("insert into", "sql injection query preparedstatement parameterized"),
+            Map.entry("delete from", "sql injection query preparedstatement parameterized"),
+            Map.entry("update ", "sql injection query preparedstatement parameterized"),
+            Map.entry("concat", "sql injection query preparedstatement parameterized"),
+            Map.entry("createstatement", "sql injection statement preparedstatement"),
+            Map.entry("executequery", "sql injection statement preparedstatement"),
+            Map.entry("executeupdate", "sql injection statement preparedstatement"),
+            Map.entry("createnativequery", "sql injection query parameterized"),
+            // XSS
+            Map.entry("request.getparameter", "xss input encode output escape"),
+            Map.entry("response.getwriter", "xss encode output escape"),
+            Map.entry("innerhtml", "xss innerhtml encode escape dom"),
+            Map.entry("document.write", "xss encode escape dom"),
+            Map.entry("th:utext", "xss encode escape template"),
+            Map.entry("redirect", "xss redirect validate"),
+            // Sensitive data exposure
+            Map.entry("apikey", "sensitive secret hardcoded key credentials"),
+            Map.entry("api_key", "sensitive secret hardcoded key credentials"),
+            Map.entry("password", "sensitive secret password credentials"),
+            Map.entry("secret", "sensitive secret hardcoded credentials"),
+            Map.entry("token", "sensitive secret token credentials"),
+            Map.entry("printstacktrace", "sensitive exception stack trace logging"),
+            Map.entry("log.info", "sensitive logging"),
+            Map.entry("log.debug", "sensitive logging"),
+            // GDPR / personal data
+            Map.entry("email", "gdpr personal data encryption pii"),
+            Map.entry("phone", "gdpr personal data encryption pii"),
+            Map.entry("ssn", "gdpr personal data encryption pii"),
+            Map.entry("address", "gdpr personal data encryption pii"),
+            Map.entry("birth", "gdpr personal data encryption pii"));
 
-        // Naive implementation for PoC:
-        // Check for specific keywords associated with known vulnerabilities.
-        // In a real system, this would be a vector search or a more sophisticated
-        // keyword mapping.
+    private final AhoCorasick matcher = new AhoCorasick(new ArrayList<>(KEYWORDS.keySet()));
 
-        if (containsSqlInjectionKeywords(codeDiff)) {
-            addDocIfPresent(relevantDocs, "SQL_Injection_Prevention.md");
+    /**
+     * Ranks the segments of {@code index}, the BM25 index of a
+     * {@link KnowledgeSnapshot}, for the given texts (typically one per hunk),
+     * best score first. Returns nothing when no keyword matched.
+     */
+    public List<ScoredDocument> retrieve(List<String> texts, int limit, Bm25Index index) {
+        if (index.isEmpty()) {
+            return List.of();
         }
-        if (containsXssKeywords(codeDiff)) {
-            addDocIfPresent(relevantDocs, "XSS_Prevention.md");
-        }
-        if (containsSensitveDataKeywords(codeDiff)) {
-            addDocIfPresent(relevantDocs, "Sensitive_Data_Exposure.md");
-        }
-        if (containsGdprKeywords(codeDiff)) {
-            addDocIfPresent(relevantDocs, "GDPR_Personal_Data_Encryption.md");
-        }
-
-        return relevantDocs;
+        List<String> terms = queryTerms(texts);
+        return terms.isEmpty() ? List.of() : index.search(terms, limit);
     }
 
-    private void addDocIfPresent(List<String> docs, String filename) {
-        String doc = knowledgeBase.get(filename);
-        if (doc != null) {
-            docs.add(doc);
+    List<String> queryTerms(List<String> texts) {
+        AhoCorasick.Scanner scanner = matcher.scanner();
+        for (String text : texts) {
+            // Separator keeps keywords from matching across two texts
+            scanner.feed(text).feed("\n");
         }
-    }
-
-    private boolean containsSqlInjectionKeywords(String codeDiff) {
-        String lowerDiff = codeDiff.toLowerCase();
-        return (lowerDiff.contains("select") || lowerDiff.contains("insert") || lowerDiff.contains("update"))
-                && (lowerDiff.contains("+") || lowerDiff.contains("concat"));
-    }
-
-    private boolean containsXssKeywords(String codeDiff) {
-        String lowerDiff = codeDiff.toLowerCase();
-        return lowerDiff.contains("request.getparameter") || lowerDiff.contains("response.getwriter")
-                || lowerDiff.contains("innerhtml") || lowerDiff.contains("redirect");
-    }
-
-    private boolean containsSensitveDataKeywords(String codeDiff) {
-        String lowerDiff = codeDiff.toLowerCase();
-        return lowerDiff.contains("apikey") || lowerDiff.contains("password") || lowerDiff.contains("secret")
-                || lowerDiff.contains("token") || lowerDiff.contains("printstacktrace");
-    }
 
-    private boolean containsGdprKeywords(String codeDiff) {
-        String lowerDiff = codeDiff.toLowerCase();
-        return lowerDiff.contains("email") || lowerDiff.contains("phone") || lowerDiff.contains("ssn")
-                || lowerDiff.contains("user") || lowerDiff.contains("address");
+        int[] counts = scanner.counts();
+        Set<String> terms = new LinkedHashSet<>();
+        for (int k = 0; k < counts.length; k++) {
+            if (counts[k] > 0) {
+                String keyword = matcher.keywords().get(k);
+                terms.addAll(Bm25Index.tokenize(keyword));
+                terms.addAll(Bm25Index.tokenize(KEYWORDS.get(keyword)));
+            }
+        }
+        return new ArrayList<>(terms);
     }
 }
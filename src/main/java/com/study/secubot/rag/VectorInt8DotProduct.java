@@ -0,0 +1,37 @@
+package com.study.secubot.rag;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Widens int8 lanes to int32 and accumulates with the platform's preferred
+ * vector width (8 lanes on AVX2, 16 on AVX-512).
+ */
+class VectorInt8DotProduct implements Int8DotProduct {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = VectorSpecies.of(byte.class,
+            VectorShape.forBitSize(INTS.length() * Byte.SIZE));
+
+    @Override
+    public int dot(byte[] query, byte[] block, int offset, int dimension) {
+        IntVector acc = IntVector.zero(INTS);
+        int step = BYTES.length();
+        int i = 0;
+        for (int bound = BYTES.loopBound(dimension); i < bound; i += step) {
+            IntVector q = (IntVector) ByteVector.fromArray(BYTES, query, i)
+                    .convertShape(VectorOperators.B2I, INTS, 0);
+            IntVector v = (IntVector) ByteVector.fromArray(BYTES, block, offset + i)
+                    .convertShape(VectorOperators.B2I, INTS, 0);
+            acc = acc.add(q.mul(v));
+        }
+        int sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < dimension; i++) {
+            sum += query[i] * block[offset + i];
+        }
+        return sum;
+    }
+}
@@ -1,42 +1,236 @@
 package com.study.secubot.rag;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import com.study.secubot.metrics.Stages;
+
 import dev.langchain4j.data.embedding.Embedding;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.store.embedding.EmbeddingMatch;
 import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
 import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.MetadataFilterBuilder;
 
 @Component
 public class VectorStoreRetriever {
 
-    private final EmbeddingStore<TextSegment> embeddingStore;
+    // Candidates fetched per query before fusion and diversity selection
+    private static final int CANDIDATES_PER_QUERY = 10;
+    // Score bonus for every additional query that retrieved the same segment
+    private static final double MULTI_HIT_BONUS = 0.05;
+    // MMR trade-off between relevance (1.0) and diversity (0.0)
+    private static final double MMR_LAMBDA = 0.7;
+
+    private final KnowledgeBase knowledgeBase;
     private final EmbeddingModel embeddingModel;
 
     @Value("${secubot.rag.max-results:3}")
     private int maxResults;
 
-    public VectorStoreRetriever(EmbeddingStore<TextSegment> embeddingStore, EmbeddingModel embeddingModel) {
-        this.embeddingStore = embeddingStore;
+    public VectorStoreRetriever(KnowledgeBase knowledgeBase, @Lazy EmbeddingModel embeddingModel) {
+        this.knowledgeBase = knowledgeBase;
         this.embeddingModel = embeddingModel;
     }
 
+    public int maxResults() {
+        return maxResults;
+    }
+
+    /**
+     * The knowledge base as currently loaded; pass it to
+     * {@link #retrieveAll(List, Filter, KnowledgeSnapshot)} to search one
+     * consistent state across several calls.
+     */
+    public KnowledgeSnapshot snapshot() {
+        return knowledgeBase.current();
+    }
+
     public List<String> retrieve(String query) {
-        Embedding queryEmbedding = embeddingModel.embed(query).content();
-        List<EmbeddingMatch<TextSegment>> relevant = embeddingStore.search(
+        return retrieveScored(query).stream()
+                .map(ScoredDocument::text)
+                .collect(Collectors.toList());
+    }
+
+    public List<ScoredDocument> retrieveScored(String query) {
+        Embedding queryEmbedding = Stages.time(Stages.EMBED, () -> embeddingModel.embed(query).content());
+        List<EmbeddingMatch<TextSegment>> relevant = knowledgeBase.current().store().search(
                 EmbeddingSearchRequest.builder()
                         .queryEmbedding(queryEmbedding)
                         .maxResults(maxResults)
                         .build())
                 .matches();
         return relevant.stream()
-                .map(match -> match.embedded().text())
+                .map(match -> new ScoredDocument(match.embedded().text(), match.score()))
                 .collect(Collectors.toList());
     }
+
+    public List<ScoredDocument> retrieveAll(List<String> queries) {
+        return retrieveAll(queries, null, snapshot());
+    }
+
+    /**
+     * Retrieves context for several queries (typically one per hunk) at once.
+     *
+     * <p>
+     * All queries are embedded in a single {@code embedAll} call and searched
+     * separately. Results are fused per segment (best score plus a small bonus
+     * for each further query that found it), duplicate texts are dropped, and
+     * the final {@code maxResults} are picked with maximal marginal relevance so
+     * that one topic does not crowd out the others.
+     *
+     * <p>
+     * A non-null {@code filter} (see {@link #languageFilter}) is pushed into
+     * every search so that the store skips guidelines for other languages. When
+     * nothing passes it, the queries are searched again without it.
+     */
+    public List<ScoredDocument> retrieveAll(List<String> queries, Filter filter, KnowledgeSnapshot snapshot) {
+        if (queries.isEmpty()) {
+            return List.of();
+        }
+
+        List<Embedding> queryEmbeddings;
+        if (queries.size() == 1) {
+            queryEmbeddings = List.of(Stages.time(Stages.EMBED, () -> embeddingModel.embed(queries.get(0)).content()));
+        } else {
+            List<TextSegment> querySegments = queries.stream().map(TextSegment::from).collect(Collectors.toList());
+            queryEmbeddings = Stages.time(Stages.EMBED, () -> embeddingModel.embedAll(querySegments).content());
+        }
+
+        EmbeddingStore<TextSegment> store = snapshot.store();
+        List<ScoredDocument> results = search(store, queryEmbeddings, filter);
+        if (results.isEmpty() && filter != null) {
+            results = search(store, queryEmbeddings, null);
+        }
+        return results;
+    }
+
+    private List<ScoredDocument> search(EmbeddingStore<TextSegment> store, List<Embedding> queryEmbeddings,
+            Filter filter) {
+        if (queryEmbeddings.size() == 1) {
+            return store.search(request(queryEmbeddings.get(0), maxResults, filter)).matches().stream()
+                    .map(match -> new ScoredDocument(match.embedded().text(), match.score()))
+                    .collect(Collectors.toList());
+        }
+
+        Map<String, Candidate> candidates = new LinkedHashMap<>();
+        for (Embedding queryEmbedding : queryEmbeddings) {
+            List<EmbeddingMatch<TextSegment>> matches = store.search(
+                    request(queryEmbedding, Math.max(maxResults, CANDIDATES_PER_QUERY), filter)).matches();
+            for (EmbeddingMatch<TextSegment> match : matches) {
+                // Keyed by text so identical segments from different files collapse too
+                candidates.computeIfAbsent(match.embedded().text(), text -> new Candidate(text, match.embedding()))
+                        .hit(match.score());
+            }
+        }
+
+        return selectDiverse(new ArrayList<>(candidates.values()));
+    }
+
+    private static EmbeddingSearchRequest request(Embedding queryEmbedding, int maxResults, Filter filter) {
+        return EmbeddingSearchRequest.builder()
+                .queryEmbedding(queryEmbedding)
+                .maxResults(maxResults)
+                .filter(filter)
+                .build();
+    }
+
+    /**
+     * Restricts a search to guidelines tagged for any of the languages of
+     * {@code paths} or for {@code any} language (see {@link MarkdownSplitter}).
+     * Returns {@code null}, meaning no filter, when a path has no known
+     * language, since then every guideline may apply.
+     */
+    public static Filter languageFilter(Collection<String> paths) {
+        Set<String> languages = new TreeSet<>();
+        for (String path : paths) {
+            String language = Languages.ofPath(path);
+            if (language == null) {
+                return null;
+            }
+            languages.add(language);
+        }
+        if (languages.isEmpty()) {
+            return null;
+        }
+        Filter filter = MetadataFilterBuilder.metadataKey(MarkdownSplitter.LANGUAGES).isEqualTo(Languages.ANY);
+        for (String language : languages) {
+            filter = filter.or(MetadataFilterBuilder.metadataKey(MarkdownSplitter.LANGUAGES).containsString(language));
+        }
+        return filter;
+    }
+
+    private List<ScoredDocument> selectDiverse(List<Candidate> pool) {
+        List<Candidate> selected = new ArrayList<>();
+        while (selected.size() < maxResults && !pool.isEmpty()) {
+            Candidate best = null;
+            double bestMmr = Double.NEGATIVE_INFINITY;
+            for (Candidate candidate : pool) {
+                double redundancy = 0;
+                for (Candidate chosen : selected) {
+                    redundancy = Math.max(redundancy, cosine(candidate.embedding, chosen.embedding));
+                }
+                double mmr = MMR_LAMBDA * candidate.score() - (1 - MMR_LAMBDA) * redundancy;
+                if (mmr > bestMmr) {
+                    bestMmr = mmr;
+                    best = candidate;
+                }
+            }
+            selected.add(best);
+            pool.remove(best);
+        }
+        return selected.stream()
+                .map(c -> new ScoredDocument(c.text, c.score()))
+                .collect(Collectors.toList());
+    }
+
+    private static double cosine(Embedding a, Embedding b) {
+        if (a == null || b == null) {
+            return 0;
+        }
+        float[] x = a.vector();
+        float[] y = b.vector();
+        double dot = 0;
+        double nx = 0;
+        double ny = 0;
+        for (int i = 0; i < x.length; i++) {
+            dot += x[i] * y[i];
+            nx += x[i] * x[i];
+            ny += y[i] * y[i];
+        }
+        return nx == 0 || ny == 0 ? 0 : dot / Math.sqrt(nx * ny);
+    }
+
+    private static class Candidate {
+        final String text;
+        final Embedding embedding;
+        double bestScore;
+        int hits;
+
+        Candidate(String text, Embedding embedding) {
+            this.text = text;
+            this.embedding = embedding;
+        }
+
+        void hit(double score) {
+            bestScore = Math.max(bestScore, score);
+            hits++;
+        }
+
+        double score() {
+            return bestScore + MULTI_HIT_BONUS * (hits - 1);
+        }
+    }
 }
@@ -0,0 +1,15 @@
+package com.study.secubot.scan;
+
+import com.study.secubot.core.RiskLevel;
+
+/**
+ * A rule match on an added line. {@code excerpt} is masked so that posting the
+ * finding does not leak the secret a second time.
+ */
+public record Finding(String ruleId, String description, RiskLevel severity, String path, int line,
+        String excerpt) {
+
+    public String format() {
+        return "[" + severity + "] " + description + " (`" + path + ":" + line + "`, `" + excerpt + "`)";
+    }
+}
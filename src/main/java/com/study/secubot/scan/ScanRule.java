@@ -0,0 +1,18 @@
+package com.study.secubot.scan;
+
+import java.util.List;
+
+import com.study.secubot.core.RiskLevel;
+
+/**
+ * One scanner rule as read from the rules file.
+ *
+ * @param keywords   case-insensitive literals of which at least one must occur
+ *                   on a line before {@code pattern} is tried; empty to always
+ *                   try it
+ * @param minEntropy minimum Shannon entropy (bits per char) of the longest
+ *                   token-like run in the match, or 0 to accept every match
+ */
+public record ScanRule(String id, String description, RiskLevel severity, List<String> keywords, String pattern,
+        double minEntropy) {
+}
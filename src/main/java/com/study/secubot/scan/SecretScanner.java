@@ -0,0 +1,218 @@
+package com.study.secubot.scan;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.secubot.core.DiffFile;
+import com.study.secubot.core.DiffHunk;
+import com.study.secubot.core.DiffLine;
+import com.study.secubot.core.RiskLevel;
+import com.study.secubot.rag.AhoCorasick;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deterministic secret and pattern scan over the added lines of a diff, run
+ * before any LLM call.
+ *
+ * <p>
+ * The keywords of all rules are compiled into one {@link AhoCorasick}
+ * automaton that reads each added line once. Only rules whose keywords occur
+ * on the line have their regex tried, so the cost of a line without any
+ * candidate is a single DFA pass regardless of the number of rules. Rules with
+ * a {@code minEntropy} drop matches whose secret part looks like a placeholder
+ * ({@code "changeme123"}) rather than generated key material.
+ */
+@Component
+@Slf4j
+public class SecretScanner {
+
+    private static final Pattern SECRET_RUN = Pattern.compile("[A-Za-z0-9+/=_\\-]{8,}");
+
+    private final List<ScanRule> rules;
+    private final Pattern[] patterns;
+    private final AhoCorasick keywords;
+    // Rule index for each keyword of the automaton
+    private final int[] keywordRule;
+    // Rules without keywords, tried on every line
+    private final int[] unconditional;
+
+    @Autowired
+    public SecretScanner(
+            @Value("${secubot.scanner.rules-path:${secubot.knowledge-base.path:knowledge-base}/scanner-rules.json}") String rulesPath)
+            throws IOException {
+        this(loadRules(Paths.get(rulesPath)));
+    }
+
+    public SecretScanner(List<ScanRule> rules) {
+        this.rules = List.copyOf(rules);
+        this.patterns = new Pattern[this.rules.size()];
+        List<String> allKeywords = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        List<Integer> always = new ArrayList<>();
+        for (int r = 0; r < this.rules.size(); r++) {
+            ScanRule rule = this.rules.get(r);
+            try {
+                patterns[r] = Pattern.compile(rule.pattern());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid pattern in scanner rule " + rule.id(), e);
+            }
+            if (rule.keywords().isEmpty()) {
+                always.add(r);
+            }
+            for (String keyword : rule.keywords()) {
+                allKeywords.add(keyword);
+                owners.add(r);
+            }
+        }
+        this.keywords = new AhoCorasick(allKeywords);
+        this.keywordRule = owners.stream().mapToInt(Integer::intValue).toArray();
+        this.unconditional = always.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public List<ScanRule> rules() {
+        return rules;
+    }
+
+    /**
+     * Returns every finding on an added line, in diff order.
+     */
+    public List<Finding> scan(List<DiffFile> files) {
+        List<Finding> findings = new ArrayList<>();
+        if (rules.isEmpty()) {
+            return findings;
+        }
+        AhoCorasick.Scanner automaton = keywords.scanner();
+        boolean[] candidates = new boolean[rules.size()];
+        for (DiffFile file : files) {
+            for (DiffHunk hunk : file.hunks()) {
+                for (DiffLine line : hunk.lines()) {
+                    if (line.type() == DiffLine.Type.ADDED) {
+                        scanLine(line.text(), automaton, candidates, file.path(), line.newLine(), findings);
+                    }
+                }
+            }
+        }
+        return findings;
+    }
+
+    private void scanLine(String text, AhoCorasick.Scanner automaton, boolean[] candidates, String path,
+            int lineNumber, List<Finding> findings) {
+        int[] counts = automaton.reset().feed(text).counts();
+        boolean any = unconditional.length > 0;
+        for (int k = 0; k < counts.length; k++) {
+            if (counts[k] > 0) {
+                candidates[keywordRule[k]] = true;
+                any = true;
+            }
+        }
+        if (!any) {
+            return;
+        }
+        for (int r : unconditional) {
+            candidates[r] = true;
+        }
+
+        for (int r = 0; r < rules.size(); r++) {
+            if (!candidates[r]) {
+                continue;
+            }
+            candidates[r] = false;
+            ScanRule rule = rules.get(r);
+            Matcher matcher = patterns[r].matcher(text);
+            while (matcher.find()) {
+                String match = matcher.group();
+                if (rule.minEntropy() <= 0 || entropy(longestRun(match)) >= rule.minEntropy()) {
+                    findings.add(new Finding(rule.id(), rule.description(), rule.severity(), path, lineNumber,
+                            mask(match)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Shannon entropy in bits per character.
+     */
+    static double entropy(String s) {
+        if (s.isEmpty()) {
+            return 0;
+        }
+        int[] counts = new int[128];
+        int other = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 128) {
+                counts[c]++;
+            } else {
+                other++;
+            }
+        }
+        double entropy = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                double p = (double) count / s.length();
+                entropy -= p * Math.log(p) / Math.log(2);
+            }
+        }
+        if (other > 0) {
+            double p = (double) other / s.length();
+            entropy -= p * Math.log(p) / Math.log(2);
+        }
+        return entropy;
+    }
+
+    private static String longestRun(String match) {
+        String longest = match;
+        int best = -1;
+        Matcher run = SECRET_RUN.matcher(match);
+        while (run.find()) {
+            if (run.end() - run.start() > best) {
+                best = run.end() - run.start();
+                longest = run.group();
+            }
+        }
+        return longest;
+    }
+
+    private static String mask(String match) {
+        return match.length() <= 8 ? "****" : match.substring(0, 6) + "****";
+    }
+
+    static List<ScanRule> loadRules(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            log.warn("Scanner rules not found at {}; secret scanning is disabled", file);
+            return List.of();
+        }
+        JsonNode root = new ObjectMapper().readTree(file.toFile());
+        List<ScanRule> rules = new ArrayList<>();
+        for (JsonNode node : root.path("rules")) {
+            rules.add(new ScanRule(
+                    node.path("id").asText(),
+                    node.path("description").asText(node.path("id").asText()),
+                    RiskLevel.of(node.path("severity").asText("HIGH")),
+                    keywords(node.path("keywords")),
+                    node.path("pattern").asText(),
+                    node.path("minEntropy").asDouble(0)));
+        }
+        log.info("Loaded {} scanner rule(s) from {}", rules.size(), file);
+        return rules;
+    }
+
+    private static List<String> keywords(JsonNode array) {
+        List<String> keywords = new ArrayList<>();
+        array.forEach(node -> keywords.add(node.asText()));
+        return keywords;
+    }
+}
@@ -0,0 +1,132 @@
+package com.study.secubot.server;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.study.secubot.PullRequestReviewer;
+import com.study.secubot.rag.KnowledgeBaseLoader;
+import com.study.secubot.rag.KnowledgeBaseWatcher;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine.Command;
+
+/**
+ * {@code secubot serve}: loads the knowledge base and reviews pull requests
+ * delivered by webhook until the process is terminated. Guideline edits are
+ * picked up without a restart unless {@code secubot.knowledge-base.watch} is
+ * false.
+ *
+ * <p>
+ * On shutdown the server is drained from {@link #stop()}. Spring calls it when
+ * its shutdown hook closes the context and before any bean is destroyed, so
+ * running reviews keep their GitHub and LLM clients until they finish. The
+ * command itself never returns: the JVM exits once the hook has closed the
+ * context, and the main thread would otherwise race it to close the context.
+ */
+@Component
+@Command(name = "serve", mixinStandardHelpOptions = true, description = "Run as a webhook server that keeps the model and index warm")
+@Slf4j
+public class ServeCommand implements Callable<Integer>, SmartLifecycle {
+
+    private final PullRequestReviewer reviewer;
+    private final KnowledgeBaseLoader kbLoader;
+    private final KnowledgeBaseWatcher kbWatcher;
+    private final boolean watchKnowledgeBase;
+    private final PrometheusMeterRegistry metrics;
+    private final int port;
+    private final int workers;
+    private final int queueCapacity;
+    private final String webhookSecret;
+    private final Duration drainTimeout;
+    private volatile WebhookServer server;
+    private volatile boolean running;
+
+    public ServeCommand(PullRequestReviewer reviewer, KnowledgeBaseLoader kbLoader, KnowledgeBaseWatcher kbWatcher,
+            PrometheusMeterRegistry metrics,
+            @Value("${secubot.knowledge-base.watch:true}") boolean watchKnowledgeBase,
+            @Value("${secubot.server.port:8080}") int port,
+            @Value("${secubot.server.workers:2}") int workers,
+            @Value("${secubot.server.queue-capacity:32}") int queueCapacity,
+            @Value("${secubot.server.webhook-secret:}") String webhookSecret,
+            @Value("${secubot.server.drain-timeout-seconds:300}") long drainTimeoutSeconds) {
+        this.reviewer = reviewer;
+        this.kbLoader = kbLoader;
+        this.kbWatcher = kbWatcher;
+        this.watchKnowledgeBase = watchKnowledgeBase;
+        this.metrics = metrics;
+        this.port = port;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.webhookSecret = webhookSecret;
+        this.drainTimeout = Duration.ofSeconds(drainTimeoutSeconds);
+    }
+
+    @Override
+    public Integer call() {
+        try {
+            kbLoader.load();
+        } catch (IOException e) {
+            log.error("Failed to load knowledge base: " + e.getMessage());
+            return 1;
+        }
+        if (watchKnowledgeBase) {
+            try {
+                kbWatcher.start();
+            } catch (IOException e) {
+                log.warn("Knowledge base changes will need a restart: " + e.getMessage());
+            }
+        }
+
+        try {
+            server = new WebhookServer(port, workers, queueCapacity, webhookSecret, reviewer, metrics);
+        } catch (IOException e) {
+            log.error("Failed to start webhook server: " + e.getMessage());
+            return 1;
+        }
+        if (webhookSecret.isEmpty()) {
+            log.warn("secubot.server.webhook-secret is not set; webhook signatures are not verified");
+        }
+
+        server.start();
+        running = true;
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+
+    /**
+     * Nothing to do: the server starts when the command runs.
+     */
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            kbWatcher.close();
+        } catch (IOException e) {
+            log.warn("Failed to stop knowledge base watcher: " + e.getMessage());
+        }
+        try {
+            server.drain(drainTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,258 @@
+package com.study.secubot.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.secubot.PullRequestReviewer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Minimal HTTP front end for running SecuBot as a long-lived service.
+ *
+ * <ul>
+ * <li>{@code POST /webhook} accepts GitHub {@code pull_request} deliveries and
+ * queues a review. Reviews run on a fixed pool with a bounded queue; when the
+ * queue is full the delivery is answered with 503 and {@code Retry-After} so
+ * GitHub (or a proxy) retries later instead of piling up work.</li>
+ * <li>{@code GET /health} reports queue state, or 503 while draining.</li>
+ * <li>{@code GET /metrics} is the Prometheus scrape endpoint: stage timers,
+ * sizes and the GitHub and LLM counters of every review this process ran.</li>
+ * </ul>
+ *
+ * {@link #drain(Duration)} stops accepting deliveries, lets queued and running
+ * reviews finish within the timeout and then closes the listener.
+ */
+@Slf4j
+public class WebhookServer {
+
+    private static final int MAX_BODY_BYTES = 5 * 1024 * 1024;
+    private static final int RETRY_AFTER_SECONDS = 30;
+    private static final Set<String> REVIEWED_ACTIONS = Set.of("opened", "synchronize", "reopened",
+            "ready_for_review");
+
+    private final PullRequestReviewer reviewer;
+    private final PrometheusMeterRegistry metrics;
+    private final byte[] webhookSecret;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService httpExecutor;
+    private final ThreadPoolExecutor workers;
+    // PR URLs queued but not yet started; a second delivery for the same PR is coalesced
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile boolean draining;
+
+    public WebhookServer(int port, int workerThreads, int queueCapacity, String webhookSecret,
+            PullRequestReviewer reviewer, PrometheusMeterRegistry metrics) throws IOException {
+        this.reviewer = reviewer;
+        this.metrics = metrics;
+        this.webhookSecret = webhookSecret == null || webhookSecret.isEmpty()
+                ? null
+                : webhookSecret.getBytes(StandardCharsets.UTF_8);
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> new Thread(r, "review-worker-" + threadIds.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.httpExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(httpExecutor);
+        server.createContext("/health", this::handleHealth);
+        server.createContext("/webhook", this::handleWebhook);
+        if (metrics != null) {
+            server.createContext("/metrics", this::handleMetrics);
+        }
+    }
+
+    public void start() {
+        server.start();
+        log.info("Webhook server listening on port {} ({} worker(s), queue capacity {})", port(),
+                workers.getCorePoolSize(), workers.getQueue().remainingCapacity());
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting deliveries and waits up to {@code timeout} for queued and
+     * running reviews. Returns true when everything finished in time.
+     */
+    public boolean drain(Duration timeout) throws InterruptedException {
+        draining = true;
+        log.info("Draining: {} running, {} queued", workers.getActiveCount(), workers.getQueue().size());
+        workers.shutdown();
+        boolean drained = workers.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (!drained) {
+            log.warn("Drain timed out; interrupting {} review(s)", workers.getActiveCount());
+            workers.shutdownNow();
+        }
+        server.stop(0);
+        httpExecutor.shutdown();
+        return drained;
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        Map<String, Object> status = Map.of(
+                "status", draining ? "DRAINING" : "UP",
+                "active", workers.getActiveCount(),
+                "queued", workers.getQueue().size(),
+                "completed", completed.get(),
+                "failed", failed.get(),
+                "rejected", rejected.get());
+        respond(exchange, draining ? 503 : 200, mapper.writeValueAsBytes(status));
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", TextFormat.CONTENT_TYPE_004);
+        respond(exchange, 200, metrics.scrape().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handleWebhook(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Method not allowed");
+                return;
+            }
+            if (draining) {
+                respond(exchange, 503, "Draining");
+                return;
+            }
+
+            byte[] body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                respond(exchange, 413, "Payload too large");
+                return;
+            }
+            if (!signatureValid(exchange.getRequestHeaders().getFirst("X-Hub-Signature-256"), body)) {
+                respond(exchange, 401, "Invalid signature");
+                return;
+            }
+
+            String event = exchange.getRequestHeaders().getFirst("X-GitHub-Event");
+            if ("ping".equals(event)) {
+                respond(exchange, 200, "pong");
+                return;
+            }
+
+            JsonNode payload;
+            try {
+                payload = mapper.readTree(body);
+            } catch (IOException e) {
+                respond(exchange, 400, "Malformed JSON");
+                return;
+            }
+            String action = payload.path("action").asText("");
+            String prUrl = PullRequestReviewer.prUrlFromEvent(payload);
+            if (prUrl == null || (event != null && !"pull_request".equals(event))
+                    || !REVIEWED_ACTIONS.contains(action)) {
+                respond(exchange, 202, "Ignored");
+                return;
+            }
+
+            if (!pending.add(prUrl)) {
+                respond(exchange, 202, "Already queued " + prUrl);
+            } else if (enqueue(prUrl)) {
+                respond(exchange, 202, "Queued " + prUrl);
+            } else {
+                respond(exchange, 503, "Review queue full");
+            }
+        }
+    }
+
+    private boolean enqueue(String prUrl) {
+        try {
+            workers.execute(() -> runReview(prUrl));
+            return true;
+        } catch (RejectedExecutionException e) {
+            pending.remove(prUrl);
+            rejected.incrementAndGet();
+            log.warn("Review queue full; rejecting {}", prUrl);
+            return false;
+        }
+    }
+
+    private void runReview(String prUrl) {
+        // Later deliveries for this PR queue a fresh review from here on
+        pending.remove(prUrl);
+        try {
+            reviewer.review(prUrl);
+            completed.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.error("Review of {} failed: {}", prUrl, e.getMessage());
+        }
+    }
+
+    private boolean signatureValid(String header, byte[] body) {
+        if (webhookSecret == null) {
+            return true;
+        }
+        if (header == null || !header.startsWith("sha256=")) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(webhookSecret, "HmacSHA256"));
+            byte[] expected = mac.doFinal(body);
+            byte[] actual = HexFormat.of().parseHex(header.substring("sha256=".length()));
+            return MessageDigest.isEqual(expected, actual);
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+        return body.length > MAX_BODY_BYTES ? null : body;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        respond(exchange, status, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (status == 503) {
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
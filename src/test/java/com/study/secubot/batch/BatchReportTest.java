@@ -0,0 +1,59 @@
+package com.study.secubot.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.secubot.core.ReviewEngine;
+
+class BatchReportTest {
+
+    private static final long REVIEW_MS = 200;
+
+    @Test
+    void reviewsConcurrentlyAndRecordsFailures(@TempDir Path tempDir) throws Exception {
+        List<String> urls = IntStream.range(0, 8).mapToObj(i -> "https://api.github.com/repos/acme/app/pulls/" + i)
+                .toList();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        long start = System.nanoTime();
+        BatchReport report = BatchReport.run(urls, 4, url -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(REVIEW_MS);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            if (url.endsWith("/3")) {
+                throw new IOException("404 Not Found");
+            }
+            return new ReviewEngine.ReviewResult(url.endsWith("/5") ? "HIGH" : "LOW", "summary", "");
+        });
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(4, maxInFlight.get());
+        assertTrue(elapsedMs < REVIEW_MS * 4, "batch took " + elapsedMs + " ms");
+        assertEquals(urls, report.entries().stream().map(BatchReport.Entry::url).toList());
+        assertEquals(1, report.blocking());
+        assertEquals(1, report.failed());
+
+        Path file = tempDir.resolve("out/report.json");
+        report.write(file);
+        JsonNode json = new ObjectMapper().readTree(file.toFile());
+        assertEquals(8, json.path("total").asInt());
+        assertEquals(6, json.path("risk_counts").path("LOW").asInt());
+        assertEquals("UNKNOWN", json.path("pull_requests").get(3).path("risk_level").asText());
+        assertEquals("IOException: 404 Not Found", json.path("pull_requests").get(3).path("error").asText());
+    }
+}
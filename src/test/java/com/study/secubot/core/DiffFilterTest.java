@@ -0,0 +1,131 @@
+package com.study.secubot.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DiffFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    void matchesGlobsLikeGitignore() {
+        DiffFilter filter = new DiffFilter(".secubotignore", List.of(
+                "**/.*",
+                "# generated clients",
+                "*.generated.ts",
+                "/docs/",
+                "build/**/*.js",
+                "!vendor/acme/",
+                "!go.sum"));
+
+        assertTrue(filter.ignores("web/package-lock.json"));
+        assertTrue(filter.ignores("vendor/github.com/x/y.go"));
+        assertTrue(filter.ignores("static/app.min.js"));
+        assertTrue(filter.ignores("src/api/client.generated.ts"));
+        assertTrue(filter.ignores("docs/index.md"));
+        assertTrue(filter.ignores("build/a/b/bundle.js"));
+        assertTrue(filter.ignores("build/bundle.js"));
+
+        assertFalse(filter.ignores("src/main/java/App.java"));
+        assertFalse(filter.ignores("src/docs/index.md"), "a leading slash anchors to the root");
+        assertFalse(filter.ignores("docs"), "a trailing slash matches directories only");
+        assertFalse(filter.ignores("src/vendors.js"));
+        assertFalse(filter.ignores("vendor/acme/lib.go"), "negated patterns re-include paths");
+        assertFalse(filter.ignores("go.sum"), "built-in patterns can be negated");
+        assertTrue(filter.ignores(".github/workflows/ci.yml"));
+        assertFalse(filter.ignores(".secubotignore"), "changes to the ignore file are always reviewed");
+    }
+
+    @Test
+    void noneKeepsEverything() {
+        assertFalse(DiffFilter.none().ignores("yarn.lock"));
+        DiffFile minified = new DiffParser().parse(diff("app.js", 1, "x".repeat(5000))).get(0);
+        assertNull(DiffFilter.none().reason(minified));
+    }
+
+    @Test
+    void detectsGeneratedAndMinifiedFiles() {
+        DiffFilter filter = new DiffFilter(".secubotignore", List.of());
+        DiffParser parser = new DiffParser();
+
+        DiffFile generated = parser.parse(diff("api/service.go", 1,
+                "// Code generated by protoc-gen-go. DO NOT EDIT.", "package api")).get(0);
+        DiffFile protobuf = parser.parse(diff("api/service.py", 1, "# -*- coding: utf-8 -*-",
+                "# Generated by the protocol buffer compiler.  DO NOT EDIT!", "import sys")).get(0);
+        DiffFile minified = parser.parse(diff("static/app.js", 1, "var a=1;".repeat(200))).get(0);
+
+        assertEquals(DiffFilter.GENERATED, filter.reason(generated));
+        assertEquals(DiffFilter.GENERATED, filter.reason(protobuf));
+        assertEquals(DiffFilter.MINIFIED, filter.reason(minified));
+    }
+
+    @Test
+    void generatedMarkersOnlyCountOnTheFirstCommentLine() {
+        DiffFilter filter = new DiffFilter(".secubotignore", List.of());
+        DiffParser parser = new DiffParser();
+
+        DiffFile secondComment = parser.parse(diff("src/App.java", 1,
+                "// Copyright Acme", "// @generated", "class App {}")).get(0);
+        DiffFile notAComment = parser.parse(diff("src/App.java", 1,
+                "String s = \"@generated\";", "class App {}")).get(0);
+        DiffFile looseMarker = parser.parse(diff("src/App.java", 1,
+                "// Auto-generated once by hand, do not edit", "class App {}")).get(0);
+        DiffFile notAtTop = parser.parse(diff("src/App.java", 3, "// @generated")).get(0);
+        DiffFile ignoreFile = parser.parse(diff(".secubotignore", 1, "x".repeat(5000))).get(0);
+
+        assertNull(filter.reason(secondComment));
+        assertNull(filter.reason(notAComment));
+        assertNull(filter.reason(looseMarker));
+        assertNull(filter.reason(notAtTop));
+        assertNull(filter.reason(ignoreFile));
+    }
+
+    @Test
+    void skippedFilesAreCounted() {
+        DiffFilter filter = new DiffFilter(".secubotignore", List.of());
+        DiffFile lockfile = new DiffParser().parse(diff("package-lock.json", 1, "\"lockfileVersion\": 3,")).get(0);
+
+        filter.skipped(lockfile, filter.reason(lockfile));
+        filter.skipped(lockfile, filter.reason(lockfile));
+
+        assertEquals(DiffFilter.IGNORED, filter.reason(lockfile));
+        assertEquals(2, registry.get("secubot.segments").tag("kind", "diff.skipped").counter().count());
+        double bytes = registry.get("secubot.bytes").tag("kind", "diff.skipped").counter().count();
+        assertTrue(bytes > 2 * "\"lockfileVersion\": 3,".length(), "counted " + bytes);
+        assertTrue(registry.get("secubot.tokens").tag("direction", "diff.skipped").counter().count() > 0);
+    }
+
+    private static String diff(String path, int start, String... added) {
+        StringBuilder sb = new StringBuilder()
+                .append("diff --git a/").append(path).append(" b/").append(path).append('\n')
+                .append("--- a/").append(path).append('\n')
+                .append("+++ b/").append(path).append('\n')
+                .append("@@ -").append(start).append(",0 +").append(start).append(',').append(added.length)
+                .append(" @@\n");
+        for (String line : added) {
+            sb.append('+').append(line).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,96 @@
+package com.study.secubot.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import okio.Okio;
+
+class DiffParserTest {
+
+    private final DiffParser parser = new DiffParser();
+
+    @Test
+    void parsesFilesHunksAndLineNumbers() {
+        String diff = """
+                diff --git a/src/App.java b/src/App.java
+                index 1111111..2222222 100644
+                --- a/src/App.java
+                +++ b/src/App.java
+                @@ -10,4 +10,5 @@ public class App {
+                     int a = 1;
+                -    String q = "SELECT " + id;
+                --- not a header, a removed line
+                +    PreparedStatement ps = conn.prepareStatement(SQL);
+                +    ps.setString(1, id);
+                +++ not a header, an added line
+                     return;
+                diff --git a/logo.png b/logo.png
+                new file mode 100644
+                Binary files /dev/null and b/logo.png differ
+                diff --git a/old.txt b/old.txt
+                deleted file mode 100644
+                --- a/old.txt
+                +++ /dev/null
+                @@ -1 +0,0 @@
+                -bye
+                """;
+
+        List<DiffFile> files = parser.parse(diff);
+
+        assertEquals(3, files.size());
+        DiffFile app = files.get(0);
+        assertEquals("src/App.java", app.path());
+        assertEquals(1, app.hunks().size());
+        DiffHunk hunk = app.hunks().get(0);
+        assertEquals("public class App {", hunk.section());
+        assertEquals(7, hunk.lines().size());
+        DiffLine added = hunk.lines().get(3);
+        assertEquals(DiffLine.Type.ADDED, added.type());
+        assertEquals(11, added.newLine());
+        assertEquals(DiffLine.Type.REMOVED, hunk.lines().get(2).type());
+        assertEquals(12, hunk.lines().get(2).oldLine());
+        assertEquals(DiffLine.Type.ADDED, hunk.lines().get(5).type());
+        assertEquals(14, hunk.lines().get(6).newLine());
+
+        assertTrue(files.get(1).binary());
+        assertNull(files.get(1).oldPath());
+
+        assertTrue(files.get(2).deleted());
+        assertEquals("old.txt", files.get(2).path());
+    }
+
+    @Test
+    void peakHeapStaysFlatAsDiffGrows() throws IOException {
+        long small = peakRetainedHeap(2_000);
+        long large = peakRetainedHeap(40_000);
+
+        // 20x more input must not retain meaningfully more memory
+        assertTrue(large - small < 16L * 1024 * 1024,
+                "retained heap grew from " + small + " to " + large + " bytes");
+    }
+
+    private long peakRetainedHeap(int fileCount) throws IOException {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long baseline = runtime.totalMemory() - runtime.freeMemory();
+        AtomicLong peak = new AtomicLong();
+        AtomicLong seen = new AtomicLong();
+
+        parser.parse(Okio.buffer(new SyntheticDiffSource(fileCount)), file -> {
+            if (seen.incrementAndGet() % (fileCount / 10) == 0) {
+                System.gc();
+                peak.accumulateAndGet(runtime.totalMemory() - runtime.freeMemory() - baseline, Math::max);
+            }
+        });
+
+        assertEquals(fileCount, seen.get());
+        return peak.get();
+    }
+}
@@ -0,0 +1,47 @@
+package com.study.secubot.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+
+class MessageBuilderTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final MessageBuilder builder = new MessageBuilder(5);
+
+    @Test
+    void inputMatchesTreeSerialization() throws Exception {
+        String context = "Use PreparedStatement.\n\"quoted\" \\ back\tslash";
+        String diff = "+ String q = \"SELECT \" + id;\n- ü€ \u0001 </script>\n".repeat(2000);
+
+        assertEquals(expected(diff, context), builder.toSafeInputJson(diff, context));
+        // A pooled buffer holding a longer input must not leak into a shorter one
+        assertEquals(expected("+ x", ""), builder.toSafeInputJson("+ x", null));
+    }
+
+    @Test
+    void reusesStablePrefix() {
+        ChatRequest first = builder.buildSecurityReviewRequest("+ a", "ctx");
+        ChatRequest second = builder.buildSecurityReviewRequest("+ b", "ctx");
+
+        assertSame(first.messages().get(0), second.messages().get(0));
+        String a = ((UserMessage) first.messages().get(1)).singleText();
+        String b = ((UserMessage) second.messages().get(1)).singleText();
+        assertEquals("INPUT_JSON={\"context\":\"ctx\",\"diff\":\"+ ", a.substring(0, a.length() - 3));
+        assertEquals(a.substring(0, a.length() - 3), b.substring(0, b.length() - 3));
+    }
+
+    private String expected(String diff, String context) throws Exception {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("context", context);
+        node.put("diff", diff);
+        return "INPUT_JSON=" + mapper.writeValueAsString(node);
+    }
+}
@@ -0,0 +1,75 @@
+package com.study.secubot.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.study.secubot.rag.ScoredDocument;
+
+class PromptPackerTest {
+
+    @Test
+    void overflowGoesToFollowUpBatchesRiskiestFirst() {
+        // 1000 chars budget -> 700 for the diff, roughly three 200-char hunks per batch
+        PromptPacker packer = new PromptPacker(1000);
+        StringBuilder diff = new StringBuilder("diff --git a/App.java b/App.java\n");
+        for (int i = 0; i < 10; i++) {
+            String line = i == 7 ? "String password = \"hunter2\";" : "int value" + i + " = compute(" + i + ");";
+            diff.append("@@ -").append(i * 10 + 1).append(",0 +").append(i * 10 + 1).append(",4 @@\n");
+            for (int l = 0; l < 4; l++) {
+                diff.append('+').append(line).append(" // padding padding\n");
+            }
+        }
+        List<ReviewUnit> hunks = ReviewUnit.split(new DiffParser().parse(diff.toString()), 0);
+
+        List<ReviewBatch> batches = packer.pack(hunks);
+
+        assertTrue(batches.size() > 1);
+        assertTrue(batches.get(0).render().contains("password"));
+        int packedHunks = batches.stream().mapToInt(b -> b.units().size()).sum();
+        assertEquals(10, packedHunks);
+        for (ReviewBatch batch : batches) {
+            assertTrue(batch.units().stream().mapToInt(ReviewUnit::chars).sum() <= packer.diffBudget());
+        }
+    }
+
+    @Test
+    void oversizedHunkIsSplitNotTruncated() {
+        PromptPacker packer = new PromptPacker(1000);
+        StringBuilder diff = new StringBuilder("diff --git a/Big.java b/Big.java\n@@ -1,0 +1,100 @@\n");
+        for (int i = 0; i < 100; i++) {
+            diff.append("+line ").append(i).append('\n');
+        }
+
+        List<ReviewBatch> batches = packer.pack(ReviewUnit.split(new DiffParser().parse(diff.toString()), 0));
+
+        int lines = 0;
+        for (ReviewBatch batch : batches) {
+            for (ReviewUnit unit : batch.units()) {
+                lines += unit.hunks().stream().mapToInt(h -> h.lines().size()).sum();
+            }
+        }
+        assertEquals(100, lines);
+        DiffHunk last = batches.get(batches.size() - 1).units().get(0).hunks().get(0);
+        assertEquals(100, last.newStart() + last.newCount() - 1);
+    }
+
+    @Test
+    void contextKeepsBestScoresWithinBudget() {
+        PromptPacker packer = new PromptPacker(120);
+        List<ScoredDocument> docs = List.of(
+                new ScoredDocument("low ".repeat(10), 0.2),
+                new ScoredDocument("high".repeat(10), 0.9),
+                new ScoredDocument("mid ".repeat(10), 0.5));
+
+        String context = packer.packContext(30, docs);
+
+        assertEquals("high".repeat(10), context.substring(0, 40));
+        assertTrue(context.contains("mid"));
+        assertFalse(context.contains("low"));
+    }
+}
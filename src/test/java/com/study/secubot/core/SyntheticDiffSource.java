@@ -0,0 +1,61 @@
+package com.study.secubot.core;
+
+import okio.Buffer;
+import okio.Source;
+import okio.Timeout;
+
+/**
+ * Generates a diff of {@code fileCount} ~1 KB files on demand without ever
+ * holding the whole thing.
+ */
+public class SyntheticDiffSource implements Source {
+    private final int fileCount;
+    private final Buffer pending = new Buffer();
+    private int next;
+
+    public SyntheticDiffSource(int fileCount) {
+        this.fileCount = fileCount;
+    }
+
+    /**
+     * Size of the diff of {@code fileCount} files.
+     */
+    public static long bytes(int fileCount) {
+        long bytes = 0;
+        try (Buffer sink = new Buffer(); SyntheticDiffSource source = new SyntheticDiffSource(fileCount)) {
+            while (source.read(sink, 8192) != -1) {
+                bytes += sink.size();
+                sink.clear();
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public long read(Buffer sink, long byteCount) {
+        if (pending.size() == 0) {
+            if (next == fileCount) {
+                return -1;
+            }
+            int i = next++;
+            pending.writeUtf8("diff --git a/src/File" + i + ".java b/src/File" + i + ".java\n")
+                    .writeUtf8("--- a/src/File" + i + ".java\n")
+                    .writeUtf8("+++ b/src/File" + i + ".java\n")
+                    .writeUtf8("@@ -1,10 +1,10 @@\n");
+            for (int l = 0; l < 10; l++) {
+                pending.writeUtf8("-    String value" + l + " = request.getParameter(\"p" + l + "\");\n");
+                pending.writeUtf8("+    String value" + l + " = sanitize(request.getParameter(\"p" + l + "\"));\n");
+            }
+        }
+        return pending.read(sink, Math.min(byteCount, pending.size()));
+    }
+
+    @Override
+    public Timeout timeout() {
+        return Timeout.NONE;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,58 @@
+package com.study.secubot.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.jupiter.api.Test;
+
+class VerdictTrackerTest {
+
+    @Test
+    void concurrentCriticalVerdictsNeverCancelEachOther() throws Exception {
+        for (int round = 0; round < 500; round++) {
+            LlmMetrics metrics = new LlmMetrics();
+            VerdictTracker tracker = new VerdictTracker(3, metrics);
+            CompletableFuture<Void> a = new CompletableFuture<>();
+            CompletableFuture<Void> b = new CompletableFuture<>();
+            CompletableFuture<Void> c = new CompletableFuture<>();
+            tracker.register("a", a);
+            tracker.register("b", b);
+            tracker.register("c", c);
+
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            Thread first = Thread.ofVirtual().start(() -> critical(tracker, barrier, "a"));
+            Thread second = Thread.ofVirtual().start(() -> critical(tracker, barrier, "b"));
+            first.join();
+            second.join();
+
+            assertFalse(a.isCancelled() && b.isCancelled(), "both CRITICAL batches cancelled in round " + round);
+            assertTrue(c.isCancelled());
+            assertEquals(1, metrics.decisions());
+        }
+    }
+
+    @Test
+    void failedBatchStillLetsTheReviewDecide() {
+        LlmMetrics metrics = new LlmMetrics();
+        VerdictTracker tracker = new VerdictTracker(2, metrics);
+
+        tracker.verdict("a", RiskLevel.LOW);
+        tracker.verdict("b", RiskLevel.UNKNOWN);
+
+        assertEquals(1, metrics.decisions());
+        assertFalse(tracker.stoppedEarly());
+    }
+
+    private static void critical(VerdictTracker tracker, CyclicBarrier barrier, String label) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        tracker.verdict(label, RiskLevel.CRITICAL);
+    }
+}
@@ -0,0 +1,182 @@
+package com.study.secubot.github;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.study.secubot.core.DiffFile;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+class GitHubServiceImplTest {
+
+    private static final String DIFF = """
+            diff --git a/src/App.java b/src/App.java
+            --- a/src/App.java
+            +++ b/src/App.java
+            @@ -1,0 +1,1 @@
+            +int x = 1;
+            """;
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @TempDir
+    Path cacheDir;
+
+    private final MockWebServer server = new MockWebServer();
+    private final List<Long> sleeps = new ArrayList<>();
+    private final GitHubClientMetrics metrics = new GitHubClientMetrics();
+    private GitHubServiceImpl gitHub;
+    private String prUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server.start();
+        prUrl = server.url("/repos/acme/app/pulls/1").toString();
+        RateLimitInterceptor retries = new RateLimitInterceptor(3, Duration.ofSeconds(120), metrics, sleeps::add,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+        gitHub = new GitHubServiceImpl("token", server.url("/").toString(), GitHubHttpClient.create(cacheDir, 10_000_000, retries, metrics));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void revalidatesWithEtagAndServesCachedDiffOn304() throws Exception {
+        server.enqueue(new MockResponse().setBody(DIFF)
+                .setHeader("ETag", "\"abc\"")
+                .setHeader("Cache-Control", "private, max-age=60, s-maxage=60"));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"abc\""));
+
+        List<DiffFile> first = stream();
+        List<DiffFile> second = stream();
+
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+        // Revalidated even though max-age=60 has not elapsed
+        assertEquals("\"abc\"", server.takeRequest().getHeader("If-None-Match"));
+        assertEquals(first, second);
+        assertEquals(1, metrics.notModified());
+        assertEquals(DIFF.length(), metrics.bytesSaved());
+    }
+
+    @Test
+    void readsConfigurationFromTheBaseCommit() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"head\":{\"sha\":\"h1\"},\"base\":{\"sha\":\"b1\"}}"));
+        server.enqueue(new MockResponse().setBody("vendor/\n"));
+        server.enqueue(new MockResponse().setBody("{\"head\":{\"sha\":\"h1\"},\"base\":{\"sha\":\"b1\"}}"));
+        server.enqueue(new MockResponse().setResponseCode(404).setBody("{\"message\":\"Not Found\"}"));
+
+        assertEquals("vendor/\n", gitHub.getBaseFileContent(prUrl, ".secubotignore"));
+        assertNull(gitHub.getBaseFileContent(prUrl, "config/missing.txt"));
+
+        server.takeRequest();
+        RecordedRequest contents = server.takeRequest();
+        assertEquals("/repos/acme/app/contents/.secubotignore?ref=b1", contents.getPath());
+        assertEquals("application/vnd.github.raw", contents.getHeader("Accept"));
+    }
+
+    @Test
+    void honoursRetryAfter() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(403).setHeader("Retry-After", "2")
+                .setBody("{\"message\":\"You have exceeded a secondary rate limit.\"}"));
+        server.enqueue(new MockResponse().setBody(DIFF));
+
+        assertEquals(1, stream().size());
+
+        assertEquals(1, sleeps.size());
+        assertTrue(sleeps.get(0) >= 2000 && sleeps.get(0) < 3000, "slept " + sleeps.get(0));
+        assertEquals(1, metrics.rateLimited());
+    }
+
+    @Test
+    void waitsForQuotaResetAndThenPreemptively() throws Exception {
+        long reset = NOW.getEpochSecond() + 5;
+        server.enqueue(new MockResponse().setResponseCode(403)
+                .setHeader("X-RateLimit-Remaining", "0")
+                .setHeader("X-RateLimit-Reset", String.valueOf(reset)));
+        server.enqueue(new MockResponse().setBody(DIFF).setHeader("X-RateLimit-Remaining", "0")
+                .setHeader("X-RateLimit-Reset", String.valueOf(reset)));
+        server.enqueue(new MockResponse().setBody(DIFF));
+
+        stream();
+        assertTrue(sleeps.get(0) >= 5000 && sleeps.get(0) < 6000, "slept " + sleeps.get(0));
+
+        // Quota is known to be exhausted: the next call waits before sending anything
+        stream();
+        assertEquals(2, sleeps.size());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void failsFastWhenResetIsTooFarAway() {
+        server.enqueue(new MockResponse().setResponseCode(403)
+                .setHeader("X-RateLimit-Remaining", "0")
+                .setHeader("X-RateLimit-Reset", String.valueOf(NOW.getEpochSecond() + 3600)));
+
+        assertThrows(IOException.class, this::stream);
+        assertEquals(1, server.getRequestCount());
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    void retriesServerErrorsOnlyForGet() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(502));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody(DIFF));
+        assertEquals(1, stream().size());
+        assertEquals(2, metrics.retries());
+
+        // POST is not idempotent: a 502 is final
+        server.enqueue(new MockResponse().setResponseCode(502));
+        gitHub.postComment(prUrl, "hello");
+        assertEquals(4, server.getRequestCount());
+        assertEquals(2, metrics.retries());
+    }
+
+    @Test
+    void postCommentRetriesRateLimit() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+        server.enqueue(new MockResponse().setResponseCode(201));
+
+        gitHub.postComment(prUrl, "hello");
+
+        server.takeRequest();
+        RecordedRequest retried = server.takeRequest();
+        assertEquals("/repos/acme/app/issues/1/comments", retried.getPath());
+        assertEquals("{\"body\":\"hello\"}", retried.getBody().readUtf8());
+    }
+
+    @Test
+    void listsPullRequestsAcrossPages() throws Exception {
+        server.enqueue(new MockResponse().setBody("[{\"url\":\"u1\"},{\"url\":\"u2\"}]")
+                .setHeader("Link", "<" + server.url("/repos/acme/app/pulls?state=open&page=2") + ">; rel=\"next\""));
+        server.enqueue(new MockResponse().setBody("[{\"url\":\"u3\"}]"));
+
+        assertEquals(List.of("u1", "u2", "u3"), gitHub.listPullRequests("acme/app", "open"));
+        assertEquals("/repos/acme/app/pulls?state=open&per_page=100", server.takeRequest().getPath());
+    }
+
+    private List<DiffFile> stream() throws IOException {
+        List<DiffFile> files = new ArrayList<>();
+        gitHub.streamPullRequestDiff(prUrl, files::add);
+        return files;
+    }
+}
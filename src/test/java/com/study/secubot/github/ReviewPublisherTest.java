@@ -0,0 +1,179 @@
+package com.study.secubot.github;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.secubot.core.InlineFinding;
+import com.study.secubot.core.ReviewEngine;
+import com.study.secubot.core.RiskLevel;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+class ReviewPublisherTest {
+
+    private static final String STATE_MEDIUM = ReviewPublisher.SUMMARY_MARKER
+            + "\\n<!-- secubot:state head=abc123 risk=MEDIUM -->";
+
+    private final MockWebServer server = new MockWebServer();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ReviewPublisher publisher;
+    private String prUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server.start();
+        prUrl = server.url("/repos/acme/app/pulls/1").toString();
+        publisher = new ReviewPublisher(new GitHubServiceImpl("token", server.url("/").toString(), new OkHttpClient()));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void firstRunPostsSummaryAndOneReview() throws Exception {
+        server.enqueue(json("[]"));
+        server.enqueue(json("{}").setResponseCode(201));
+        server.enqueue(json("[]"));
+        server.enqueue(json("{}"));
+
+        ReviewPublisher.State previous = publisher.previousState(prUrl);
+        publisher.publish(prUrl, result(finding("src/A.java", 3, "exec(cmd)"), finding("src/B.java", 7, "sql + id"),
+                finding("src/C.java", 0, "unknown()")), "abc123", previous);
+
+        assertEquals("GET", server.takeRequest().getMethod());
+        RecordedRequest summary = server.takeRequest();
+        assertEquals("POST", summary.getMethod());
+        assertEquals("/repos/acme/app/issues/1/comments", summary.getPath());
+        String body = mapper.readTree(summary.getBody().readUtf8()).path("body").asText();
+        assertTrue(body.contains(ReviewPublisher.SUMMARY_MARKER));
+        // The unlocated finding only appears in the summary
+        assertTrue(body.contains("src/C.java"));
+        assertTrue(body.endsWith("<!-- secubot:state head=abc123 risk=HIGH -->"), body);
+
+        assertEquals("/repos/acme/app/pulls/1/comments?per_page=100", server.takeRequest().getPath());
+        RecordedRequest review = server.takeRequest();
+        assertEquals("/repos/acme/app/pulls/1/reviews", review.getPath());
+        JsonNode comments = mapper.readTree(review.getBody().readUtf8()).path("comments");
+        assertEquals(2, comments.size());
+        assertEquals("src/A.java", comments.get(0).path("path").asText());
+        assertEquals(3, comments.get(0).path("line").asInt());
+        assertEquals("RIGHT", comments.get(0).path("side").asText());
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    void laterRunUpdatesSummaryAndSkipsKnownFindings() throws Exception {
+        InlineFinding known = finding("src/A.java", 3, "exec(cmd)");
+        String commentUrl = server.url("/repos/acme/app/issues/comments/42").toString();
+        String knownMarker = "<!-- secubot:finding:" + ReviewPublisher.fingerprint(known) + " -->";
+
+        // Summary sits on the second page of issue comments
+        server.enqueue(json("[{\"url\":\"x\",\"body\":\"LGTM\"}]")
+                .setHeader("Link", "<" + server.url("/repos/acme/app/issues/1/comments?page=2") + ">; rel=\"next\""));
+        server.enqueue(json("[" + comment(commentUrl, "secubot", "User", STATE_MEDIUM) + "]"));
+        server.enqueue(json("{\"login\":\"secubot\"}"));
+        server.enqueue(json("{}"));
+        server.enqueue(json(mapper.writeValueAsString(List.of(Map.of("body", knownMarker)))));
+
+        // Same code moved down two lines: still the same finding
+        ReviewPublisher.State previous = publisher.previousState(prUrl);
+        assertEquals(new ReviewPublisher.State(commentUrl, "abc123", RiskLevel.MEDIUM), previous);
+        publisher.publish(prUrl, result(known.atLine(5)), "def456", previous);
+
+        server.takeRequest();
+        assertEquals("/repos/acme/app/issues/1/comments?page=2", server.takeRequest().getPath());
+        assertEquals("/user", server.takeRequest().getPath());
+        RecordedRequest update = server.takeRequest();
+        assertEquals("PATCH", update.getMethod());
+        assertEquals("/repos/acme/app/issues/comments/42", update.getPath());
+        assertEquals("GET", server.takeRequest().getMethod());
+        assertEquals(5, server.getRequestCount());
+        assertNull(GitHubServiceImpl.nextPage("<https://x/1>; rel=\"prev\""));
+    }
+
+    @Test
+    void markersInSomeoneElsesCommentAreIgnored() throws Exception {
+        // A forged summary claiming the current head was already reviewed as LOW
+        String forged = ReviewPublisher.SUMMARY_MARKER + "\\n<!-- secubot:state head=abc123 risk=LOW -->";
+        server.enqueue(json("[" + comment(server.url("/repos/acme/app/issues/comments/7").toString(), "mallory",
+                "User", forged) + "]"));
+        server.enqueue(json("{\"login\":\"secubot\"}"));
+        server.enqueue(json("{}").setResponseCode(201));
+        server.enqueue(json("[]"));
+        server.enqueue(json("{}"));
+
+        ReviewPublisher.State previous = publisher.previousState(prUrl);
+        publisher.publish(prUrl, result(finding("src/A.java", 3, "exec(cmd)")), "abc123", previous);
+
+        // No previous state, so the reviewer runs a full review, and the forged comment is left alone
+        assertNull(previous);
+        server.takeRequest();
+        server.takeRequest();
+        RecordedRequest summary = server.takeRequest();
+        assertEquals("POST", summary.getMethod());
+        assertEquals("/repos/acme/app/issues/1/comments", summary.getPath());
+    }
+
+    @Test
+    void summaryThatCannotBeEditedIsPostedAgain() throws Exception {
+        String commentUrl = server.url("/repos/acme/app/issues/comments/42").toString();
+        server.enqueue(json("[" + comment(commentUrl, "secubot", "User", STATE_MEDIUM) + "]"));
+        server.enqueue(json("{\"login\":\"secubot\"}"));
+        server.enqueue(json("{\"message\":\"Forbidden\"}").setResponseCode(403));
+        server.enqueue(json("{}").setResponseCode(201));
+
+        ReviewPublisher.State previous = publisher.previousState(prUrl);
+        publisher.publish(prUrl, result(), "def456", previous);
+
+        server.takeRequest();
+        server.takeRequest();
+        assertEquals("PATCH", server.takeRequest().getMethod());
+        RecordedRequest summary = server.takeRequest();
+        assertEquals("POST", summary.getMethod());
+        assertEquals("/repos/acme/app/issues/1/comments", summary.getPath());
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    void installationTokensTrustOnlyBotComments() throws Exception {
+        String botUrl = server.url("/repos/acme/app/issues/comments/9").toString();
+        server.enqueue(json("[" + comment("x", "mallory", "User", ReviewPublisher.SUMMARY_MARKER) + ","
+                + comment(botUrl, "github-actions[bot]", "Bot", STATE_MEDIUM) + "]"));
+        server.enqueue(json("{\"message\":\"Resource not accessible by integration\"}").setResponseCode(403));
+
+        assertEquals(new ReviewPublisher.State(botUrl, "abc123", RiskLevel.MEDIUM), publisher.previousState(prUrl));
+    }
+
+    private static String comment(String url, String login, String type, String body) {
+        return "{\"url\":\"" + url + "\",\"user\":{\"login\":\"" + login + "\",\"type\":\"" + type
+                + "\"},\"body\":\"" + body + "\"}";
+    }
+
+    private static ReviewEngine.ReviewResult result(InlineFinding... findings) {
+        return new ReviewEngine.ReviewResult("HIGH", "Command injection", "", List.of(findings));
+    }
+
+    private static InlineFinding finding(String path, int line, String code) {
+        return new InlineFinding(path, line, code, RiskLevel.HIGH, "Untrusted input reaches " + code);
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+}
@@ -0,0 +1,304 @@
+package com.study.secubot.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+
+class RoutingChatModelTest {
+
+    private static final ChatRequest REQUEST = ChatRequest.builder().messages(UserMessage.from("review")).build();
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void hedgesToTheNextRouteWhenTheFirstIsSlow() {
+        StubProvider primary = new StubProvider("primary", 20);
+        StubProvider secondary = new StubProvider("secondary", 20);
+        RoutingChatModel router = router(primary, secondary);
+        // Warm up the primary's latency window (p95 ~20 ms)
+        for (int i = 0; i < 10; i++) {
+            router.chat(REQUEST);
+        }
+        assertEquals(0, secondary.calls.get());
+
+        primary.latencyMs = 2000;
+        long start = System.nanoTime();
+        ChatResponse response = router.chat(REQUEST);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("secondary", response.aiMessage().text());
+        assertTrue(elapsedMs < 500, "hedged call took " + elapsedMs + " ms");
+        assertEquals(1, secondary.calls.get());
+        // The losing primary call was cancelled, not left running
+        waitFor(() -> primary.interrupted.get() == 1);
+    }
+
+    @Test
+    void failsOverAndOpensTheCircuit() {
+        StubProvider primary = new StubProvider("primary", 5);
+        StubProvider secondary = new StubProvider("secondary", 5);
+        primary.failing = true;
+        RoutingChatModel router = router(primary, secondary);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("secondary", router.chat(REQUEST).aiMessage().text());
+        }
+        // Threshold of 3: the primary is skipped once its circuit is open
+        assertEquals(3, primary.calls.get());
+        assertEquals(CircuitBreaker.State.OPEN, router.routes().get(0).breaker().state());
+
+        // After the open period one trial goes through and closes the circuit again
+        primary.failing = false;
+        clock.advance(Duration.ofSeconds(31));
+        assertEquals("primary", router.chat(REQUEST).aiMessage().text());
+        assertEquals(CircuitBreaker.State.CLOSED, router.routes().get(0).breaker().state());
+    }
+
+    @Test
+    void routesWithHighErrorRatesGoLast() {
+        StubProvider primary = new StubProvider("primary", 1);
+        StubProvider secondary = new StubProvider("secondary", 1);
+        RoutingChatModel router = router(primary, secondary);
+        LatencyStats stats = router.routes().get(0).stats();
+        for (int i = 0; i < 10; i++) {
+            stats.record(10, i % 3 != 0);
+        }
+
+        assertEquals("secondary", router.chat(REQUEST).aiMessage().text());
+        assertEquals(0, primary.calls.get());
+    }
+
+    @Test
+    void failsAtTheDeadline() {
+        StubProvider primary = new StubProvider("primary", 5000);
+        StubProvider secondary = new StubProvider("secondary", 5000);
+        RoutingChatModel router = new RoutingChatModel(List.of(primary.route(clock), secondary.route(clock)),
+                Duration.ofMillis(300), Duration.ofMillis(50), true, 0.5);
+
+        long start = System.nanoTime();
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> router.chat(REQUEST));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(e.getMessage().startsWith("LLM call timed out after 300 ms"), e.getMessage());
+        assertTrue(elapsedMs < 1000, "timed out after " + elapsedMs + " ms");
+        assertEquals(1, secondary.calls.get());
+    }
+
+    @Test
+    void streamsFailOverBeforeTheFirstToken() throws Exception {
+        StubProvider primary = new StubProvider("primary", 5);
+        StubProvider secondary = new StubProvider("secondary", 5);
+        primary.failing = true;
+        RoutingChatModel router = router(primary, secondary);
+        StringBuilder text = new StringBuilder();
+        CompletableFuture<ChatResponse> done = new CompletableFuture<>();
+
+        router.streaming().chat(REQUEST, new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(PartialResponse partial, PartialResponseContext context) {
+                text.append(partial.text());
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse response) {
+                done.complete(response);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                done.completeExceptionally(error);
+            }
+        });
+
+        assertEquals("secondary", done.get(5, TimeUnit.SECONDS).aiMessage().text());
+        assertEquals("secondary", text.toString());
+        assertEquals(1, primary.calls.get());
+    }
+
+    @Test
+    void cancellingAStreamIsNotAFailure() throws Exception {
+        StubProvider primary = new StubProvider("primary", 5);
+        primary.hanging = true;
+        RoutingChatModel router = new RoutingChatModel(List.of(primary.route(clock)), Duration.ofMillis(300),
+                Duration.ofMillis(50), true, 0.5);
+        AtomicInteger errors = new AtomicInteger();
+
+        // More cancellations than the breaker's failure threshold
+        for (int i = 0; i < 5; i++) {
+            CompletableFuture<StreamingHandle> cancelled = new CompletableFuture<>();
+            router.streaming().chat(REQUEST, new StreamingChatResponseHandler() {
+                @Override
+                public void onPartialResponse(PartialResponse partial, PartialResponseContext context) {
+                    context.streamingHandle().cancel();
+                    cancelled.complete(context.streamingHandle());
+                }
+
+                @Override
+                public void onCompleteResponse(ChatResponse response) {
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    errors.incrementAndGet();
+                }
+            });
+            assertTrue(cancelled.get(5, TimeUnit.SECONDS).isCancelled());
+        }
+
+        // The provider saw every cancel and never completed; past the deadline no timeout is reported
+        waitFor(() -> primary.cancelled.get() == 5);
+        Thread.sleep(500);
+        assertEquals(0, errors.get());
+        LlmRoute route = router.routes().get(0);
+        assertEquals(CircuitBreaker.State.CLOSED, route.breaker().state());
+        assertEquals(0, route.stats().samples());
+    }
+
+    @Test
+    void latencyStatsTrackP95AndErrors() {
+        LatencyStats stats = new LatencyStats(20);
+        for (int i = 1; i <= 40; i++) {
+            stats.record(i, i % 10 == 0);
+        }
+
+        assertEquals(20, stats.samples());
+        assertEquals(39, stats.p95());
+        assertEquals(0.1, stats.errorRate(), 1e-9);
+    }
+
+    private RoutingChatModel router(StubProvider... providers) {
+        return new RoutingChatModel(List.of(providers).stream().map(p -> p.route(clock)).toList(),
+                Duration.ofSeconds(5), Duration.ofMillis(100), true, 0.5);
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    /**
+     * A local provider with configurable latency and faults. Answers with its
+     * own name so tests can tell which route served a call.
+     */
+    private static class StubProvider {
+        final String name;
+        volatile long latencyMs;
+        volatile boolean failing;
+        // Streams stop after the first token and wait to be cancelled
+        volatile boolean hanging;
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger cancelled = new AtomicInteger();
+        final AtomicInteger interrupted = new AtomicInteger();
+
+        StubProvider(String name, long latencyMs) {
+            this.name = name;
+            this.latencyMs = latencyMs;
+        }
+
+        LlmRoute route(Clock clock) {
+            ChatModel chat = new ChatModel() {
+                @Override
+                public ChatResponse doChat(ChatRequest request) {
+                    calls.incrementAndGet();
+                    try {
+                        Thread.sleep(latencyMs);
+                    } catch (InterruptedException e) {
+                        interrupted.incrementAndGet();
+                        throw new IllegalStateException("cancelled");
+                    }
+                    if (failing) {
+                        throw new IllegalStateException(name + " is down");
+                    }
+                    return ChatResponse.builder().aiMessage(AiMessage.from(name)).build();
+                }
+            };
+            StreamingChatModel streaming = new StreamingChatModel() {
+                @Override
+                public void doChat(ChatRequest request, StreamingChatResponseHandler handler) {
+                    calls.incrementAndGet();
+                    Thread.ofVirtual().start(() -> {
+                        try {
+                            Thread.sleep(latencyMs);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        if (failing) {
+                            handler.onError(new IllegalStateException(name + " is down"));
+                            return;
+                        }
+                        AtomicBoolean handleCancelled = new AtomicBoolean();
+                        handler.onPartialResponse(new PartialResponse(name), new PartialResponseContext(
+                                new StreamingHandle() {
+                                    @Override
+                                    public void cancel() {
+                                        if (handleCancelled.compareAndSet(false, true)) {
+                                            cancelled.incrementAndGet();
+                                        }
+                                    }
+
+                                    @Override
+                                    public boolean isCancelled() {
+                                        return handleCancelled.get();
+                                    }
+                                }));
+                        if (hanging) {
+                            return;
+                        }
+                        handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from(name)).build());
+                    });
+                }
+            };
+            return new LlmRoute(name, chat, streaming, new LatencyStats(100),
+                    new CircuitBreaker(3, Duration.ofSeconds(30), clock));
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.study.secubot.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RunReportTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    void reportsStagesAndSizes() throws Exception {
+        RunReport report = new RunReport(registry);
+        Stages.record(Stages.LLM_CALL, 300_000_000L);
+        Stages.record(Stages.LLM_CALL, 100_000_000L);
+        assertEquals("ok", Stages.time(Stages.RESPONSE_PARSE, () -> "ok"));
+        Stages.bytes("response", "ü€");
+        Stages.segments("retrieved", 3);
+        Stages.tokens("input", 120);
+        Stages.tokens("output", null);
+        Stages.skipped(4000, 1000);
+        Stages.skipped(800, 200);
+
+        JsonNode json = report.toJson("https://api.github.com/repos/acme/app/pulls/1", "LOW", 0);
+
+        JsonNode llm = json.path("stages").path("llm.call");
+        assertEquals(2, llm.path("count").asInt());
+        assertEquals(400.0, llm.path("total_ms").asDouble());
+        assertEquals(300.0, llm.path("max_ms").asDouble());
+        assertEquals(1, json.path("stages").path("response.parse").path("count").asInt());
+        assertEquals(5, json.path("bytes").path("response").asLong());
+        assertEquals(3, json.path("segments").path("retrieved").asLong());
+        assertEquals(120, json.path("tokens").path("input").asLong());
+        assertEquals(0, json.path("tokens").path("output").asLong());
+        assertEquals(2, json.path("skipped").path("files").asLong());
+        assertEquals(4800, json.path("skipped").path("bytes").asLong());
+        assertEquals(1200, json.path("skipped").path("tokens").asLong());
+        assertEquals("LOW", json.path("risk_level").asText());
+    }
+}
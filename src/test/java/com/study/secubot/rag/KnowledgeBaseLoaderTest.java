@@ -0,0 +1,151 @@
+package com.study.secubot.rag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.study.secubot.config.LangChainConfig;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+
+class KnowledgeBaseLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path kbDir;
+    private Path indexFile;
+    private AtomicInteger embeddedSegments;
+    private List<Integer> batchSizes;
+    private EmbeddingModel countingModel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        kbDir = Files.createDirectory(tempDir.resolve("kb"));
+        indexFile = tempDir.resolve("index/kb-index.bin");
+        embeddedSegments = new AtomicInteger();
+        batchSizes = new CopyOnWriteArrayList<>();
+        // Cheap deterministic model so the test does not depend on ONNX
+        countingModel = new EmbeddingModel() {
+            @Override
+            public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+                embeddedSegments.addAndGet(segments.size());
+                batchSizes.add(segments.size());
+                return Response.from(segments.stream()
+                        .map(s -> Embedding.from(new float[] { s.text().length(), 1f, 0f }))
+                        .collect(Collectors.toList()));
+            }
+        };
+
+        Files.writeString(kbDir.resolve("SQL.md"), "# SQL\nUse prepared statements.");
+        Files.writeString(kbDir.resolve("XSS.md"), "# XSS\nEncode output.");
+    }
+
+    @Test
+    void warmStartReusesIndex() throws Exception {
+        load(new InMemoryEmbeddingStore<>());
+        assertTrue(Files.exists(indexFile));
+        int firstRun = embeddedSegments.get();
+        assertTrue(firstRun > 0);
+
+        InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+        load(store);
+
+        assertEquals(firstRun, embeddedSegments.get());
+        assertEquals(firstRun, store.search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(Embedding.from(new float[] { 1f, 1f, 0f }))
+                .maxResults(100)
+                .build()).matches().size());
+    }
+
+    @Test
+    void onlyChangedFilesAreReembedded() throws Exception {
+        load(new InMemoryEmbeddingStore<>());
+        embeddedSegments.set(0);
+
+        Files.writeString(kbDir.resolve("XSS.md"), "# XSS\nEncode output and use CSP.");
+        load(new InMemoryEmbeddingStore<>());
+
+        assertEquals(1, embeddedSegments.get());
+        EmbeddingIndex index = EmbeddingIndex.read(indexFile, LangChainConfig.EMBEDDING_MODEL_ID,
+                KnowledgeBaseLoader.SPLITTER_ID);
+        assertEquals(2, index.entries().size());
+    }
+
+    @Test
+    void indexForOtherSplitterIsIgnored() throws Exception {
+        load(new InMemoryEmbeddingStore<>());
+
+        EmbeddingIndex index = EmbeddingIndex.read(indexFile, LangChainConfig.EMBEDDING_MODEL_ID, "other");
+
+        assertTrue(index.entries().isEmpty());
+    }
+
+    @Test
+    void batchesSpanFileBoundaries() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            Files.writeString(kbDir.resolve("Doc" + i + ".md"), "# Doc " + i + "\nSingle short paragraph.");
+        }
+        InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+
+        load(store);
+
+        // 12 one-segment files with batch size 4 -> three full batches
+        assertEquals(List.of(4, 4, 4), batchSizes);
+    }
+
+    @Test
+    void reloadPublishesNewSnapshotAndKeepsTheOldOne() throws Exception {
+        KnowledgeBase knowledgeBase = new KnowledgeBase();
+        KnowledgeBaseLoader loader = new KnowledgeBaseLoader(kbDir.toString(), "", 4, 2,
+                InMemoryEmbeddingStore::new, countingModel, knowledgeBase);
+        loader.load();
+        KnowledgeSnapshot first = knowledgeBase.current();
+        embeddedSegments.set(0);
+
+        Files.writeString(kbDir.resolve("XSS.md"), "# XSS\nEncode output and use CSP.");
+        Files.delete(kbDir.resolve("SQL.md"));
+        Files.writeString(kbDir.resolve("CSRF.md"), "# CSRF\nUse anti-forgery tokens.");
+        loader.load();
+        KnowledgeSnapshot second = knowledgeBase.current();
+
+        // Only the edited and the new file are embedded, from the in-memory snapshot
+        assertEquals(2, embeddedSegments.get());
+        assertNotSame(first.store(), second.store());
+        assertNotEquals(first.version(), second.version());
+        assertEquals(List.of("CSRF.md", "XSS.md"), List.copyOf(second.index().entries().keySet()));
+        assertEquals(2, count(second));
+        // A review still holding the first snapshot sees it unchanged
+        assertEquals(2, count(first));
+        assertTrue(first.index().entries().containsKey("SQL.md"));
+    }
+
+    private void load(InMemoryEmbeddingStore<TextSegment> store) throws Exception {
+        new KnowledgeBaseLoader(kbDir.toString(), indexFile.toString(), 4, 2, () -> store, countingModel,
+                new KnowledgeBase()).load();
+    }
+
+    private static int count(KnowledgeSnapshot snapshot) {
+        return snapshot.store().search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(Embedding.from(new float[] { 1f, 1f, 0f }))
+                .maxResults(100)
+                .build()).matches().size();
+    }
+}
@@ -0,0 +1,72 @@
+package com.study.secubot.rag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+
+class KnowledgeBaseWatcherTest {
+
+    @TempDir
+    Path kbDir;
+
+    @Test
+    void reloadsOnceAfterABurstOfChanges() throws Exception {
+        EmbeddingModel model = new EmbeddingModel() {
+            @Override
+            public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+                return Response.from(segments.stream()
+                        .map(s -> Embedding.from(new float[] { s.text().length(), 1f }))
+                        .collect(Collectors.toList()));
+            }
+        };
+        Files.writeString(kbDir.resolve("SQL.md"), "# SQL\nUse prepared statements.");
+        KnowledgeBase knowledgeBase = new KnowledgeBase();
+        AtomicInteger loads = new AtomicInteger();
+        KnowledgeBaseLoader loader = new KnowledgeBaseLoader(kbDir.toString(), "", 4, 1,
+                InMemoryEmbeddingStore::new, model, knowledgeBase) {
+            @Override
+            public synchronized void load() throws IOException {
+                super.load();
+                loads.incrementAndGet();
+            }
+        };
+        loader.load();
+        KnowledgeSnapshot initial = knowledgeBase.current();
+
+        try (KnowledgeBaseWatcher watcher = new KnowledgeBaseWatcher(loader, 200)) {
+            watcher.start();
+            Files.createDirectory(kbDir.resolve("web"));
+            Files.writeString(kbDir.resolve("web/XSS.md"), "# XSS\nEncode output.");
+            Files.writeString(kbDir.resolve("SQL.md"), "# SQL\nUse prepared statements everywhere.");
+            Files.writeString(kbDir.resolve("notes.txt"), "ignored");
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (knowledgeBase.current().index().entries().size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            // Long enough for a second reload to show up if the burst were not debounced
+            Thread.sleep(600);
+        }
+
+        KnowledgeSnapshot reloaded = knowledgeBase.current();
+        assertTrue(reloaded != initial, "knowledge base was not reloaded");
+        assertEquals(List.of("SQL.md", "web/XSS.md"), List.copyOf(reloaded.index().entries().keySet()));
+        assertEquals(1, initial.index().entries().size());
+        assertEquals(2, loads.get(), "initial load plus one reload");
+    }
+}
@@ -0,0 +1,108 @@
+package com.study.secubot.rag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+
+class MarkdownSplitterTest {
+
+    private static final String GUIDE = """
+            # Injection
+
+            ## Description
+            Untrusted data reaches an interpreter.
+
+            ## Prevention (Java)
+            Use prepared statements:
+            ```java
+            # not a heading
+            ps.setString(1, name);
+            ```
+
+            ## Testing
+            Fuzz every parameter.
+            """;
+
+    @Test
+    void splitsAtHeadingsAndTagsLanguagesFromHeadings() {
+        List<TextSegment> segments = new MarkdownSplitter(800)
+                .split(Document.from(GUIDE, Metadata.from("filename", "Injection.md")));
+
+        assertEquals(3, segments.size());
+        TextSegment java = segments.get(1);
+        assertTrue(java.text().startsWith("# Injection\n## Prevention (Java)\n"));
+        assertTrue(java.text().contains("# not a heading\nps.setString"));
+        assertEquals("java", java.metadata().getString(MarkdownSplitter.LANGUAGES));
+        assertEquals("Prevention (Java)", java.metadata().getString(MarkdownSplitter.SECTION));
+        assertEquals("any", segments.get(0).metadata().getString(MarkdownSplitter.LANGUAGES));
+        assertEquals("injection", segments.get(2).metadata().getString(MarkdownSplitter.CATEGORY));
+        assertEquals("Injection.md", segments.get(2).metadata().getString("filename"));
+        assertNull(segments.get(0).metadata().getString(MarkdownSplitter.SEVERITY));
+    }
+
+    @Test
+    void frontMatterAppliesToEverySegment() {
+        String text = "---\ncategory: SQL Injection\nlanguages: [Java, ts]\nseverity: critical\n---\n" + GUIDE;
+
+        List<TextSegment> segments = new MarkdownSplitter(800).split(Document.from(text));
+
+        // Same metadata throughout, so the small sections share one segment
+        assertEquals(1, segments.size());
+        Metadata metadata = segments.get(0).metadata();
+        assertEquals("sql-injection", metadata.getString(MarkdownSplitter.CATEGORY));
+        assertEquals("java,ts", metadata.getString(MarkdownSplitter.LANGUAGES));
+        assertEquals("CRITICAL", metadata.getString(MarkdownSplitter.SEVERITY));
+        assertFalse(segments.get(0).text().contains("---"));
+    }
+
+    @Test
+    void unknownFrontMatterLanguagesAreDropped() {
+        String mixed = "---\nlanguages: [jsonnet, Java]\n---\n" + GUIDE;
+        String unknown = "---\nlanguages: [jsonnet]\n---\n" + GUIDE;
+
+        Metadata known = new MarkdownSplitter(800).split(Document.from(mixed)).get(0).metadata();
+        Metadata none = new MarkdownSplitter(800).split(Document.from(unknown)).get(0).metadata();
+
+        // A raw "jsonnet" would match the js filter, which is a substring test
+        assertEquals("java", known.getString(MarkdownSplitter.LANGUAGES));
+        assertEquals(Languages.ANY, none.getString(MarkdownSplitter.LANGUAGES));
+    }
+
+    @Test
+    void longSectionsAreCutOutsideCodeFences() {
+        String fence = "```java\n" + "int x = 1;\n\n".repeat(10) + "```";
+        String text = "# Guide\n## Long\n" + "Paragraph of guidance text.\n\n".repeat(8) + fence;
+
+        List<TextSegment> segments = new MarkdownSplitter(200).split(Document.from(text));
+
+        assertTrue(segments.size() > 1);
+        for (TextSegment segment : segments) {
+            assertTrue(segment.text().length() <= 200, segment.text());
+            assertTrue(segment.text().startsWith("# Guide\n## Long\n"));
+        }
+        assertTrue(segments.get(segments.size() - 1).text().endsWith(fence));
+    }
+
+    @Test
+    void languageIdsAreNotSubstringsOfEachOther() {
+        List<String> ids = List.of("java", "kotlin", "scala", "groovy", "js", "ts", "python", "ruby", "php",
+                "golang", "csharp", "cpp", "rust", "swift", "sql", "shell", "html", "xml", "yaml", "properties",
+                Languages.ANY);
+        for (String a : ids) {
+            for (String b : ids) {
+                assertTrue(a.equals(b) || !a.contains(b), a + " contains " + b);
+            }
+        }
+        assertEquals("js", Languages.ofPath("web/app.jsx"));
+        assertNull(Languages.ofPath("Dockerfile"));
+    }
+}
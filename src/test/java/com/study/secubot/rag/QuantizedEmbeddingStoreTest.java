@@ -0,0 +1,163 @@
+package com.study.secubot.rag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+
+class QuantizedEmbeddingStoreTest {
+
+    private static final int DIMENSION = 384;
+    private static final int VECTORS = 20_000;
+    private static final int QUERIES = 200;
+    private static final int K = 10;
+
+    @Test
+    void recallAgainstInMemoryStore() {
+        Random random = new Random(42);
+        List<Embedding> embeddings = new ArrayList<>(VECTORS);
+        List<TextSegment> segments = new ArrayList<>(VECTORS);
+        // Clustered data resembles real embeddings better than uniform noise
+        float[][] centroids = new float[50][];
+        for (int c = 0; c < centroids.length; c++) {
+            centroids[c] = gaussian(random, 1f);
+        }
+        for (int i = 0; i < VECTORS; i++) {
+            float[] v = gaussian(random, 0.5f);
+            float[] centroid = centroids[i % centroids.length];
+            for (int d = 0; d < DIMENSION; d++) {
+                v[d] += centroid[d];
+            }
+            embeddings.add(Embedding.from(v));
+            segments.add(TextSegment.from("segment " + i));
+        }
+
+        InMemoryEmbeddingStore<TextSegment> exactStore = new InMemoryEmbeddingStore<>();
+        QuantizedEmbeddingStore quantizedStore = new QuantizedEmbeddingStore();
+        exactStore.addAll(embeddings, segments);
+        quantizedStore.addAll(embeddings, segments);
+
+        List<Embedding> queries = new ArrayList<>(QUERIES);
+        for (int q = 0; q < QUERIES; q++) {
+            float[] v = embeddings.get(random.nextInt(VECTORS)).vector().clone();
+            for (int d = 0; d < DIMENSION; d++) {
+                v[d] += (float) random.nextGaussian() * 0.3f;
+            }
+            queries.add(Embedding.from(v));
+        }
+
+        List<List<EmbeddingMatch<TextSegment>>> expected = search(exactStore, queries);
+        List<List<EmbeddingMatch<TextSegment>>> actual = search(quantizedStore, queries);
+
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            // Ids are generated per store, so compare by segment
+            Set<String> truth = expected.get(q).stream().map(m -> m.embedded().text()).collect(Collectors.toSet());
+            for (EmbeddingMatch<TextSegment> match : actual.get(q)) {
+                if (truth.contains(match.embedded().text())) {
+                    found++;
+                }
+            }
+            // Scores are on the same scale as the in-memory store
+            assertEquals(expected.get(q).get(0).score(), actual.get(q).get(0).score(), 1e-4);
+        }
+        double recall = found / (double) (QUERIES * K);
+        assertTrue(recall >= 0.95, "recall@" + K + " was " + recall);
+    }
+
+    @Test
+    void appliesMetadataFilterAndRemoval() {
+        QuantizedEmbeddingStore store = new QuantizedEmbeddingStore();
+        String javaId = store.add(Embedding.from(new float[] { 1f, 0f }),
+                TextSegment.from("java", Metadata.from("language", "java")));
+        store.add(Embedding.from(new float[] { 0.9f, 0.1f }),
+                TextSegment.from("python", Metadata.from("language", "python")));
+
+        List<EmbeddingMatch<TextSegment>> matches = store.search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(Embedding.from(new float[] { 1f, 0f }))
+                .filter(metadataKey("language").isEqualTo("python"))
+                .maxResults(5)
+                .build()).matches();
+        assertEquals(1, matches.size());
+        assertEquals("python", matches.get(0).embedded().text());
+
+        store.removeAll(Set.of(javaId));
+        Set<String> remaining = new HashSet<>();
+        store.search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(Embedding.from(new float[] { 1f, 0f }))
+                .maxResults(5)
+                .build()).matches().forEach(m -> remaining.add(m.embedded().text()));
+        assertEquals(Set.of("python"), remaining);
+    }
+
+    @Test
+    void compactsRemovedEntriesInsteadOfGrowing() {
+        QuantizedEmbeddingStore store = new QuantizedEmbeddingStore();
+        Random random = new Random(7);
+        List<String> previous = List.of();
+        // Replace the whole store ten times, like repeated knowledge-base reloads
+        for (int round = 0; round < 10; round++) {
+            List<Embedding> embeddings = new ArrayList<>();
+            List<TextSegment> segments = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                embeddings.add(Embedding.from(gaussian(random, 1f)));
+                segments.add(TextSegment.from("round " + round + " segment " + i));
+            }
+            List<String> added = store.addAll(embeddings, segments);
+            store.removeAll(previous);
+            previous = added;
+
+            Embedding query = embeddings.get(500);
+            EmbeddingMatch<TextSegment> best = store.search(EmbeddingSearchRequest.builder()
+                    .queryEmbedding(query).maxResults(1).build()).matches().get(0);
+            assertEquals("round " + round + " segment 500", best.embedded().text());
+            assertEquals(added.get(500), best.embeddingId());
+        }
+
+        assertEquals(1000, store.size());
+        assertTrue(store.capacity() <= 2048, "capacity grew to " + store.capacity());
+    }
+
+    @Test
+    void capacityIsCappedAtOneDirectBuffer() {
+        assertEquals(1_398_101, QuantizedEmbeddingStore.maxCapacity(DIMENSION));
+        assertTrue((long) QuantizedEmbeddingStore.maxCapacity(DIMENSION) * DIMENSION * Float.BYTES
+                <= Integer.MAX_VALUE);
+    }
+
+    private static List<List<EmbeddingMatch<TextSegment>>> search(EmbeddingStore<TextSegment> store,
+            List<Embedding> queries) {
+        List<List<EmbeddingMatch<TextSegment>>> results = new ArrayList<>(queries.size());
+        for (Embedding query : queries) {
+            results.add(store.search(EmbeddingSearchRequest.builder()
+                    .queryEmbedding(query)
+                    .maxResults(K)
+                    .build()).matches());
+        }
+        return results;
+    }
+
+    private static float[] gaussian(Random random, float sigma) {
+        float[] v = new float[DIMENSION];
+        for (int d = 0; d < DIMENSION; d++) {
+            v[d] = (float) random.nextGaussian() * sigma;
+        }
+        return v;
+    }
+}
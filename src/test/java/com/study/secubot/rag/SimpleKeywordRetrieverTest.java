@@ -0,0 +1,64 @@
+package com.study.secubot.rag;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.data.segment.TextSegment;
+
+class SimpleKeywordRetrieverTest {
+
+    private static final String STACK_TRACE_DOC = "Never call e.printStackTrace() in production; log the exception instead.";
+    private static final String XSS_DOC = "Do not assign untrusted input to element.innerHTML; encode output.";
+    private static final String SQL_DOC = "Use PreparedStatement instead of concatenating SQL queries.";
+
+    private final SimpleKeywordRetriever retriever = new SimpleKeywordRetriever();
+    private Bm25Index index;
+
+    @BeforeEach
+    void setUp() {
+        index = new Bm25Index(List.of(TextSegment.from(STACK_TRACE_DOC), TextSegment.from(XSS_DOC),
+                TextSegment.from(SQL_DOC)));
+    }
+
+    @Test
+    void testFindsExactApiNames() {
+        List<ScoredDocument> results = retriever.retrieve(List.of("+ } catch (Exception e) { e.printStackTrace(); }"), 3, index);
+        assertEquals(STACK_TRACE_DOC, results.get(0).text());
+
+        results = retriever.retrieve(List.of("+ div.innerHTML = userInput;"), 3, index);
+        assertEquals(XSS_DOC, results.get(0).text());
+    }
+
+    @Test
+    void testNoKeywordsNoResults() {
+        assertTrue(retriever.retrieve(List.of("+ int total = a + b;"), 3, index).isEmpty());
+    }
+
+    @Test
+    void testEmptyIndexNoResults() {
+        assertTrue(retriever.retrieve(List.of("+ e.printStackTrace();"), 3, new Bm25Index(List.of())).isEmpty());
+    }
+
+    @Test
+    void testAhoCorasickCountsOverlappingAndSplitMatches() {
+        AhoCorasick matcher = new AhoCorasick(List.of("he", "she", "hers"));
+        // "hers" spans both pieces
+        int[] counts = matcher.scanner().feed("uSHE").feed("rs he").counts();
+        assertArrayEquals(new int[] { 2, 1, 1 }, counts);
+    }
+
+    @Test
+    void testHybridFusionPrefersAgreement() {
+        List<ScoredDocument> vector = List.of(new ScoredDocument("a", 0.9), new ScoredDocument("b", 0.8));
+        List<ScoredDocument> keyword = List.of(new ScoredDocument("b", 12.0), new ScoredDocument("c", 3.0));
+
+        List<ScoredDocument> fused = HybridRetriever.fuse(List.of(vector, keyword), 2);
+        assertEquals(List.of("b", "a"), fused.stream().map(ScoredDocument::text).toList());
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.segment.TextSegment;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
@@ -25,7 +26,7 @@ class VectorStoreRetrieverTest {
     void setUp() {
         embeddingStore = new InMemoryEmbeddingStore<>();
         embeddingModel = new AllMiniLmL6V2EmbeddingModel();
-        retriever = new VectorStoreRetriever(embeddingStore, embeddingModel);
+        retriever = new VectorStoreRetriever(new KnowledgeBase(embeddingStore), embeddingModel);
 
         // Manually set maxResults since we are not using Spring context here
         // or we could use constructor injection if we modified the class to support it
@@ -52,4 +53,49 @@ class VectorStoreRetrieverTest {
         assertEquals(2, results.size());
         assertTrue(results.get(0).contains("SQL Injection"));
     }
+
+    @Test
+    void testRetrieveAllFusesAndDeduplicates() {
+        // Given
+        List<TextSegment> segments = List.of(
+                TextSegment.from("Security Guideline: Avoid SQL Injection with prepared statements"),
+                TextSegment.from("Security Guideline: Avoid SQL Injection with prepared statements"),
+                TextSegment.from("Security Guideline: Encode HTML output to prevent XSS in innerHTML"),
+                TextSegment.from("Performance Tip: Use StringBuilder"));
+        embeddingStore.addAll(embeddingModel.embedAll(segments).content(), segments);
+
+        // When
+        List<ScoredDocument> results = retriever.retrieveAll(List.of(
+                "String sql = \"SELECT * FROM users WHERE id = \" + id; SQL Injection",
+                "element.innerHTML = userInput; XSS"));
+
+        // Then
+        assertEquals(2, results.size());
+        assertTrue(results.stream().anyMatch(r -> r.text().contains("SQL Injection")));
+        assertTrue(results.stream().anyMatch(r -> r.text().contains("XSS")));
+    }
+
+    @Test
+    void retrieveAllPushesLanguageFilter() {
+        // Given
+        List<TextSegment> segments = List.of(
+                TextSegment.from("Avoid SQL Injection: use PreparedStatement parameters",
+                        Metadata.from(MarkdownSplitter.LANGUAGES, "java,kotlin")),
+                TextSegment.from("Avoid SQL Injection: use parameterized cursor.execute",
+                        Metadata.from(MarkdownSplitter.LANGUAGES, "python")),
+                TextSegment.from("Never log credentials", Metadata.from(MarkdownSplitter.LANGUAGES, "any")));
+        embeddingStore.addAll(embeddingModel.embedAll(segments).content(), segments);
+        List<String> queries = List.of("SQL Injection in query", "SQL Injection string concatenation");
+
+        // When
+        List<ScoredDocument> java = retriever.retrieveAll(queries,
+                VectorStoreRetriever.languageFilter(List.of("src/Dao.java", "src/Repo.kt")), retriever.snapshot());
+        List<ScoredDocument> unknown = retriever.retrieveAll(queries,
+                VectorStoreRetriever.languageFilter(List.of("src/Dao.java", "Dockerfile")), retriever.snapshot());
+
+        // Then
+        assertTrue(java.stream().noneMatch(r -> r.text().contains("cursor.execute")));
+        assertTrue(java.stream().anyMatch(r -> r.text().contains("PreparedStatement")));
+        assertTrue(unknown.stream().anyMatch(r -> r.text().contains("cursor.execute")));
+    }
 }
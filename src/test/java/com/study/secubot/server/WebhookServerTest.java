@@ -0,0 +1,312 @@
+package com.study.secubot.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.study.secubot.PullRequestReviewer;
+import com.study.secubot.core.DiffFile;
+import com.study.secubot.core.DiffParser;
+import com.study.secubot.core.LlmMetrics;
+import com.study.secubot.core.MessageBuilder;
+import com.study.secubot.core.PromptPacker;
+import com.study.secubot.core.ReviewCache;
+import com.study.secubot.core.ReviewEngine;
+import com.study.secubot.github.GitHubClientMetrics;
+import com.study.secubot.github.GitHubService;
+import com.study.secubot.github.IssueComment;
+import com.study.secubot.github.ReviewComment;
+import com.study.secubot.github.ReviewPublisher;
+import com.study.secubot.rag.HybridRetriever;
+import com.study.secubot.rag.KnowledgeBase;
+import com.study.secubot.rag.SimpleKeywordRetriever;
+import com.study.secubot.rag.VectorStoreRetriever;
+import com.study.secubot.scan.SecretScanner;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+class WebhookServerTest {
+
+    private static final String DIFF = """
+            diff --git a/src/App.java b/src/App.java
+            --- a/src/App.java
+            +++ b/src/App.java
+            @@ -1,0 +1,1 @@
+            +String query = "SELECT * FROM users WHERE id = " + id;
+            """;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final Map<String, String> comments = new ConcurrentHashMap<>();
+    private CountDownLatch llmGate;
+    private PullRequestReviewer reviewer;
+    private WebhookServer server;
+    private PrometheusMeterRegistry metrics;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        Metrics.addRegistry(metrics);
+        llmGate = new CountDownLatch(0);
+        GitHubService gitHub = new GitHubService() {
+            @Override
+            public String getPullRequestDiff(String prUrl) {
+                return DIFF;
+            }
+
+            @Override
+            public void streamPullRequestDiff(String prUrl, Consumer<DiffFile> consumer) {
+                new DiffParser().parse(DIFF).forEach(consumer);
+            }
+
+            @Override
+            public String getHeadSha(String prUrl) {
+                return "abc123";
+            }
+
+            @Override
+            public String getBaseFileContent(String prUrl, String path) {
+                return null;
+            }
+
+            @Override
+            public String compareStatus(String prUrl, String base, String head) {
+                return "ahead";
+            }
+
+            @Override
+            public void streamCompareDiff(String prUrl, String base, String head, Consumer<DiffFile> consumer) {
+                streamPullRequestDiff(prUrl, consumer);
+            }
+
+            @Override
+            public void postComment(String prUrl, String body) {
+                comments.put(prUrl, body);
+            }
+
+            @Override
+            public List<String> listPullRequests(String repo, String state) {
+                return List.of();
+            }
+
+            @Override
+            public IssueComment findComment(String prUrl, String marker) {
+                return null;
+            }
+
+            @Override
+            public void updateComment(String commentUrl, String body) {
+            }
+
+            @Override
+            public List<String> listReviewCommentBodies(String prUrl) {
+                return List.of();
+            }
+
+            @Override
+            public void createReview(String prUrl, String body, List<ReviewComment> comments) {
+            }
+        };
+        ChatModel llm = new ChatModel() {
+            @Override
+            public ChatResponse doChat(ChatRequest request) {
+                try {
+                    llmGate.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ChatResponse.builder()
+                        .aiMessage(AiMessage.from("{\"risk_level\":\"HIGH\",\"summary\":\"SQL injection\"}"))
+                        .build();
+            }
+        };
+        EmbeddingModel embeddingModel = new EmbeddingModel() {
+            @Override
+            public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+                return Response.from(segments.stream()
+                        .map(s -> Embedding.from(new float[] { 1f, 0f }))
+                        .collect(Collectors.toList()));
+            }
+        };
+        VectorStoreRetriever vectorRetriever = new VectorStoreRetriever(new KnowledgeBase(), embeddingModel);
+        ReflectionTestUtils.setField(vectorRetriever, "maxResults", 2);
+        ReviewEngine engine = new ReviewEngine(llm, null,
+                new HybridRetriever(vectorRetriever, new SimpleKeywordRetriever()), new MessageBuilder(5),
+                ReviewCache.disabled(), new PromptPacker(60000), new SecretScanner(List.of()), new LlmMetrics(),
+                "single", false, 4, 0, 12000);
+        reviewer = new PullRequestReviewer(gitHub, engine, new ReviewPublisher(gitHub), new GitHubClientMetrics(),
+                true, ".secubotignore");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        Metrics.removeRegistry(metrics);
+        llmGate = new CountDownLatch(0);
+        if (server != null) {
+            server.drain(Duration.ofSeconds(5));
+        }
+    }
+
+    @Test
+    void reviewsPullRequestEvents() throws Exception {
+        start(1, 4, "");
+
+        assertEquals(200, post("ping", "{}", null).statusCode());
+        assertEquals(202, post("pull_request", event("closed", 1), null).statusCode());
+        assertEquals(202, post("pull_request", event("opened", 1), null).statusCode());
+
+        waitFor(() -> comments.containsKey(prUrl(1)));
+        assertTrue(comments.get(prUrl(1)).contains("**Risk Level**: `HIGH`"));
+        HttpResponse<String> health = get("/health");
+        assertEquals(200, health.statusCode());
+        assertTrue(health.body().contains("\"completed\":1"), health.body());
+    }
+
+    @Test
+    void exposesStageMetrics() throws Exception {
+        start(1, 4, "");
+        post("pull_request", event("opened", 1), null);
+        waitFor(() -> comments.containsKey(prUrl(1)));
+
+        HttpResponse<String> scrape = get("/metrics");
+        assertEquals(200, scrape.statusCode());
+        assertTrue(scrape.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+        for (String stage : List.of("retrieve", "prompt.build", "llm.call", "comment.post")) {
+            assertTrue(scrape.body().contains("secubot_stage_seconds_count{stage=\"" + stage + "\",} 1.0"),
+                    stage + " missing from\n" + scrape.body());
+        }
+        assertTrue(scrape.body().contains("secubot_bytes_total{kind=\"comment\",}"), scrape.body());
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        llmGate = new CountDownLatch(1);
+        start(1, 1, "");
+
+        assertEquals(202, post("pull_request", event("opened", 1), null).statusCode());
+        waitFor(() -> get("/health").body().contains("\"active\":1"));
+        assertEquals(202, post("pull_request", event("opened", 2), null).statusCode());
+        // Same PR again while still queued is coalesced, a new one is rejected
+        assertEquals(202, post("pull_request", event("synchronize", 2), null).statusCode());
+        HttpResponse<String> rejected = post("pull_request", event("opened", 3), null);
+        assertEquals(503, rejected.statusCode());
+        assertEquals("30", rejected.headers().firstValue("Retry-After").orElse(""));
+
+        llmGate.countDown();
+        waitFor(() -> comments.size() == 2);
+    }
+
+    @Test
+    void verifiesSignatures() throws Exception {
+        start(1, 4, "s3cret");
+        String body = event("opened", 1);
+
+        assertEquals(401, post("pull_request", body, "sha256=00").statusCode());
+        assertEquals(202, post("pull_request", body, sign("s3cret", body)).statusCode());
+    }
+
+    @Test
+    void drainFinishesQueuedReviews() throws Exception {
+        llmGate = new CountDownLatch(1);
+        start(1, 4, "");
+        post("pull_request", event("opened", 1), null);
+        post("pull_request", event("opened", 2), null);
+
+        Thread release = new Thread(() -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            llmGate.countDown();
+        });
+        release.start();
+
+        assertTrue(server.drain(Duration.ofSeconds(10)));
+        server = null;
+        assertEquals(2, comments.size());
+    }
+
+    private void start(int workers, int queueCapacity, String secret) throws IOException {
+        server = new WebhookServer(0, workers, queueCapacity, secret, reviewer, metrics);
+        server.start();
+    }
+
+    private HttpResponse<String> post(String event, String body, String signature) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri("/webhook"))
+                .header("X-GitHub-Event", event)
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (signature != null) {
+            request.header("X-Hub-Signature-256", signature);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return http.send(HttpRequest.newBuilder(uri(path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.port() + path);
+    }
+
+    private static String prUrl(int number) {
+        return "https://api.github.com/repos/acme/app/pulls/" + number;
+    }
+
+    private static String event(String action, int number) {
+        return "{\"action\":\"" + action + "\",\"pull_request\":{\"url\":\"" + prUrl(number) + "\"}}";
+    }
+
+    private static String sign(String secret, String body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return "sha256=" + HexFormat.of().formatHex(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private interface Condition {
+        boolean holds() throws Exception;
+    }
+
+    private static void waitFor(Condition condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.holds()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met within 10 s");
+            }
+            Thread.sleep(20);
+        }
+    }
+}